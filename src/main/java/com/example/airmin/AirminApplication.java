@@ -17,7 +17,6 @@ import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
@@ -30,7 +29,6 @@ import java.util.TimeZone;
 @ConfigurationPropertiesScan("com.example.airmin")
 @EnableJpaRepositories(repositoryFactoryBeanClass = EntityGraphJpaRepositoryFactoryBean.class)
 @EnableJpaAuditing
-@EnableCaching
 public class AirminApplication {
 
     public static void main(String[] args) {
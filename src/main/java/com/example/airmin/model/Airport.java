@@ -12,10 +12,11 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
-import javax.persistence.Transient;
+import javax.persistence.SequenceGenerator;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.Collection;
@@ -28,13 +29,9 @@ import java.util.Objects;
 @TypeDef(typeClass = ZoneIdType.class, defaultForType = ZoneId.class)
 @NoArgsConstructor
 public class Airport {
-    /**
-     * Used by graph search algorithm. It is nasty, I know
-     */
-    @Transient
-    private double distance = Double.POSITIVE_INFINITY;
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "airport_id")
+    @SequenceGenerator(name = "airport_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
     @Column(nullable = false, unique = true)
     private Long externalId;
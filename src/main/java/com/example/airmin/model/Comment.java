@@ -11,8 +11,10 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -24,7 +26,8 @@ import java.util.Objects;
 public class Comment {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_id")
+    @SequenceGenerator(name = "comment_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String content;
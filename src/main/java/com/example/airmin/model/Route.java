@@ -9,8 +9,10 @@ import org.hibernate.annotations.BatchSize;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import java.util.Objects;
 
 @Getter
@@ -22,7 +24,8 @@ import java.util.Objects;
 public class Route {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "route_id")
+    @SequenceGenerator(name = "route_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private Double price;
@@ -3,13 +3,46 @@ package com.example.airmin.repository;
 import com.cosium.spring.data.jpa.entity.graph.repository.EntityGraphJpaRepository;
 import com.example.airmin.model.Airport;
 import com.example.airmin.model.City;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface AirportRepository extends EntityGraphJpaRepository<Airport, Long> {
 
     Optional<Airport> findByExternalId(Long externalId);
 
     List<Airport> findAllByCity(City city);
+
+    /**
+     * @return all airports as flight graph nodes, without loading entities
+     */
+    @Query("select a.id as id, a.city.id as cityId, a.latitude as latitude, a.longitude as longitude from Airport a")
+    List<AirportNode> findAllNodes();
+
+    /**
+     * @return external ids of all airports, without loading entities
+     */
+    @Query("select a.externalId from Airport a")
+    Set<Long> findAllExternalIds();
+
+    /**
+     * @return highest airport id, {@code null} without airports
+     */
+    @Query("select max(a.id) from Airport a")
+    Long findMaxId();
+
+    /**
+     * Flight graph node projection of {@link Airport}
+     */
+    interface AirportNode {
+        Long getId();
+
+        Long getCityId();
+
+        Double getLatitude();
+
+        Double getLongitude();
+    }
 }
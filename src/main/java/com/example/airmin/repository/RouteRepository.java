@@ -2,6 +2,34 @@ package com.example.airmin.repository;
 
 import com.cosium.spring.data.jpa.entity.graph.repository.EntityGraphJpaRepository;
 import com.example.airmin.model.Route;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface RouteRepository extends EntityGraphJpaRepository<Route, Long> {
+
+    /**
+     * @return all routes as flight graph edges, without loading entities
+     */
+    @Query("select r.id as id, r.source.id as sourceId, r.destination.id as destinationId, r.price as price from Route r")
+    List<RouteEdge> findAllEdges();
+
+    /**
+     * @return highest route id, {@code null} without routes
+     */
+    @Query("select max(r.id) from Route r")
+    Long findMaxId();
+
+    /**
+     * Flight graph edge projection of {@link Route}
+     */
+    interface RouteEdge {
+        Long getId();
+
+        Long getSourceId();
+
+        Long getDestinationId();
+
+        Double getPrice();
+    }
 }
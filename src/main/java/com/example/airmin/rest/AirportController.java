@@ -1,10 +1,12 @@
 package com.example.airmin.rest;
 
+import com.example.airmin.rest.dto.ImportJobDto;
 import com.example.airmin.service.csv.AirportCsvImporter;
+import com.example.airmin.service.csv.ImportJobs;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,20 +16,22 @@ import java.io.IOException;
 public class AirportController {
 
     private final AirportCsvImporter airportCsvImporter;
+    private final ImportJobs importJobs;
 
-    public AirportController(final AirportCsvImporter airportCsvImporter) {
+    public AirportController(final AirportCsvImporter airportCsvImporter, final ImportJobs importJobs) {
         this.airportCsvImporter = airportCsvImporter;
+        this.importJobs = importJobs;
     }
 
     /**
-     * Import airports from provided file
+     * Import airports from provided file in the background
      *
      * @param file to import
+     * @return {@link ResponseEntity<ImportJobDto>} with {@link HttpStatus#ACCEPTED} and the location of the import
      * @throws IOException when file read goes wrong
      */
     @PostMapping("/airports")
-    @ResponseStatus(HttpStatus.OK)
-    public void importData(@RequestParam("file") MultipartFile file) throws IOException {
-        this.airportCsvImporter.importData(file.getBytes());
+    public ResponseEntity<ImportJobDto> importData(@RequestParam("file") MultipartFile file) throws IOException {
+        return ImportController.accepted(importJobs.submit("airports", airportCsvImporter, file.getInputStream()));
     }
 }
@@ -0,0 +1,75 @@
+package com.example.airmin.rest;
+
+import com.example.airmin.rest.dto.ImportJobDto;
+import com.example.airmin.rest.exception.ResourceNotFoundException;
+import com.example.airmin.service.csv.ImportJob;
+import com.example.airmin.service.csv.ImportJobs;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.Duration;
+
+@RestController
+public class ImportController {
+
+    private final ImportJobs importJobs;
+
+    public ImportController(final ImportJobs importJobs) {
+        this.importJobs = importJobs;
+    }
+
+    /**
+     * Progress of an import
+     *
+     * @param id import job id
+     * @return {@link ResponseEntity<ImportJobDto>} with records parsed, rejected and persisted so far, throughput and
+     * estimated time left
+     */
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<ImportJobDto> findImport(@PathVariable("id") String id) {
+        final ImportJob job = importJobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException(String.format("Import '%s' not found", id));
+        }
+        return ResponseEntity.ok(toDto(job));
+    }
+
+    /**
+     * Cancel an import: a queued import never runs, a running one stops before persisting its next chunk and nothing
+     * it imported is kept
+     *
+     * @param id import job id
+     * @return {@link ResponseEntity<ImportJobDto>} with {@link org.springframework.http.HttpStatus#ACCEPTED}, a
+     * running import is cancelled shortly after
+     */
+    @DeleteMapping("/imports/{id}")
+    public ResponseEntity<ImportJobDto> cancelImport(@PathVariable("id") String id) {
+        final ImportJob job = importJobs.cancel(id);
+        if (job == null) {
+            throw new ResourceNotFoundException(String.format("Import '%s' not found", id));
+        }
+        return ResponseEntity.accepted().body(toDto(job));
+    }
+
+    /**
+     * @return {@link org.springframework.http.HttpStatus#ACCEPTED} response linking the resource of {@code job}
+     */
+    static ResponseEntity<ImportJobDto> accepted(final ImportJob job) {
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/imports/{id}")
+                        .buildAndExpand(job.getId()).toUri())
+                .body(toDto(job));
+    }
+
+    private static ImportJobDto toDto(final ImportJob job) {
+        final Duration eta = job.getEta();
+        return new ImportJobDto(job.getId(), job.getType(), job.getState(), job.getRecordsParsed(),
+                job.getRecordsRejected(), job.getRecordsPersisted(), job.getBytesProcessed(), job.getTotalBytes(),
+                job.getRecordsPerSecond(), eta == null ? null : eta.toSeconds(), job.getError(), job.getCreatedAt(),
+                job.getStartedAt(), job.getFinishedAt());
+    }
+}
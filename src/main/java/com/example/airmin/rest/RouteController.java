@@ -1,21 +1,43 @@
 package com.example.airmin.rest;
 
+import com.example.airmin.model.City;
 import com.example.airmin.model.Route;
+import com.example.airmin.rest.dto.CityDto;
+import com.example.airmin.rest.dto.ImportJobDto;
+import com.example.airmin.rest.dto.PageableDto;
+import com.example.airmin.rest.dto.ReachableCityDto;
 import com.example.airmin.rest.dto.RouteDto;
+import com.example.airmin.rest.dto.RouteMatrixDto;
+import com.example.airmin.rest.dto.RouteTableDto;
+import com.example.airmin.rest.exception.InvalidRequestParameterException;
+import com.example.airmin.service.FareMatrix;
+import com.example.airmin.service.FareTable;
+import com.example.airmin.service.Itinerary;
+import com.example.airmin.service.ReachableCity;
 import com.example.airmin.service.RouteDiscoveryService;
+import com.example.airmin.service.csv.ImportJobs;
 import com.example.airmin.service.csv.RouteCsvImporter;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,25 +45,28 @@ import java.util.stream.Collectors;
 public class RouteController {
 
     private final RouteCsvImporter routeCsvImporter;
+    private final ImportJobs importJobs;
     private final RouteDiscoveryService routeDiscoveryService;
     private final ModelMapper modelMapper;
 
-    public RouteController(final RouteCsvImporter routeCsvImporter, final RouteDiscoveryService routeDiscoveryService, final ModelMapper modelMapper) {
+    public RouteController(final RouteCsvImporter routeCsvImporter, final ImportJobs importJobs,
+                           final RouteDiscoveryService routeDiscoveryService, final ModelMapper modelMapper) {
         this.routeCsvImporter = routeCsvImporter;
+        this.importJobs = importJobs;
         this.routeDiscoveryService = routeDiscoveryService;
         this.modelMapper = modelMapper;
     }
 
     /**
-     * Import routes from provided file
+     * Import routes from provided file in the background
      *
      * @param file to import
+     * @return {@link ResponseEntity<ImportJobDto>} with {@link HttpStatus#ACCEPTED} and the location of the import
      * @throws IOException when file read goes wrong
      */
     @PostMapping("/routes")
-    @ResponseStatus(HttpStatus.OK)
-    public void importData(@RequestParam("file") MultipartFile file) throws IOException {
-        routeCsvImporter.importData(file.getBytes());
+    public ResponseEntity<ImportJobDto> importData(@RequestParam("file") MultipartFile file) throws IOException {
+        return ImportController.accepted(importJobs.submit("routes", routeCsvImporter, file.getInputStream()));
     }
 
     /**
@@ -49,21 +74,150 @@ public class RouteController {
      *
      * @param sourceCityId      A
      * @param destinationCityId B
+     * @param maxLegs           optional maximum number of flights
      * @return {@link ResponseEntity<RouteDto.WithTotal>} with {@link HttpStatus#OK} when route is found.
      * Otherwise {@link HttpStatus#NO_CONTENT}
      */
     @GetMapping("/routes/cheapest")
     public ResponseEntity<RouteDto.WithTotal> findCheapestRoute(
             @RequestParam(value = "source") Long sourceCityId,
-            @RequestParam(value = "destination") Long destinationCityId
+            @RequestParam(value = "destination") Long destinationCityId,
+            @RequestParam(value = "maxLegs", required = false) Integer maxLegs
     ) {
-        final List<Route> routes = routeDiscoveryService.cheapest(sourceCityId, destinationCityId);
+        final List<Route> routes = maxLegs == null
+                ? routeDiscoveryService.cheapest(sourceCityId, destinationCityId)
+                : routeDiscoveryService.cheapestWithinLegs(sourceCityId, destinationCityId, maxLegs);
         if (CollectionUtils.isEmpty(routes)) {
             return ResponseEntity.noContent().build();
         }
 
-        final List<RouteDto> routesDto = routes.stream().map(r -> modelMapper.map(r, RouteDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(new RouteDto.WithTotal(routes.stream().mapToDouble(Route::getPrice).sum(), routesDto));
+        return ResponseEntity.ok(withTotal(routes));
+    }
+
+    /**
+     * Find {@code k} cheapest itineraries from city A to B
+     *
+     * @param sourceCityId      A
+     * @param destinationCityId B
+     * @param k                 number of itineraries
+     * @return {@link ResponseEntity} with itineraries ranked by total price and {@link HttpStatus#OK} when any route
+     * is found. Otherwise {@link HttpStatus#NO_CONTENT}
+     */
+    @GetMapping(value = "/routes/cheapest", params = "k")
+    public ResponseEntity<List<RouteDto.WithTotal>> findCheapestRoutes(
+            @RequestParam(value = "source") Long sourceCityId,
+            @RequestParam(value = "destination") Long destinationCityId,
+            @RequestParam(value = "k") int k
+    ) {
+        final List<List<Route>> itineraries = routeDiscoveryService.cheapest(sourceCityId, destinationCityId, k);
+        if (itineraries.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(itineraries.stream().map(this::withTotal).collect(Collectors.toList()));
+    }
+
+    /**
+     * Find all itineraries from city A to B not beaten by another in price, number of legs and distance flown at once
+     *
+     * @param sourceCityId      A
+     * @param destinationCityId B
+     * @return {@link ResponseEntity} with itineraries ordered by total price and {@link HttpStatus#OK} when any route
+     * is found. Otherwise {@link HttpStatus#NO_CONTENT}
+     */
+    @GetMapping("/routes/pareto")
+    public ResponseEntity<List<RouteDto.Itinerary>> findParetoOptimalRoutes(
+            @RequestParam(value = "source") Long sourceCityId,
+            @RequestParam(value = "destination") Long destinationCityId
+    ) {
+        final List<Itinerary> itineraries = routeDiscoveryService.paretoOptimal(sourceCityId, destinationCityId);
+        if (itineraries.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(itineraries.stream()
+                .map(itinerary -> new RouteDto.Itinerary(itinerary.getPrice(), itinerary.getRoutes().size(),
+                        itinerary.getDistanceKm(), toDto(itinerary.getRoutes())))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Find cheapest prices from one city to many cities at once
+     *
+     * @param request source city, destination cities and whether to include routes
+     * @return prices in the order of requested destinations, {@code null} for unreachable ones
+     */
+    @PostMapping("/routes/matrix")
+    public ResponseEntity<RouteMatrixDto> fareMatrix(@Valid @RequestBody RouteMatrixDto.Request request) {
+        final FareMatrix matrix = routeDiscoveryService.matrix(request.getSource(), request.getDestinations(),
+                request.isPaths());
+        final List<Double> prices = Arrays.stream(matrix.getPrices())
+                .mapToObj(price -> Double.isInfinite(price) ? null : price).collect(Collectors.toList());
+        final List<List<RouteDto>> routes = matrix.getRoutes() == null ? null
+                : matrix.getRoutes().stream().map(this::toDto).collect(Collectors.toList());
+        return ResponseEntity.ok(new RouteMatrixDto(matrix.getSourceCityId(), matrix.getDestinationCityIds(), prices,
+                routes));
+    }
+
+    /**
+     * Stream the cheapest price table between many cities, rows are written as soon as they are computed
+     *
+     * @param request source and destination cities
+     * @param format  {@code ndjson} (default) or {@code csv}, see {@link FareTable.Format}
+     * @return table streamed in the requested format
+     */
+    @PostMapping("/routes/table")
+    public ResponseEntity<StreamingResponseBody> fareTable(@Valid @RequestBody RouteTableDto request,
+                                                           @RequestParam(value = "format", defaultValue = "ndjson")
+                                                                   String format) {
+        final FareTable.Format tableFormat = Arrays.stream(FareTable.Format.values())
+                .filter(f -> f.name().equalsIgnoreCase(format)).findFirst()
+                .orElseThrow(() -> new InvalidRequestParameterException(String.format("Unknown format '%s'", format)));
+        final FareTable table = routeDiscoveryService.fareTable(request.getSources(),
+                CollectionUtils.isEmpty(request.getDestinations()) ? request.getSources() : request.getDestinations());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(tableFormat.getMediaType()))
+                .body(out -> {
+                    final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    table.write(tableFormat, writer);
+                });
+    }
+
+    /**
+     * Find every city reachable from a city within a budget
+     *
+     * @param sourceCityId starting city
+     * @param budget       highest total price
+     * @param page         page
+     * @param perPage      results per page
+     * @return {@link ResponseEntity<PageableDto>} with reachable cities and their cheapest prices, ordered by price
+     */
+    @GetMapping("/routes/reachable")
+    public ResponseEntity<PageableDto<ReachableCityDto>> findReachableCities(
+            @RequestParam(value = "source") Long sourceCityId,
+            @RequestParam(value = "budget") double budget,
+            @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") Integer perPage
+    ) {
+        final Page<ReachableCity> paged = routeDiscoveryService.reachable(sourceCityId, budget,
+                PageRequest.of(page, perPage));
+
+        return ResponseEntity.ok(new PageableDto<>(
+                new PageableDto.Meta(paged.getTotalElements(), perPage, page),
+                paged.getContent().stream().map(r -> new ReachableCityDto(toDto(r.getCity()), r.getPrice()))
+                        .collect(Collectors.toList())
+        ));
+    }
+
+    private static CityDto toDto(final City city) {
+        final CityDto dto = new CityDto(city.getName(), city.getCountry(), city.getDescription());
+        dto.setId(city.getId());
+        return dto;
+    }
+
+    private List<RouteDto> toDto(final List<Route> routes) {
+        return routes.stream().map(r -> modelMapper.map(r, RouteDto.class)).collect(Collectors.toList());
+    }
+
+    private RouteDto.WithTotal withTotal(final List<Route> routes) {
+        return new RouteDto.WithTotal(routes.stream().mapToDouble(Route::getPrice).sum(), toDto(routes));
     }
 }
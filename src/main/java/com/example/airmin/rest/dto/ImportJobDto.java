@@ -0,0 +1,37 @@
+package com.example.airmin.rest.dto;
+
+import com.example.airmin.service.csv.ImportJob;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a csv import job
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobDto {
+
+    private String id;
+    private String type;
+    private ImportJob.State state;
+    private long recordsParsed;
+    private long recordsRejected;
+    private long recordsPersisted;
+    private long bytesProcessed;
+    private long totalBytes;
+    private double recordsPerSecond;
+    /**
+     * Estimated seconds until a running import is done
+     */
+    private Long etaSeconds;
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.example.airmin.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * City reachable within a budget with the cheapest price to get there
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReachableCityDto {
+    private CityDto city;
+    private double price;
+}
@@ -21,4 +21,17 @@ public class RouteDto {
         private double totalPrice;
         private List<RouteDto> routes;
     }
+
+    /**
+     * Itinerary with all criteria of a Pareto-optimal route search
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Itinerary {
+        private double totalPrice;
+        private int legs;
+        private double distanceKm;
+        private List<RouteDto> routes;
+    }
 }
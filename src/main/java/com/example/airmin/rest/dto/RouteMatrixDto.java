@@ -0,0 +1,45 @@
+package com.example.airmin.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Cheapest prices from one source city to many destination cities
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RouteMatrixDto {
+
+    private Long source;
+    private List<Long> destinations;
+    /**
+     * Price for every destination, {@code null} when not reachable
+     */
+    private List<Double> prices;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<List<RouteDto>> routes;
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    public static class Request {
+        @NotNull
+        private Long source;
+        @NotEmpty
+        @Size(max = 10000)
+        private List<@NotNull Long> destinations;
+        /**
+         * Include routes of every path
+         */
+        private boolean paths;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.airmin.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Request of a many-to-many cheapest price table
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RouteTableDto {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@NotNull Long> sources;
+    /**
+     * Same as sources when empty
+     */
+    @Size(max = 1000)
+    private List<@NotNull Long> destinations;
+}
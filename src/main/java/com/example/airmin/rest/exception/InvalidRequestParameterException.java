@@ -0,0 +1,11 @@
+package com.example.airmin.rest.exception;
+
+import com.example.airmin.rest.exception.common.ApiErrorCode;
+import com.example.airmin.rest.exception.common.ApiException;
+
+public class InvalidRequestParameterException extends ApiException {
+
+    public InvalidRequestParameterException(final String message) {
+        super(message, ApiErrorCode.CONSTRAINT_VALIDATION);
+    }
+}
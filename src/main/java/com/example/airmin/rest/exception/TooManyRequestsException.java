@@ -0,0 +1,11 @@
+package com.example.airmin.rest.exception;
+
+import com.example.airmin.rest.exception.common.ApiErrorCode;
+import com.example.airmin.rest.exception.common.ApiException;
+
+public class TooManyRequestsException extends ApiException {
+
+    public TooManyRequestsException(final String message) {
+        super(message, ApiErrorCode.TOO_MANY_REQUESTS);
+    }
+}
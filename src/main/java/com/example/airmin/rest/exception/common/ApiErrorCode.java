@@ -11,6 +11,7 @@ public enum ApiErrorCode {
     NOT_UNIQUE(HttpStatus.UNPROCESSABLE_ENTITY),
     RELATION_NOT_FOUND(HttpStatus.UNPROCESSABLE_ENTITY),
     CONSTRAINT_VALIDATION(HttpStatus.BAD_REQUEST),
+    TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS),
     ;
 
     private final HttpStatus httpStatus;
@@ -0,0 +1,26 @@
+package com.example.airmin.service;
+
+import com.example.airmin.model.Route;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Cheapest prices from one source city to many destination cities
+ */
+@Getter
+@AllArgsConstructor
+public class FareMatrix {
+    private final Long sourceCityId;
+    private final List<Long> destinationCityIds;
+    /**
+     * Price for every destination in the order of {@link #destinationCityIds}, {@link Double#POSITIVE_INFINITY} when
+     * not reachable
+     */
+    private final double[] prices;
+    /**
+     * Routes for every destination, {@code null} when not requested
+     */
+    private final List<List<Route>> routes;
+}
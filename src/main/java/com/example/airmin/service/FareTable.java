@@ -0,0 +1,122 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.shortestpath.ManyToManySearch;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Cheapest price table from source cities (rows) to destination cities (columns), computed when consumed. Rows are
+ * computed in parallel and delivered in completion order, each with its source city id.
+ */
+public class FareTable {
+
+    /**
+     * Streaming output format
+     */
+    public enum Format {
+        /**
+         * Header {@code source,<destination ids>}, then one line per source: its id and prices, empty when not
+         * reachable
+         */
+        CSV("text/csv"),
+        /**
+         * One JSON object per line: {@code {"source":1,"prices":[12.5,null]}}, prices in order of destinations
+         */
+        NDJSON("application/x-ndjson");
+
+        @Getter
+        private final String mediaType;
+
+        Format(final String mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+
+    @Getter
+    private final List<Long> sourceCityIds;
+    @Getter
+    private final List<Long> destinationCityIds;
+    private final int[][] sources;
+    private final int[][] targets;
+    private final FlightGraph graph;
+    private final ManyToManySearch manyToManySearch;
+
+    FareTable(final List<Long> sourceCityIds, final List<Long> destinationCityIds, final int[][] sources,
+              final int[][] targets, final FlightGraph graph, final ManyToManySearch manyToManySearch) {
+        this.sourceCityIds = sourceCityIds;
+        this.destinationCityIds = destinationCityIds;
+        this.sources = sources;
+        this.targets = targets;
+        this.graph = graph;
+        this.manyToManySearch = manyToManySearch;
+    }
+
+    /**
+     * Compute the table, handing over rows as they are ready (never concurrently)
+     *
+     * @param consumer receives source city id and prices in order of {@link #getDestinationCityIds()},
+     *                 {@link Double#POSITIVE_INFINITY} when not reachable
+     */
+    public void forEachRow(final BiConsumer<Long, double[]> consumer) {
+        manyToManySearch.table(graph, sources, targets, (row, prices) -> consumer.accept(sourceCityIds.get(row),
+                prices));
+    }
+
+    /**
+     * Compute the table and write it row by row
+     *
+     * @param format output format
+     * @param writer destination, flushed after every row so rows reach clients while the rest is computed
+     * @throws IOException when writing fails, computation stops
+     */
+    public void write(final Format format, final Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write("source");
+            for (final Long cityId : destinationCityIds) {
+                writer.write(',');
+                writer.write(cityId.toString());
+            }
+            writer.write('\n');
+        }
+        final StringBuilder line = new StringBuilder();
+        try {
+            forEachRow((sourceCityId, prices) -> {
+                line.setLength(0);
+                if (format == Format.CSV) {
+                    line.append(sourceCityId);
+                    for (final double price : prices) {
+                        line.append(',');
+                        if (!Double.isInfinite(price)) {
+                            line.append(price);
+                        }
+                    }
+                } else {
+                    line.append("{\"source\":").append(sourceCityId).append(",\"prices\":[");
+                    for (int i = 0; i < prices.length; i++) {
+                        if (i > 0) {
+                            line.append(',');
+                        }
+                        line.append(Double.isInfinite(prices[i]) ? "null" : Double.toString(prices[i]));
+                    }
+                    line.append("]}");
+                }
+                line.append('\n');
+                try {
+                    writer.write(line.toString());
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.airmin.service;
+
+import com.example.airmin.model.Route;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Routes of a found itinerary with its total price and great-circle distance flown
+ */
+@Getter
+@AllArgsConstructor
+public class Itinerary {
+    private final List<Route> routes;
+    private final double price;
+    private final double distanceKm;
+}
@@ -0,0 +1,15 @@
+package com.example.airmin.service;
+
+import com.example.airmin.model.City;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * City reachable within a budget with the price of its cheapest airport
+ */
+@Getter
+@AllArgsConstructor
+public class ReachableCity {
+    private final City city;
+    private final double price;
+}
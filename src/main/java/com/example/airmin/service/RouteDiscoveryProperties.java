@@ -0,0 +1,112 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.shortestpath.Algorithm;
+import com.example.airmin.service.shortestpath.QueueType;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Route discovery (graph search) settings
+ */
+@ConfigurationProperties("app.route-discovery")
+@Getter
+@ConstructorBinding
+public class RouteDiscoveryProperties {
+
+    /**
+     * Search algorithm used for cheapest route queries
+     */
+    private final Algorithm algorithm;
+
+    /**
+     * Priority queue used by Dijkstra
+     */
+    private final QueueType queue;
+
+    /**
+     * Arity of {@link QueueType#DARY_HEAP}
+     */
+    private final int heapArity;
+
+    /**
+     * Directory where contraction hierarchies are persisted, not persisted when empty
+     */
+    private final String chDirectory;
+
+    /**
+     * Number of landmarks precomputed for {@link Algorithm#ALT}
+     */
+    private final int landmarks;
+
+    /**
+     * Maximum number of itineraries of a k cheapest itineraries query
+     */
+    private final int maxItineraries;
+
+    /**
+     * Highest leg limit accepted by a leg-limited cheapest route query
+     */
+    private final int maxLegs;
+
+    /**
+     * Threads computing many-to-many fare tables, all available processors when not positive
+     */
+    private final int tableParallelism;
+
+    /**
+     * Maximum number of cached route search results, caching is disabled when not positive
+     */
+    private final int resultCacheSize;
+
+    /**
+     * How long a cached route search result is kept
+     */
+    private final Duration resultCacheTtl;
+
+    /**
+     * Binary flight graph file mapped at startup and rewritten whenever the graph changes, not used when empty
+     */
+    private final String graphFile;
+
+    /**
+     * Whether to load the flight graph and warm up searches at startup, before the application reports readiness
+     */
+    private final boolean preload;
+
+    /**
+     * Number of random cheapest route searches run by the startup warm-up
+     */
+    private final int warmupQueries;
+
+    public RouteDiscoveryProperties(@DefaultValue("DIJKSTRA") final Algorithm algorithm,
+                                    @DefaultValue("DARY_HEAP") final QueueType queue,
+                                    @DefaultValue("4") final int heapArity,
+                                    final String chDirectory,
+                                    @DefaultValue("16") final int landmarks,
+                                    @DefaultValue("20") final int maxItineraries,
+                                    @DefaultValue("8") final int maxLegs,
+                                    @DefaultValue("0") final int tableParallelism,
+                                    @DefaultValue("10000") final int resultCacheSize,
+                                    @DefaultValue("10m") final Duration resultCacheTtl,
+                                    final String graphFile,
+                                    @DefaultValue("false") final boolean preload,
+                                    @DefaultValue("1000") final int warmupQueries) {
+        this.algorithm = algorithm;
+        this.queue = queue;
+        this.heapArity = heapArity;
+        this.chDirectory = chDirectory;
+        this.landmarks = landmarks;
+        this.maxItineraries = maxItineraries;
+        this.maxLegs = maxLegs;
+        this.tableParallelism = tableParallelism;
+        this.resultCacheSize = resultCacheSize;
+        this.resultCacheTtl = resultCacheTtl;
+        this.graphFile = graphFile;
+        this.preload = preload;
+        this.warmupQueries = warmupQueries;
+    }
+}
@@ -1,89 +1,459 @@
 package com.example.airmin.service;
 
 import com.cosium.spring.data.jpa.entity.graph.domain.EntityGraphUtils;
-import com.example.airmin.model.Airport;
 import com.example.airmin.model.Airport_;
 import com.example.airmin.model.City;
 import com.example.airmin.model.Route;
-import com.example.airmin.repository.AirportRepository;
+import com.example.airmin.model.Route_;
 import com.example.airmin.repository.CityRepository;
+import com.example.airmin.repository.RouteRepository;
+import com.example.airmin.rest.exception.InvalidRequestParameterException;
 import com.example.airmin.rest.exception.ResourceNotFoundException;
 import com.example.airmin.rest.exception.common.ApiErrorCode;
-import com.example.airmin.service.shortestpath.Dijkstra;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.FlightGraphSnapshot;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.shortestpath.Algorithm;
+import com.example.airmin.service.shortestpath.BudgetSearch;
+import com.example.airmin.service.shortestpath.KShortestPaths;
+import com.example.airmin.service.shortestpath.LegLimitedSearch;
+import com.example.airmin.service.shortestpath.ManyToManySearch;
+import com.example.airmin.service.shortestpath.OneToManySearch;
+import com.example.airmin.service.shortestpath.ParetoPath;
+import com.example.airmin.service.shortestpath.ParetoSearch;
+import com.example.airmin.service.shortestpath.ReachableAirports;
+import com.example.airmin.service.shortestpath.ShortestPath;
+import com.example.airmin.service.shortestpath.ShortestPathEngine;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 @Service
 @Log4j2
 public class RouteDiscoveryService {
 
     private final CityRepository cityRepository;
-    private final AirportRepository airportRepository;
-    private final Dijkstra dijkstra;
-    private final CacheManager cacheManager;
+    private final RouteRepository routeRepository;
+    private final FlightGraphSnapshots snapshots;
+    private final Map<Algorithm, ShortestPathEngine> engines = new EnumMap<>(Algorithm.class);
+    private final RouteDiscoveryProperties properties;
+    private final KShortestPaths kShortestPaths;
+    private final LegLimitedSearch legLimitedSearch;
+    private final ParetoSearch paretoSearch;
+    private final OneToManySearch oneToManySearch;
+    private final ManyToManySearch manyToManySearch;
+    private final BudgetSearch budgetSearch;
+    private final RouteResultCache resultCache;
 
-    public RouteDiscoveryService(final CityRepository cityRepository, final AirportRepository airportRepository,
-                                 final Dijkstra dijkstra, final CacheManager cacheManager) {
+    public RouteDiscoveryService(final CityRepository cityRepository, final RouteRepository routeRepository,
+                                 final FlightGraphSnapshots snapshots, final List<ShortestPathEngine> engines,
+                                 final RouteDiscoveryProperties properties,
+                                 final KShortestPaths kShortestPaths, final LegLimitedSearch legLimitedSearch,
+                                 final ParetoSearch paretoSearch, final OneToManySearch oneToManySearch,
+                                 final ManyToManySearch manyToManySearch, final BudgetSearch budgetSearch,
+                                 final RouteResultCache resultCache) {
         this.cityRepository = cityRepository;
-        this.airportRepository = airportRepository;
-        this.dijkstra = dijkstra;
-        this.cacheManager = cacheManager;
+        this.routeRepository = routeRepository;
+        this.snapshots = snapshots;
+        engines.forEach(engine -> this.engines.put(engine.algorithm(), engine));
+        this.properties = properties;
+        this.kShortestPaths = kShortestPaths;
+        this.legLimitedSearch = legLimitedSearch;
+        this.paretoSearch = paretoSearch;
+        this.oneToManySearch = oneToManySearch;
+        this.manyToManySearch = manyToManySearch;
+        this.budgetSearch = budgetSearch;
+        this.resultCache = resultCache;
+        // let the configured engine rebuild its preprocessed data for a new graph right away instead of on the first
+        // query
+        snapshots.onSwap(snapshot -> {
+            if (snapshot.getDelta() == null) {
+                engine().prepare(snapshot.getGraph());
+            } else {
+                engine().update(snapshot.getBaseFingerprint(), snapshot.getGraph(), snapshot.getDelta());
+            }
+        });
     }
 
     /**
      * Find the cheapest route from {@code sourceCityId} to {@code destinationCityId}.
      * <p>
-     * This is achieved by exploring the airports graph with Dijkstra algorithm. This could be improved by
-     * implementing Bidirectional Dijkstra, or even better apply contraction hierarchies preprocessing
+     * This is achieved by exploring the {@link FlightGraph} with the configured {@link Algorithm} (plain or
+     * bidirectional Dijkstra, A* with geographic or landmark bounds, or a query over contraction hierarchies).
+     * Preprocessed data (hierarchies, landmarks) is rebuilt in the background after imports. Found routes are kept in
+     * the {@link RouteResultCache} until the next import
      *
      * @param sourceCityId      starting point
      * @param destinationCityId destination point
      * @return {@link List<Route>} list of routes to reach destination
      */
     public List<Route> cheapest(@NonNull Long sourceCityId, @NonNull Long destinationCityId) {
-        final Iterable<Airport> airports = tryFromCache();
-
-        final City sourceCity = cityRepository.findById(sourceCityId).orElseThrow(() ->
-                new ResourceNotFoundException(String
-                        .format("City with id '%s' doesn't exist", sourceCityId), ApiErrorCode.RELATION_NOT_FOUND));
-        final City destinationCity = cityRepository.findById(destinationCityId).orElseThrow(() ->
-                new ResourceNotFoundException(String
-                        .format("City with id '%s' doesn't exist", destinationCityId), ApiErrorCode.RELATION_NOT_FOUND));
-
-        List<Airport> sourceAirports = new ArrayList<>();
-        List<Airport> destinationAirports = new ArrayList<>();
-        for (final Airport airport : airports) {
-            if (sourceCity.equals(airport.getCity())) {
-                sourceAirports.add(airport);
+        final FlightGraphSnapshot snapshot = snapshots.current();
+        final FlightGraph graph = snapshot.getGraph();
+
+        requireCity(sourceCityId);
+        requireCity(destinationCityId);
+
+        final long[][] routeIds = resultCache.get(snapshot.getVersion(), sourceCityId, destinationCityId, "", () -> {
+            final int[] sourceAirports = graph.airportsIn(sourceCityId);
+            final int[] destinationAirports = graph.airportsIn(destinationCityId);
+
+            final ShortestPath path = engine().cheapest(graph, sourceAirports, destinationAirports);
+            log.debug("Cheapest route from city {} to {} found by {}, settled {} airports", sourceCityId,
+                    destinationCityId, properties.getAlgorithm(), path.getSettled());
+            return result(Collections.singletonList(path), 1);
+        });
+        return found(loadRoutes(routeIds).get(0));
+    }
+
+    /**
+     * Find the cheapest route from {@code sourceCityId} to {@code destinationCityId} taking at most {@code maxLegs}
+     * flights, pruning longer itineraries while searching
+     *
+     * @param sourceCityId      starting point
+     * @param destinationCityId destination point
+     * @param maxLegs           maximum number of routes, at most {@code app.route-discovery.max-legs}
+     * @return {@link List<Route>} list of routes to reach destination, empty when there is no route short enough
+     */
+    public List<Route> cheapestWithinLegs(@NonNull Long sourceCityId, @NonNull Long destinationCityId,
+                                          final int maxLegs) {
+        if (maxLegs < 1 || maxLegs > properties.getMaxLegs()) {
+            throw new InvalidRequestParameterException(String.format("Maximum number of legs must be between 1 and %s",
+                    properties.getMaxLegs()));
+        }
+        final FlightGraphSnapshot snapshot = snapshots.current();
+        final FlightGraph graph = snapshot.getGraph();
+
+        requireCity(sourceCityId);
+        requireCity(destinationCityId);
+
+        final long[][] routeIds = resultCache.get(snapshot.getVersion(), sourceCityId, destinationCityId,
+                "maxLegs=" + maxLegs, () -> {
+                    final ShortestPath path = legLimitedSearch.cheapest(graph, graph.airportsIn(sourceCityId),
+                            graph.airportsIn(destinationCityId), maxLegs);
+                    log.debug("Cheapest route from city {} to {} within {} legs, settled {} airports", sourceCityId,
+                            destinationCityId, maxLegs, path.getSettled());
+                    return result(Collections.singletonList(path), 1);
+                });
+        return found(loadRoutes(routeIds).get(0));
+    }
+
+    /**
+     * Find up to {@code k} cheapest distinct itineraries (without visiting an airport twice) from
+     * {@code sourceCityId} to {@code destinationCityId}, using Yen's algorithm
+     *
+     * @param sourceCityId      starting point
+     * @param destinationCityId destination point
+     * @param k                 number of itineraries, at most {@code app.route-discovery.max-itineraries}
+     * @return itineraries ordered by total price, empty when destination is not reachable
+     */
+    public List<List<Route>> cheapest(@NonNull Long sourceCityId, @NonNull Long destinationCityId, final int k) {
+        if (k < 1 || k > properties.getMaxItineraries()) {
+            throw new InvalidRequestParameterException(String.format("Number of itineraries must be between 1 and %s",
+                    properties.getMaxItineraries()));
+        }
+        final FlightGraphSnapshot snapshot = snapshots.current();
+        final FlightGraph graph = snapshot.getGraph();
+
+        requireCity(sourceCityId);
+        requireCity(destinationCityId);
+
+        final long[][] routeIds = resultCache.get(snapshot.getVersion(), sourceCityId, destinationCityId, "k=" + k,
+                () -> {
+                    final List<ShortestPath> paths = kShortestPaths.cheapest(graph, graph.airportsIn(sourceCityId),
+                            graph.airportsIn(destinationCityId), k);
+                    log.debug("{} cheapest itineraries from city {} to {} found, settled {} airports", paths.size(),
+                            sourceCityId, destinationCityId, paths.isEmpty() ? 0 : paths.get(0).getSettled());
+                    return result(paths, k);
+                });
+        return loadRoutes(routeIds).stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Find all Pareto-optimal itineraries from {@code sourceCityId} to {@code destinationCityId} by price, number of
+     * legs and great-circle distance flown: no other itinerary is cheaper, shorter and with fewer legs at once. The
+     * cheapest, the shortest and the one with fewest stops (within {@code app.route-discovery.max-legs}) are among them
+     *
+     * @param sourceCityId      starting point
+     * @param destinationCityId destination point
+     * @return itineraries ordered by price, empty when destination is not reachable
+     */
+    public List<Itinerary> paretoOptimal(@NonNull Long sourceCityId, @NonNull Long destinationCityId) {
+        final FlightGraph graph = snapshots.graph();
+
+        requireCity(sourceCityId);
+        requireCity(destinationCityId);
+
+        final List<ParetoPath> paths = paretoSearch.search(graph, graph.airportsIn(sourceCityId),
+                graph.airportsIn(destinationCityId));
+        log.debug("{} Pareto-optimal itineraries from city {} to {} found, settled {} labels", paths.size(),
+                sourceCityId, destinationCityId, paths.isEmpty() ? 0 : paths.get(0).getSettled());
+        final List<List<Route>> routes = toRoutes(paths);
+        return IntStream.range(0, paths.size())
+                .filter(i -> routes.get(i) != null)
+                .mapToObj(i -> new Itinerary(routes.get(i), paths.get(i).getPrice(), paths.get(i).getDistanceKm()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find cheapest prices from {@code sourceCityId} to every city of {@code destinationCityIds} with one search that
+     * stops once all destinations are settled, instead of one search per destination
+     *
+     * @param sourceCityId       starting point
+     * @param destinationCityIds destination points, duplicates are answered once
+     * @param withRoutes         whether to load the routes of every path
+     * @return prices (and routes) in the order of {@code destinationCityIds}
+     */
+    public FareMatrix matrix(@NonNull Long sourceCityId, @NonNull List<Long> destinationCityIds,
+                             final boolean withRoutes) {
+        final FlightGraph graph = snapshots.graph();
+
+        requireCity(sourceCityId);
+        final Map<Long, Integer> columns = columns(destinationCityIds);
+        requireCities(columns.keySet());
+        final int[][] targets = airportsIn(graph, columns);
+
+        final ShortestPath[] paths = oneToManySearch.cheapest(graph, graph.airportsIn(sourceCityId), targets,
+                withRoutes);
+        log.debug("Fare matrix from city {} to {} cities, settled {} airports", sourceCityId, targets.length,
+                paths.length == 0 ? 0 : paths[0].getSettled());
+
+        final List<List<Route>> columnRoutes = withRoutes ? toRoutes(Arrays.asList(paths)) : null;
+        // a dropped path is reported as unreachable
+        final double[] prices = destinationCityIds.stream().mapToDouble(cityId -> columnRoutes != null
+                && columnRoutes.get(columns.get(cityId)) == null ? Double.POSITIVE_INFINITY
+                : paths[columns.get(cityId)].getPrice()).toArray();
+        List<List<Route>> routes = null;
+        if (withRoutes) {
+            routes = destinationCityIds.stream().map(cityId -> found(columnRoutes.get(columns.get(cityId))))
+                    .collect(Collectors.toList());
+        }
+        return new FareMatrix(sourceCityId, destinationCityIds, prices, routes);
+    }
+
+    /**
+     * Prepare the cheapest price table between every city of {@code sourceCityIds} and every city of
+     * {@code destinationCityIds}. Cities are validated right away, prices are computed in parallel when the table is
+     * consumed with {@link FareTable#forEachRow} or written with {@link FareTable#write}
+     *
+     * @param sourceCityIds      rows of the table
+     * @param destinationCityIds columns of the table
+     * @return table over the current flight graph
+     */
+    public FareTable fareTable(@NonNull List<Long> sourceCityIds, @NonNull List<Long> destinationCityIds) {
+        final FlightGraph graph = snapshots.graph();
+
+        final Map<Long, Integer> rows = columns(sourceCityIds);
+        final Map<Long, Integer> columns = columns(destinationCityIds);
+        final Set<Long> cityIds = new HashSet<>(rows.keySet());
+        cityIds.addAll(columns.keySet());
+        requireCities(cityIds);
+
+        final int[][] rowAirports = airportsIn(graph, rows);
+        final int[][] columnAirports = airportsIn(graph, columns);
+        return new FareTable(sourceCityIds, destinationCityIds,
+                sourceCityIds.stream().map(cityId -> rowAirports[rows.get(cityId)]).toArray(int[][]::new),
+                destinationCityIds.stream().map(cityId -> columnAirports[columns.get(cityId)]).toArray(int[][]::new),
+                graph, manyToManySearch);
+    }
+
+    /**
+     * Find every city reachable from {@code sourceCityId} for at most {@code budget}, with the price of its cheapest
+     * airport. One search explores the graph up to the budget and stops there, only cities of the requested page are
+     * loaded
+     *
+     * @param sourceCityId starting point, not part of the result
+     * @param budget       highest total price, inclusive
+     * @param paging       page of the cities ordered by price
+     * @return reachable cities ordered by price, then by id
+     */
+    public Page<ReachableCity> reachable(@NonNull Long sourceCityId, final double budget,
+                                         @NonNull Pageable paging) {
+        if (!Double.isFinite(budget) || budget < 0) {
+            throw new InvalidRequestParameterException(
+                    String.format("Budget must be a non negative number, got %s", budget));
+        }
+        final FlightGraph graph = snapshots.graph();
+
+        requireCity(sourceCityId);
+
+        final ReachableAirports airports = budgetSearch.reachable(graph, graph.airportsIn(sourceCityId), budget);
+        log.debug("{} airports reachable from city {} within {}", airports.size(), sourceCityId, budget);
+
+        // airports arrive by increasing price, the first one of a city is its cheapest
+        final Map<Long, Double> prices = new LinkedHashMap<>();
+        for (int i = 0; i < airports.size(); i++) {
+            final long cityId = graph.cityId(airports.getNodes()[i]);
+            if (cityId != sourceCityId) {
+                prices.putIfAbsent(cityId, airports.getPrices()[i]);
             }
-            if (destinationCity.equals(airport.getCity())) {
-                destinationAirports.add(airport);
+        }
+        final List<Long> ordered = prices.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey).collect(Collectors.toList());
+
+        final int from = (int) Math.min(paging.getOffset(), ordered.size());
+        final List<Long> pageIds = ordered.subList(from, Math.min(from + paging.getPageSize(), ordered.size()));
+        final Map<Long, City> cities = StreamSupport.stream(cityRepository.findAllById(pageIds).spliterator(), false)
+                .collect(Collectors.toMap(City::getId, Function.identity()));
+        final List<ReachableCity> content = pageIds.stream()
+                .map(cityId -> new ReachableCity(cities.get(cityId), prices.get(cityId)))
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, paging, ordered.size());
+    }
+
+    /**
+     * Wait for the configured engine to prepare its data (e.g. contraction hierarchy) of {@code graph}
+     *
+     * @param graph flight graph
+     */
+    public void awaitPrepared(@NonNull FlightGraph graph) {
+        engine().awaitPrepared(graph);
+    }
+
+    /**
+     * Search the cheapest route between {@code queries} random pairs of airports with the configured engine, so its
+     * code is compiled before the first request
+     *
+     * @param graph   flight graph
+     * @param queries number of searches
+     */
+    public void warmUp(@NonNull FlightGraph graph, final int queries) {
+        if (graph.nodeCount() == 0) {
+            return;
+        }
+        final ShortestPathEngine engine = engine();
+        final Random random = new Random(graph.fingerprint());
+        for (int i = 0; i < queries; i++) {
+            engine.cheapest(graph, new int[]{random.nextInt(graph.nodeCount())},
+                    new int[]{random.nextInt(graph.nodeCount())});
+        }
+    }
+
+    private ShortestPathEngine engine() {
+        return Objects.requireNonNull(engines.get(properties.getAlgorithm()),
+                () -> String.format("No engine implements %s", properties.getAlgorithm()));
+    }
+
+    /**
+     * @return index of every distinct city id, in order of first occurrence
+     */
+    private static Map<Long, Integer> columns(final List<Long> cityIds) {
+        final Map<Long, Integer> columns = new HashMap<>();
+        cityIds.forEach(cityId -> columns.putIfAbsent(cityId, columns.size()));
+        return columns;
+    }
+
+    /**
+     * Check all cities exist with one query
+     */
+    private void requireCities(final Set<Long> cityIds) {
+        final Set<Long> existing = StreamSupport.stream(cityRepository.findAllById(cityIds).spliterator(), false)
+                .map(City::getId).collect(Collectors.toSet());
+        for (final Long cityId : cityIds) {
+            if (!existing.contains(cityId)) {
+                throw cityNotFound(cityId);
             }
         }
+    }
+
+    /**
+     * @param columns index of every city
+     * @return airports of every city at its index
+     */
+    private static int[][] airportsIn(final FlightGraph graph, final Map<Long, Integer> columns) {
+        final int[][] airports = new int[columns.size()][];
+        columns.forEach((cityId, column) -> airports[column] = graph.airportsIn(cityId));
+        return airports;
+    }
+
+    private void requireCity(final Long cityId) {
+        if (!cityRepository.existsById(cityId)) {
+            throw cityNotFound(cityId);
+        }
+    }
+
+    private static ResourceNotFoundException cityNotFound(final Long cityId) {
+        return new ResourceNotFoundException(String.format("City with id '%s' doesn't exist", cityId),
+                ApiErrorCode.RELATION_NOT_FOUND);
+    }
+
+    /**
+     * @param expected number of paths asked for
+     */
+    private static RouteResultCache.Result result(final List<? extends ShortestPath> paths, final int expected) {
+        final List<? extends ShortestPath> found = paths.stream().filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+        return new RouteResultCache.Result(routeIds(paths), found.size() < expected ? Double.POSITIVE_INFINITY
+                : found.get(found.size() - 1).getPrice());
+    }
 
-        final Map<Airport, Airport> path = dijkstra.calculateGraph(airports, sourceAirports, destinationAirports);
-        return dijkstra.shortestPath(destinationAirports, path);
+    private static long[][] routeIds(final List<? extends ShortestPath> paths) {
+        return paths.stream().map(ShortestPath::getRouteIds).toArray(long[][]::new);
     }
 
-    private Iterable<Airport> tryFromCache() {
-        final Cache airportsCache = cacheManager.getCache(Airport.class.getSimpleName().toLowerCase());
-        Objects.requireNonNull(airportsCache);
-        final String cacheKey = "all";
-        final Object airports = Optional.ofNullable(airportsCache.get(cacheKey)).map(Cache.ValueWrapper::get)
-                .orElseGet(() -> airportRepository
-                        .findAll(EntityGraphUtils.fromAttributePaths(Airport_.departures.getName(),
-                                Airport_.city.getName())));
-        airportsCache.putIfAbsent(cacheKey, airports);
-        return (Iterable<Airport>) airports;
+    private List<List<Route>> toRoutes(final List<? extends ShortestPath> paths) {
+        return loadRoutes(routeIds(paths));
+    }
+
+    /**
+     * Load {@link Route} entities (with airports and cities) only for the routes on the found paths, in one query.
+     * <p>
+     * A route missing from the database means the searched snapshot doesn't show the database (e.g. data changed
+     * outside of the importers). Such a result is stale: its paths are dropped and the snapshot is invalidated, so the
+     * next query searches a graph loaded from the database
+     *
+     * @return routes of every path, {@code null} for a dropped path
+     */
+    private List<List<Route>> loadRoutes(final long[][] paths) {
+        final Set<Long> ids = Arrays.stream(paths).flatMapToLong(Arrays::stream).boxed()
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Arrays.stream(paths).map(path -> Collections.<Route>emptyList()).collect(Collectors.toList());
+        }
+
+        final Map<Long, Route> routes = StreamSupport.stream(routeRepository.findAllById(ids,
+                EntityGraphUtils.fromAttributePaths(
+                        Route_.source.getName().concat(".").concat(Airport_.city.getName()),
+                        Route_.destination.getName().concat(".").concat(Airport_.city.getName())))
+                .spliterator(), false)
+                .collect(Collectors.toMap(Route::getId, Function.identity()));
+        final List<List<Route>> loaded = Arrays.stream(paths)
+                .map(path -> Arrays.stream(path).mapToObj(routes::get).collect(Collectors.toList()))
+                .map(path -> path.contains(null) ? null : path)
+                .collect(Collectors.toList());
+        if (loaded.contains(null)) {
+            log.warn("Routes of a search result are missing in the database, dropping the flight graph snapshot");
+            snapshots.invalidate();
+        }
+        return loaded;
+    }
+
+    /**
+     * @return {@code routes} of a path, empty when dropped by {@link #loadRoutes}
+     */
+    private static List<Route> found(@Nullable final List<Route> routes) {
+        return routes == null ? Collections.emptyList() : routes;
     }
 
 }
@@ -0,0 +1,105 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Optional startup phase ({@code app.route-discovery.preload}): loads the flight graph, waits for the configured
+ * engine to prepare it and runs {@code app.route-discovery.warmup-queries} random searches, so the first request
+ * neither loads the graph nor runs interpreted search code. A graph mapped from the file only counts as loaded once
+ * it was checked against the database, see {@link FlightGraphSnapshots#verified()}.
+ * <p>
+ * Runs before the application is ready to accept traffic. As a health indicator (part of the readiness group) it is
+ * {@code OUT_OF_SERVICE} until done; timings of the phases are health details and timer {@code flight.graph.preload}
+ * with tag {@code phase} = {@code load}, {@code prepare} or {@code warmup}.
+ */
+@Component
+@Log4j2
+public class RouteGraphPreloader implements ApplicationRunner, HealthIndicator {
+
+    private final RouteDiscoveryProperties properties;
+    private final FlightGraphSnapshots snapshots;
+    private final RouteDiscoveryService routeDiscoveryService;
+    private final MeterRegistry meterRegistry;
+    private volatile Health health;
+
+    public RouteGraphPreloader(final RouteDiscoveryProperties properties, final FlightGraphSnapshots snapshots,
+                               final RouteDiscoveryService routeDiscoveryService, final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.snapshots = snapshots;
+        this.routeDiscoveryService = routeDiscoveryService;
+        this.meterRegistry = meterRegistry;
+        this.health = properties.isPreload() ? Health.outOfService().withDetail("state", "pending").build()
+                : Health.up().withDetail("state", "disabled").build();
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!properties.isPreload()) {
+            return;
+        }
+        health = Health.outOfService().withDetail("state", "loading").build();
+        try {
+            final long start = System.nanoTime();
+            final FlightGraph graph = time("load", () -> snapshots.verified().getGraph());
+            final long loaded = System.nanoTime();
+            time("prepare", () -> {
+                routeDiscoveryService.awaitPrepared(graph);
+                return null;
+            });
+            final long prepared = System.nanoTime();
+            time("warmup", () -> {
+                routeDiscoveryService.warmUp(graph, properties.getWarmupQueries());
+                return null;
+            });
+            final long warmedUp = System.nanoTime();
+
+            log.info("Flight graph with {} airports and {} routes preloaded in {} ms: load {} ms, prepare {} ms, "
+                            + "{} warm-up queries {} ms", graph.nodeCount(), graph.edgeCount(),
+                    millis(warmedUp - start), millis(loaded - start), millis(prepared - loaded),
+                    properties.getWarmupQueries(), millis(warmedUp - prepared));
+            health = Health.up()
+                    .withDetail("state", "ready")
+                    .withDetail("airports", graph.nodeCount())
+                    .withDetail("routes", graph.edgeCount())
+                    .withDetail("loadMillis", millis(loaded - start))
+                    .withDetail("prepareMillis", millis(prepared - loaded))
+                    .withDetail("warmupMillis", millis(warmedUp - prepared))
+                    .withDetail("warmupQueries", properties.getWarmupQueries())
+                    .build();
+        } catch (RuntimeException e) {
+            // searches still work, the graph is just loaded by the first request
+            log.error("Unable to preload flight graph", e);
+            health = Health.up().withDetail("state", "failed").withDetail("error", String.valueOf(e.getMessage()))
+                    .build();
+        }
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    private <T> T time(final String phase, final Supplier<T> step) {
+        return Timer.builder("flight.graph.preload")
+                .description("Time of a phase of the startup flight graph preload")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(step);
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
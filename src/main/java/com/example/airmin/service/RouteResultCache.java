@@ -0,0 +1,145 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.graph.FlightGraphSnapshot;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.graph.GraphDelta;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of route search results by (source city, destination city, search options). Only ids of the found
+ * routes are kept, one array per itinerary, so an entry costs a few dozen bytes.
+ * <p>
+ * Entries are keyed by the version of the {@link FlightGraphSnapshot} they were computed from. When a snapshot built
+ * from scratch is swapped in, all entries are dropped. When it was derived by a {@link GraphDelta}, only entries the
+ * delta may change are dropped and the others move on to the new version: entries using a removed or repriced route,
+ * and entries a path through an added or cheaper route could beat. Hits, misses and evictions are published as
+ * {@code cache.*} metrics with tag {@code cache=route-results}
+ */
+@Component
+@Log4j2
+public class RouteResultCache {
+
+    public static final String NAME = "route-results";
+
+    private final Cache<Key, Result> cache;
+    private final boolean enabled;
+
+    public RouteResultCache(final RouteDiscoveryProperties properties, final FlightGraphSnapshots snapshots,
+                            final MeterRegistry meterRegistry) {
+        this.enabled = properties.getResultCacheSize() > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, properties.getResultCacheSize()))
+                .expireAfterWrite(properties.getResultCacheTtl())
+                .recordStats()
+                // evict on the calling thread, searches are far more expensive than cache maintenance
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        snapshots.onSwap(this::onSwap);
+    }
+
+    /**
+     * @param version           version of the snapshot searched
+     * @param sourceCityId      starting point
+     * @param destinationCityId destination point
+     * @param options           anything else that determines the result, e.g. {@code "k=3"}
+     * @param search            computes the result on a miss
+     * @return cached or computed route ids of every itinerary
+     */
+    public long[][] get(final long version, final long sourceCityId, final long destinationCityId,
+                        @NonNull String options, @NonNull Supplier<Result> search) {
+        if (!enabled) {
+            return search.get().getRouteIds();
+        }
+        return cache.get(new Key(version, sourceCityId, destinationCityId, options), key -> search.get())
+                .getRouteIds();
+    }
+
+    private void onSwap(final FlightGraphSnapshot snapshot) {
+        final GraphDelta delta = snapshot.getDelta();
+        if (delta == null) {
+            cache.invalidateAll();
+            return;
+        }
+        final double minChangedPrice = delta.minChangedPrice();
+        final ConcurrentMap<Key, Result> entries = cache.asMap();
+        int kept = 0;
+        int dropped = 0;
+        for (final Map.Entry<Key, Result> entry : entries.entrySet()) {
+            final Key key = entry.getKey();
+            if (key.version == snapshot.getVersion()) {
+                continue;
+            }
+            if (key.version == snapshot.getBaseVersion() && entry.getValue().survives(delta, minChangedPrice)) {
+                entries.putIfAbsent(key.at(snapshot.getVersion()), entry.getValue());
+                kept++;
+            } else {
+                dropped++;
+            }
+            entries.remove(key);
+        }
+        log.debug("{} cached route results kept, {} dropped after {} route changes", kept, dropped, delta.size());
+    }
+
+    /**
+     * Route ids of found itineraries together with the price a new itinerary would have to beat to change them
+     */
+    @Getter
+    public static final class Result {
+
+        private final long[][] routeIds;
+        private final double bound;
+
+        /**
+         * @param routeIds route ids of every itinerary
+         * @param bound    price of the most expensive itinerary when the result holds as many as asked for,
+         *                 otherwise (e.g. no route found) {@link Double#POSITIVE_INFINITY}
+         */
+        public Result(final long[][] routeIds, final double bound) {
+            this.routeIds = routeIds;
+            this.bound = bound;
+        }
+
+        /**
+         * Itineraries through a changed route cost at least the price of that route, so with non-negative prices
+         * they can't beat a result whose bound is not above the cheapest changed route
+         */
+        private boolean survives(final GraphDelta delta, final double minChangedPrice) {
+            if (minChangedPrice < bound) {
+                return false;
+            }
+            if (delta.getRemoved().isEmpty() && delta.getRepriced().isEmpty()) {
+                return true;
+            }
+            return Arrays.stream(routeIds).flatMapToLong(Arrays::stream)
+                    .noneMatch(id -> delta.getRemoved().contains(id) || delta.getRepriced().containsKey(id));
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final long version;
+        private final long sourceCityId;
+        private final long destinationCityId;
+        private final String options;
+
+        private Key at(final long newVersion) {
+            return new Key(newVersion, sourceCityId, destinationCityId, options);
+        }
+    }
+}
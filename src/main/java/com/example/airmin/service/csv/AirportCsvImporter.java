@@ -4,18 +4,21 @@ import com.example.airmin.model.Airport;
 import com.example.airmin.model.City;
 import com.example.airmin.repository.AirportRepository;
 import com.example.airmin.repository.CityRepository;
+import com.example.airmin.service.graph.GraphVersion;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Service
 public class AirportCsvImporter extends CsvImporter<Airport> {
@@ -24,30 +27,40 @@ public class AirportCsvImporter extends CsvImporter<Airport> {
     private final CityRepository cityRepository;
 
     public AirportCsvImporter(final CSVFormat csvFormat, final AirportRepository airportRepository,
-                              final CityRepository cityRepository, final CacheManager cacheManager) {
-        super(csvFormat, cacheManager);
+                              final CityRepository cityRepository, final ApplicationEventPublisher eventPublisher,
+                              final GraphVersion graphVersion, final EntityManager entityManager,
+                              final CsvImportProperties properties) {
+        super(csvFormat, eventPublisher, graphVersion, entityManager, properties);
         this.airportRepository = airportRepository;
         this.cityRepository = cityRepository;
     }
 
+    /**
+     * Cities are indexed by {@link #cityKey} and existing airports by external id once per import, so mapping a
+     * record takes constant time
+     */
     @Override
-    @Transactional
-    protected List<Airport> process(final Iterable<CSVRecord> records) {
-        final List<City> cities = cityRepository.findAll();
-        final List<Airport> airports = airportRepository.findAll();
-        return StreamSupport.stream(records.spliterator(), true)
+    protected Function<List<CSVRecord>, List<Airport>> chunkProcessor() {
+        final Map<String, City> cities = new HashMap<>();
+        for (final City city : cityRepository.findAll()) {
+            cities.putIfAbsent(cityKey(city.getName(), city.getCountry()), city);
+        }
+        final Set<Long> existing = airportRepository.findAllExternalIds();
+        return records -> records.stream()
                 .map(mapping(cities))
                 .filter(a -> a.getCity() != null)
-                .filter(notExist(airports))
+                .filter(a -> !existing.contains(a.getExternalId()))
                 .collect(Collectors.toList());
     }
 
-    private Predicate<Airport> notExist(final List<Airport> airports) {
-        return airport ->
-                airports.stream().filter(a -> a.getExternalId().equals(airport.getExternalId())).findFirst().isEmpty();
+    /**
+     * @return key of a city by name and country, ignoring case
+     */
+    private static String cityKey(final String name, final String country) {
+        return name.toLowerCase(Locale.ROOT) + '\u0000' + country.toLowerCase(Locale.ROOT);
     }
 
-    protected Function<CSVRecord, Airport> mapping(final List<City> cities) {
+    protected Function<CSVRecord, Airport> mapping(final Map<String, City> cities) {
         return record -> {
             final var airport = new Airport();
             airport.setExternalId(get(AirportCsvColumns.ID, record));
@@ -61,14 +74,9 @@ public class AirportCsvImporter extends CsvImporter<Airport> {
             airport.setZoneId(get(AirportCsvColumns.TIMEZONE, record));
             airport.setZoneOffset(get(AirportCsvColumns.TIMEZONE_OFFSET, record));
             airport.setDataSource(get(AirportCsvColumns.SOURCE, record));
-            airport.setCity(Optional.<String>ofNullable(get(AirportCsvColumns.CITY, record))
-                    .flatMap(cityName ->
-                            cities.stream()
-                                    .filter(c -> c.getName().equalsIgnoreCase(cityName) &&
-                                            c.getCountry().equalsIgnoreCase(get(AirportCsvColumns.COUNTRY, record)))
-                                    .findFirst())
-                    .orElse(null)
-            );
+            final String cityName = get(AirportCsvColumns.CITY, record);
+            final String country = get(AirportCsvColumns.COUNTRY, record);
+            airport.setCity(cityName == null || country == null ? null : cities.get(cityKey(cityName, country)));
             return airport;
         };
     }
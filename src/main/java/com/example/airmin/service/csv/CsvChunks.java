@@ -0,0 +1,103 @@
+package com.example.airmin.service.csv;
+
+import lombok.NonNull;
+import org.apache.commons.csv.CSVFormat;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits csv content into byte ranges of whole records, so every range can be parsed on its own. Records end at a
+ * line feed outside of quotes; quote and escape characters of the {@link CSVFormat} are tracked across reads, so
+ * line feeds within quoted values never split a record. Works on the bytes of ASCII compatible encodings (e.g.
+ * UTF-8), where these characters never occur within a multi-byte character.
+ */
+final class CsvChunks {
+
+    private static final int READ_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final int quote;
+    private final int escape;
+    private final int recordsPerChunk;
+
+    private byte[] buffer = new byte[READ_SIZE];
+    /**
+     * Bytes read into {@link #buffer}
+     */
+    private int length;
+    /**
+     * Bytes of {@link #buffer} scanned for record ends
+     */
+    private int scanned;
+    /**
+     * Records ending within the scanned bytes and the offset after the last of them
+     */
+    private int records;
+    private int end;
+    private boolean quoted;
+    private boolean escaped;
+    private boolean eof;
+
+    /**
+     * @param in              csv content, not closed
+     * @param csvFormat       format of the content
+     * @param recordsPerChunk maximum number of records of a chunk
+     */
+    CsvChunks(@NonNull InputStream in, @NonNull CSVFormat csvFormat, final int recordsPerChunk) {
+        this.in = in;
+        this.quote = csvFormat.getQuoteCharacter() == null ? -1 : csvFormat.getQuoteCharacter();
+        this.escape = csvFormat.getEscapeCharacter() == null ? -1 : csvFormat.getEscapeCharacter();
+        this.recordsPerChunk = Math.max(1, recordsPerChunk);
+    }
+
+    /**
+     * @return bytes of up to {@code recordsPerChunk} next records, {@code null} at the end of the content
+     */
+    @Nullable
+    byte[] next() throws IOException {
+        while (true) {
+            while (scanned < length && records < recordsPerChunk) {
+                final byte b = buffer[scanned++];
+                if (escaped) {
+                    escaped = false;
+                } else if (b == escape) {
+                    escaped = true;
+                } else if (b == quote) {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    records++;
+                    end = scanned;
+                }
+            }
+            if (records == recordsPerChunk) {
+                return cut(end);
+            }
+            if (eof) {
+                // the last record may lack the line feed
+                return length == 0 ? null : cut(length);
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            final int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                eof = true;
+            } else {
+                length += read;
+            }
+        }
+    }
+
+    private byte[] cut(final int at) {
+        final byte[] chunk = Arrays.copyOf(buffer, at);
+        System.arraycopy(buffer, at, buffer, 0, length - at);
+        length -= at;
+        scanned -= at;
+        records = 0;
+        end = 0;
+        return chunk;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.airmin.service.csv;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Csv import settings
+ */
+@ConfigurationProperties("app.import")
+@Getter
+@ConstructorBinding
+public class CsvImportProperties {
+
+    /**
+     * Number of records mapped, validated and persisted at once, bounds the memory an import holds
+     */
+    private final int chunkSize;
+
+    /**
+     * Threads parsing and mapping chunks of an import, all available processors when not positive
+     */
+    private final int parallelism;
+
+    /**
+     * Imports running at once, further imports wait in the job queue
+     */
+    private final int jobs;
+
+    /**
+     * Imports waiting to run, submitting more is refused
+     */
+    private final int jobQueue;
+
+    /**
+     * How long a finished import job can still be looked up
+     */
+    private final Duration jobRetention;
+
+    public CsvImportProperties(@DefaultValue("1000") final int chunkSize, @DefaultValue("0") final int parallelism,
+                               @DefaultValue("1") final int jobs, @DefaultValue("16") final int jobQueue,
+                               @DefaultValue("1h") final Duration jobRetention) {
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.jobs = jobs;
+        this.jobQueue = jobQueue;
+        this.jobRetention = jobRetention;
+    }
+}
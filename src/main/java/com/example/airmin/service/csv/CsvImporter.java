@@ -1,65 +1,240 @@
 package com.example.airmin.service.csv;
 
-import com.example.airmin.model.Airport;
+import com.example.airmin.service.graph.GraphDelta;
+import com.example.airmin.service.graph.GraphVersion;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import org.jetbrains.annotations.Nullable;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+/**
+ * Streaming, parallel csv import. The content is split into chunks of {@code app.import.chunk-size} whole records
+ * ({@link CsvChunks}); {@code app.import.parallelism} worker threads parse and map chunks, while the importing thread
+ * alone persists them in file order, within its transaction. At most two chunks per worker are parsed ahead of the
+ * writer, so parsing never outruns the database and the memory an import holds is bounded by the chunk size, not by
+ * the file size.
+ * <p>
+ * The persistence context is flushed and cleared after every chunk. Flushing a chunk sends its inserts in JDBC batches
+ * of {@code hibernate.jdbc.batch_size}, ids are allocated from the sequence in blocks (pooled-lo optimizer) rather
+ * than one round trip per row.
+ */
 @Log4j2
 public abstract class CsvImporter<T> {
 
     protected final CSVFormat csvFormat;
-    protected final CacheManager cacheManager;
+    protected final ApplicationEventPublisher eventPublisher;
+    protected final GraphVersion graphVersion;
+    protected final EntityManager entityManager;
+    private final int chunkSize;
+    private final int parallelism;
+    private final ExecutorService workers;
 
-    public CsvImporter(final CSVFormat csvFormat, final CacheManager cacheManager) {
+    public CsvImporter(final CSVFormat csvFormat, final ApplicationEventPublisher eventPublisher,
+                       final GraphVersion graphVersion, final EntityManager entityManager,
+                       final CsvImportProperties properties) {
         this.csvFormat = csvFormat;
-        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.graphVersion = graphVersion;
+        this.entityManager = entityManager;
+        this.chunkSize = Math.max(1, properties.getChunkSize());
+        this.parallelism = properties.getParallelism() > 0 ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        final AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "csv-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Transactional
     @SneakyThrows(IOException.class)
     public void importData(final @NonNull File file) {
-        importData(Files.readAllBytes(file.toPath()));
+        importData(Files.newInputStream(file.toPath()));
     }
 
     /**
-     * This could be improved by scheduling a job and returning response immediately with the link to corresponding
-     * created job resource. Or use spring batch
+     * @param in csv content to import, closed when read
+     */
+    @Transactional
+    @PreAuthorize("hasAuthority(T(com.example.airmin.model.Role).ROLE_ADMIN.name())")
+    public void importData(final @NonNull InputStream in) {
+        importData(in, null);
+    }
+
+    /**
+     * Import within one transaction, a failed or cancelled import leaves no trace
      *
-     * @param fileContent to import
+     * @param in  csv content to import, closed when read
+     * @param job reports progress and is checked for cancellation before every chunk is persisted
+     * @throws CancellationException when {@code job} was cancelled
      */
     @Transactional
     @SneakyThrows(IOException.class)
     @PreAuthorize("hasAuthority(T(com.example.airmin.model.Role).ROLE_ADMIN.name())")
-    public void importData(final @NonNull byte[] fileContent) {
-        Objects.requireNonNull(cacheManager.getCache(Airport.class.getSimpleName().toLowerCase())).clear();
-        persist(process(getCsvRecords(fileContent)));
+    public void importData(final @NonNull InputStream in, @Nullable final ImportJob job) {
+        final long startVersion = graphVersion.bump();
+        final long start = System.nanoTime();
+        final Function<List<CSVRecord>, List<T>> processor = chunkProcessor();
+        final Deque<Future<Chunk<T>>> parsing = new ArrayDeque<>();
+        final List<GraphDelta> deltas = new ArrayList<>();
+        long read = 0;
+        int persisted = 0;
+
+        try (InputStream input = in) {
+            final CsvChunks chunks = new CsvChunks(input, csvFormat, chunkSize);
+            byte[] next = chunks.next();
+            while (next != null || !parsing.isEmpty()) {
+                if (next != null) {
+                    final byte[] content = next;
+                    parsing.add(workers.submit(() -> parse(content, processor)));
+                    next = chunks.next();
+                }
+                if (next == null || parsing.size() == 2 * parallelism) {
+                    if (job != null && job.isCancelRequested()) {
+                        throw new CancellationException("Csv import was cancelled");
+                    }
+                    final Chunk<T> chunk = await(parsing.poll());
+                    final int written = write(chunk.items, deltas);
+                    read += chunk.records;
+                    persisted += written;
+                    if (job != null) {
+                        job.chunkPersisted(chunk.records, written, chunk.bytes);
+                    }
+                }
+            }
+        } finally {
+            parsing.forEach(future -> future.cancel(true));
+        }
+        if (deltas.isEmpty()) {
+            deltas.add(delta(Collections.emptyList()));
+        }
+        final long elapsed = System.nanoTime() - start;
+        log.info("{} of {} csv records imported in {} ms, {} records/s", persisted, read, elapsed / 1_000_000,
+                elapsed == 0 ? 0 : read * 1_000_000_000L / elapsed);
+        eventPublisher.publishEvent(new DataImportedEvent(this, persisted, startVersion,
+                deltas.contains(null) ? null : GraphDelta.merge(deltas)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Parse and map one chunk, on a worker thread
+     */
+    private Chunk<T> parse(final byte[] content, final Function<List<CSVRecord>, List<T>> processor)
+            throws IOException {
+        try (CSVParser parser = getCsvRecords(new InputStreamReader(new ByteArrayInputStream(content),
+                StandardCharsets.UTF_8))) {
+            final List<CSVRecord> records = parser.getRecords();
+            return new Chunk<>(records.size(), processor.apply(records), content.length);
+        }
+    }
+
+    private static <C> C await(final Future<C> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Csv import was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Persist the items of one chunk, then detach them
+     *
+     * @param deltas collects the change of the flight graph, {@code null} when it has to be rebuilt
+     * @return number of persisted items
+     */
+    private int write(final List<T> items, final List<GraphDelta> deltas) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        persist(items);
+        deltas.add(delta(items));
+        entityManager.flush();
+        entityManager.clear();
+        return items.size();
     }
 
     public Iterable<CSVRecord> getCsvRecords(final byte[] fileContent) throws IOException {
-        return csvFormat.parse(new InputStreamReader(new ByteArrayInputStream(fileContent)));
+        return getCsvRecords(new InputStreamReader(new ByteArrayInputStream(fileContent), StandardCharsets.UTF_8));
     }
 
-    protected abstract List<T> process(Iterable<CSVRecord> records);
+    /**
+     * @param reader csv content
+     * @return parser reading records lazily from {@code reader}
+     */
+    public CSVParser getCsvRecords(final Reader reader) throws IOException {
+        return csvFormat.parse(reader);
+    }
+
+    /**
+     * Called once per import, e.g. to load what records are resolved against
+     *
+     * @return maps and validates one chunk of records to the items to persist, called by many threads at once
+     */
+    protected abstract Function<List<CSVRecord>, List<T>> chunkProcessor();
 
     @Transactional
     protected abstract void persist(List<T> items);
 
+    /**
+     * @param items persisted items, of one chunk
+     * @return change of the flight graph made by {@code items}, {@code null} when it has to be rebuilt
+     */
+    @Nullable
+    protected GraphDelta delta(final List<T> items) {
+        return null;
+    }
+
+    /**
+     * Number of parsed records of a chunk, the items they were mapped to and the size of the chunk
+     */
+    @RequiredArgsConstructor
+    private static final class Chunk<T> {
+        private final int records;
+        private final List<T> items;
+        private final int bytes;
+    }
+
     @SuppressWarnings("unchecked")
     @Nullable
     public <R> R get(CsvColumn column, CSVRecord record) {
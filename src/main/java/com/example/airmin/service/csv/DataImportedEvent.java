@@ -0,0 +1,38 @@
+package com.example.airmin.service.csv;
+
+import com.example.airmin.service.graph.GraphDelta;
+import com.example.airmin.service.graph.GraphVersion;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by {@link CsvImporter} after imported items were persisted
+ */
+@Getter
+public class DataImportedEvent extends ApplicationEvent {
+
+    /**
+     * Number of persisted items
+     */
+    private final int count;
+
+    /**
+     * {@link GraphVersion} the import bumped to when it started, the data before the import has the version before
+     */
+    private final long startVersion;
+
+    /**
+     * Changed routes when the import can describe them, {@code null} when the whole graph has to be rebuilt
+     */
+    @Nullable
+    private final GraphDelta delta;
+
+    public DataImportedEvent(final CsvImporter<?> importer, final int count, final long startVersion,
+                             @Nullable final GraphDelta delta) {
+        super(importer);
+        this.count = count;
+        this.startVersion = startVersion;
+        this.delta = delta;
+    }
+}
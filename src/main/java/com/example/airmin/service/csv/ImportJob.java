@@ -0,0 +1,131 @@
+package com.example.airmin.service.csv;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Csv import run in the background by {@link ImportJobs}. Progress is updated by the importing thread after every
+ * persisted chunk and can be read by any thread.
+ */
+@Getter
+public class ImportJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    /**
+     * What is imported, e.g. {@code routes}
+     */
+    private final String type;
+    /**
+     * Size of the imported content
+     */
+    private final long totalBytes;
+    private final Instant createdAt = Instant.now();
+
+    private volatile State state = State.QUEUED;
+    @Nullable
+    private volatile Instant startedAt;
+    @Nullable
+    private volatile Instant finishedAt;
+    /**
+     * Why the import failed
+     */
+    @Nullable
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    private volatile long recordsParsed;
+    /**
+     * Parsed records not imported, e.g. unknown airport or already imported
+     */
+    private volatile long recordsRejected;
+    private volatile long recordsPersisted;
+    /**
+     * Bytes of the content parsed and persisted
+     */
+    private volatile long bytesProcessed;
+
+    public ImportJob(final String id, final String type, final long totalBytes) {
+        this.id = id;
+        this.type = type;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Records parsed per second since the job started, {@code 0} before
+     */
+    public double getRecordsPerSecond() {
+        final Instant started = startedAt;
+        if (started == null) {
+            return 0;
+        }
+        final long millis = Duration.between(started, finishedAt == null ? Instant.now() : finishedAt).toMillis();
+        return millis == 0 ? 0 : recordsParsed * 1000d / millis;
+    }
+
+    /**
+     * @return time until a running job is done at the throughput so far, {@code null} when not running or nothing is
+     * processed yet
+     */
+    @Nullable
+    public Duration getEta() {
+        final Instant started = startedAt;
+        final long processed = bytesProcessed;
+        if (state != State.RUNNING || started == null || processed == 0) {
+            return null;
+        }
+        final long elapsed = Duration.between(started, Instant.now()).toMillis();
+        return Duration.ofMillis(elapsed * Math.max(0, totalBytes - processed) / processed);
+    }
+
+    public boolean isDone() {
+        return state != State.QUEUED && state != State.RUNNING;
+    }
+
+    /**
+     * Cancel the job: a queued job never runs, a running one stops at the next chunk and rolls back
+     */
+    public synchronized void cancel() {
+        if (isDone()) {
+            return;
+        }
+        cancelRequested = true;
+        if (state == State.QUEUED) {
+            finish(State.CANCELLED, null);
+        }
+    }
+
+    /**
+     * @return whether the job may run, it is not when cancelled while queued
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        state = State.RUNNING;
+        return true;
+    }
+
+    synchronized void finish(final State finalState, @Nullable final String failure) {
+        finishedAt = Instant.now();
+        error = failure;
+        state = finalState;
+    }
+
+    /**
+     * Called by the importing thread only
+     */
+    void chunkPersisted(final int records, final int persisted, final long bytes) {
+        recordsParsed += records;
+        recordsRejected += records - persisted;
+        recordsPersisted += persisted;
+        bytesProcessed += bytes;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.airmin.service.csv;
+
+import com.example.airmin.rest.exception.TooManyRequestsException;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs csv imports in the background, so uploads return at once. The uploaded content is spooled to a temporary file
+ * and imported by one of {@code app.import.jobs} threads; up to {@code app.import.job-queue} imports wait, more are
+ * refused. Finished jobs can be looked up for {@code app.import.job-retention}.
+ */
+@Service
+@Log4j2
+public class ImportJobs {
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+
+    public ImportJobs(final CsvImportProperties properties) {
+        final AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, properties.getJobs()), Math.max(1, properties.getJobs()),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, properties.getJobQueue())),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "csv-import-job-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retention = properties.getJobRetention();
+    }
+
+    /**
+     * Schedule an import, it runs with the authentication of the caller
+     *
+     * @param type     what is imported, e.g. {@code routes}
+     * @param importer imports the content
+     * @param content  csv content, read to the end before returning
+     * @return queued job
+     * @throws TooManyRequestsException when the job queue is full
+     */
+    @PreAuthorize("hasAuthority(T(com.example.airmin.model.Role).ROLE_ADMIN.name())")
+    public ImportJob submit(@NonNull String type, @NonNull CsvImporter<?> importer, @NonNull InputStream content) {
+        removeExpired();
+        final Path file = spool(content);
+        try {
+            final ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, Files.size(file));
+            jobs.put(job.getId(), job);
+            try {
+                executor.execute(new DelegatingSecurityContextRunnable(() -> run(job, importer, file)));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                throw new TooManyRequestsException("Too many imports waiting, try again later");
+            }
+            return job;
+        } catch (IOException e) {
+            delete(file);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+    }
+
+    /**
+     * @return job, {@code null} when unknown or expired
+     */
+    @Nullable
+    @PreAuthorize("hasAuthority(T(com.example.airmin.model.Role).ROLE_ADMIN.name())")
+    public ImportJob get(@NonNull String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return cancelled job, {@code null} when unknown or expired; see {@link ImportJob#cancel()}
+     */
+    @Nullable
+    @PreAuthorize("hasAuthority(T(com.example.airmin.model.Role).ROLE_ADMIN.name())")
+    public ImportJob cancel(@NonNull String id) {
+        final ImportJob job = jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(final ImportJob job, final CsvImporter<?> importer, final Path file) {
+        try {
+            if (!job.start()) {
+                return;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                importer.importData(in, job);
+                job.finish(ImportJob.State.COMPLETED, null);
+            } catch (CancellationException e) {
+                log.info("Import {} of {} cancelled", job.getId(), job.getType());
+                job.finish(ImportJob.State.CANCELLED, null);
+            } catch (IOException | RuntimeException e) {
+                log.error(String.format("Import %s of %s failed", job.getId(), job.getType()), e);
+                job.finish(ImportJob.State.FAILED, String.valueOf(e.getMessage()));
+            }
+        } finally {
+            delete(file);
+        }
+    }
+
+    private static Path spool(final InputStream content) {
+        Path file = null;
+        try (InputStream in = content) {
+            file = Files.createTempFile("import-", ".csv");
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            if (file != null) {
+                delete(file);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}; {}", file, e.getMessage());
+        }
+    }
+
+    private void removeExpired() {
+        final Instant expiry = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isDone() && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(expiry));
+    }
+}
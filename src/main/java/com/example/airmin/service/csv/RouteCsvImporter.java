@@ -4,16 +4,20 @@ import com.example.airmin.model.Airport;
 import com.example.airmin.model.Route;
 import com.example.airmin.repository.AirportRepository;
 import com.example.airmin.repository.RouteRepository;
+import com.example.airmin.service.graph.GraphDelta;
+import com.example.airmin.service.graph.GraphVersion;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Service
 public class RouteCsvImporter extends CsvImporter<Route> {
@@ -22,22 +26,30 @@ public class RouteCsvImporter extends CsvImporter<Route> {
     private final RouteRepository routeRepository;
 
     public RouteCsvImporter(final AirportRepository airportRepository, final RouteRepository routeRepository,
-                            final CSVFormat csvFormat, final CacheManager cacheManager) {
-        super(csvFormat, cacheManager);
+                            final CSVFormat csvFormat, final ApplicationEventPublisher eventPublisher,
+                            final GraphVersion graphVersion, final EntityManager entityManager,
+                            final CsvImportProperties properties) {
+        super(csvFormat, eventPublisher, graphVersion, entityManager, properties);
         this.airportRepository = airportRepository;
         this.routeRepository = routeRepository;
     }
 
-    @Override protected List<Route> process(final Iterable<CSVRecord> records) {
-        final List<Airport> airports = airportRepository.findAll();
-        return StreamSupport.stream(records.spliterator(), false)
+    /**
+     * Airports are indexed by external id once per import, so mapping a record takes constant time
+     */
+    @Override protected Function<List<CSVRecord>, List<Route>> chunkProcessor() {
+        final Map<Long, Airport> airports = new HashMap<>();
+        for (final Airport airport : airportRepository.findAll()) {
+            airports.putIfAbsent(airport.getExternalId(), airport);
+        }
+        return records -> records.stream()
                 .map(mapping(airports))
                 .filter(this::requiredPropsNonNull)
                 .filter(route -> !Objects.equals(route.getDestination().getId(), route.getSource().getId()))
                 .collect(Collectors.toList());
     }
 
-    protected Function<CSVRecord, Route> mapping(final List<Airport> airports) {
+    protected Function<CSVRecord, Route> mapping(final Map<Long, Airport> airports) {
         return record -> {
             final Route route = new Route();
             route.setAirlineCode(get(RouteCsvColumns.AIRLINE_CODE, record));
@@ -47,14 +59,10 @@ public class RouteCsvImporter extends CsvImporter<Route> {
             route.setEquipment(get(RouteCsvColumns.EQUIPMENT, record));
             route.setPrice(get(RouteCsvColumns.PRICE, record));
 
-            route.setDestination(airports.stream()
-                    .filter(a -> a.getExternalId().equals(get(RouteCsvColumns.DESTINATION_AIRPORT_ID,
-                            record))).findFirst()
-                    .orElse(null));
-            route.setSource(airports.stream()
-                    .filter(a -> a.getExternalId().equals(get(RouteCsvColumns.SOURCE_AIRPORT_ID,
-                            record))).findFirst()
-                    .orElse(null));
+            final Long destinationId = get(RouteCsvColumns.DESTINATION_AIRPORT_ID, record);
+            final Long sourceId = get(RouteCsvColumns.SOURCE_AIRPORT_ID, record);
+            route.setDestination(destinationId == null ? null : airports.get(destinationId));
+            route.setSource(sourceId == null ? null : airports.get(sourceId));
 
             return route;
         };
@@ -68,6 +76,16 @@ public class RouteCsvImporter extends CsvImporter<Route> {
         routeRepository.saveAll(items);
     }
 
+    /**
+     * Imported routes are only ever added, routes persisted by {@link #persist} already have their ids
+     */
+    @Override protected GraphDelta delta(final List<Route> items) {
+        return GraphDelta.added(items.stream()
+                .map(route -> new GraphDelta.Edge(route.getId(), route.getSource().getId(),
+                        route.getDestination().getId(), route.getPrice()))
+                .collect(Collectors.toList()));
+    }
+
     private boolean doesntExist(final Route existing, final List<Route> routes) {
         return routes.stream().noneMatch(r -> compare(existing, r));
     }
@@ -0,0 +1,750 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.model.Airport;
+import com.example.airmin.model.Route;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable flight graph in compressed sparse row (CSR) layout.
+ * <p>
+ * Every {@link Airport} is mapped to a dense {@code int} node id (ordered by airport id) and departures of node
+ * {@code n} are stored as edges {@code [firstEdge(n), endEdge(n))}. Each edge knows its source and target node, price
+ * and the id of the {@link Route} it was built from, so search algorithms never touch JPA entities.
+ * <p>
+ * Arrivals are indexed the same way for backward searches: {@code arrival(i)} for
+ * {@code i} in {@code [firstArrival(n), endArrival(n))} are ids of edges ending in {@code n}. Airports of a city are
+ * indexed too, see {@link #airportsIn(long)}.
+ * <p>
+ * Airport coordinates give a lower bound of any price between two airports: distance times {@link #minPricePerKm()},
+ * the lowest price per kilometre over all routes. The bound uses straight-line (chord) distance, which is never longer
+ * than the great-circle distance, obeys the triangle inequality and needs no trigonometry per query.
+ * <p>
+ * Arrays are held as {@link java.nio} buffers: heap arrays for graphs built in memory, or sections of a file mapped by
+ * {@link #map(FileChannel)} for graphs written with {@link #writeTo(WritableByteChannel)}.
+ */
+public final class FlightGraph {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int MAGIC = 0x41464731;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 48;
+
+    private final Airports airports;
+    private final LongBuffer airportIds;
+    private final LongBuffer cityIds;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final DoubleBuffer x;
+    private final DoubleBuffer y;
+    private final DoubleBuffer z;
+    private final LongBuffer cityKeys;
+    private final IntBuffer cityOffsets;
+    private final IntBuffer cityNodes;
+    private final IntBuffer offsets;
+    private final IntBuffer sources;
+    private final IntBuffer targets;
+    private final DoubleBuffer prices;
+    private final LongBuffer routeIds;
+    /**
+     * Great-circle length of edges in kilometres
+     */
+    private final DoubleBuffer distances;
+    private final IntBuffer arrivalOffsets;
+    private final IntBuffer arrivals;
+    private final long fingerprint;
+    private final double minPricePerKm;
+    private final double minPrice;
+
+    private FlightGraph(final Airports airports, final IntBuffer offsets, final IntBuffer sources,
+                        final IntBuffer targets, final DoubleBuffer prices, final LongBuffer routeIds,
+                        final DoubleBuffer distances, final IntBuffer arrivalOffsets, final IntBuffer arrivals,
+                        final long fingerprint, final double minPricePerKm, final double minPrice) {
+        this.airports = airports;
+        this.airportIds = airports.ids;
+        this.cityIds = airports.cityIds;
+        this.latitudes = airports.latitudes;
+        this.longitudes = airports.longitudes;
+        this.x = airports.x;
+        this.y = airports.y;
+        this.z = airports.z;
+        this.cityKeys = airports.cityKeys;
+        this.cityOffsets = airports.cityOffsets;
+        this.cityNodes = airports.cityNodes;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.prices = prices;
+        this.routeIds = routeIds;
+        this.distances = distances;
+        this.arrivalOffsets = arrivalOffsets;
+        this.arrivals = arrivals;
+        this.fingerprint = fingerprint;
+        this.minPricePerKm = minPricePerKm;
+        this.minPrice = minPrice;
+    }
+
+    /**
+     * Lay out a graph on the heap: airports are given, edge distances, arrivals and summary values are derived from
+     * them and from the edges
+     */
+    private static FlightGraph layout(final Airports airports, final int[] offsets, final int[] sources,
+                                      final int[] targets, final double[] prices, final long[] routeIds) {
+        final int nodes = airports.ids.limit();
+        final double[] distances = new double[targets.length];
+        final double[] chords = new double[targets.length];
+        for (int edge = 0; edge < targets.length; edge++) {
+            chords[edge] = Math.sqrt(squaredChord(airports.x, airports.y, airports.z, sources[edge], targets[edge]));
+            distances[edge] = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, chords[edge] / 2));
+        }
+
+        // counting sort of edges by target node
+        final int[] arrivalOffsets = new int[nodes + 1];
+        final int[] arrivals = new int[targets.length];
+        for (final int target : targets) {
+            arrivalOffsets[target + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            arrivalOffsets[node + 1] += arrivalOffsets[node];
+        }
+        final int[] next = Arrays.copyOf(arrivalOffsets, nodes);
+        for (int edge = 0; edge < targets.length; edge++) {
+            arrivals[next[targets[edge]]++] = edge;
+        }
+
+        final DoubleBuffer edgePrices = DoubleBuffer.wrap(prices);
+        final LongBuffer edgeRouteIds = LongBuffer.wrap(routeIds);
+        final IntBuffer edgeSources = IntBuffer.wrap(sources);
+        final IntBuffer edgeTargets = IntBuffer.wrap(targets);
+        return new FlightGraph(airports, IntBuffer.wrap(offsets), edgeSources, edgeTargets, edgePrices, edgeRouteIds,
+                DoubleBuffer.wrap(distances), IntBuffer.wrap(arrivalOffsets), IntBuffer.wrap(arrivals),
+                fingerprint(airports, edgeSources, edgeTargets, edgePrices, edgeRouteIds),
+                calibrateMinPricePerKm(prices, chords), Arrays.stream(prices).min().orElse(0));
+    }
+
+    /**
+     * The bound is only valid when every route has coordinates on both ends, otherwise no bound (0) is used
+     *
+     * @param chords straight-line distance of every edge on the unit sphere
+     */
+    private static double calibrateMinPricePerKm(final double[] prices, final double[] chords) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int edge = 0; edge < prices.length; edge++) {
+            final double distance = EARTH_RADIUS_KM * chords[edge];
+            if (Double.isNaN(distance)) {
+                return 0;
+            }
+            if (distance > 0) {
+                min = Math.min(min, prices[edge] / distance);
+            }
+        }
+        // keep the bound below every route price despite rounding in distance computations
+        return Double.isInfinite(min) ? 0 : Math.max(0, min * (1 - 1e-9));
+    }
+
+    private static long fingerprint(final Airports airports, final IntBuffer sources, final IntBuffer targets,
+                                    final DoubleBuffer prices, final LongBuffer routeIds) {
+        final int nodes = airports.ids.limit();
+        long hash = nodes;
+        for (int node = 0; node < nodes; node++) {
+            hash = mix(mix(hash, airports.ids.get(node)), airports.cityIds.get(node));
+        }
+        for (int edge = 0, edges = targets.limit(); edge < edges; edge++) {
+            hash = mix(mix(mix(hash, sources.get(edge)), targets.get(edge)), Double.doubleToLongBits(prices.get(edge)));
+            hash = mix(hash, routeIds.get(edge));
+        }
+        return hash;
+    }
+
+    private static long mix(final long hash, final long value) {
+        return Long.rotateLeft((hash ^ value) * 0x9E3779B97F4A7C15L, 31);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return hash of the whole graph content, used to match persisted derived data (e.g. contraction hierarchy)
+     * with the graph it was computed for
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int nodeCount() {
+        return airportIds.limit();
+    }
+
+    public int edgeCount() {
+        return targets.limit();
+    }
+
+    /**
+     * @param node node id
+     * @return first departure edge of {@code node}
+     */
+    public int firstEdge(final int node) {
+        return offsets.get(node);
+    }
+
+    /**
+     * @param node node id
+     * @return edge after the last departure of {@code node} (exclusive)
+     */
+    public int endEdge(final int node) {
+        return offsets.get(node + 1);
+    }
+
+    /**
+     * @param node node id
+     * @return first arrival index of {@code node}
+     */
+    public int firstArrival(final int node) {
+        return arrivalOffsets.get(node);
+    }
+
+    /**
+     * @param node node id
+     * @return arrival index after the last arrival of {@code node} (exclusive)
+     */
+    public int endArrival(final int node) {
+        return arrivalOffsets.get(node + 1);
+    }
+
+    /**
+     * @param index arrival index
+     * @return id of the edge
+     */
+    public int arrival(final int index) {
+        return arrivals.get(index);
+    }
+
+    public int source(final int edge) {
+        return sources.get(edge);
+    }
+
+    public int target(final int edge) {
+        return targets.get(edge);
+    }
+
+    public double price(final int edge) {
+        return prices.get(edge);
+    }
+
+    public long routeId(final int edge) {
+        return routeIds.get(edge);
+    }
+
+    /**
+     * @return great-circle distance flown along {@code edge} in kilometres, {@link Double#NaN} when a coordinate of
+     * either airport is unknown
+     */
+    public double distanceKm(final int edge) {
+        return distances.get(edge);
+    }
+
+    public long airportId(final int node) {
+        return airportIds.get(node);
+    }
+
+    public long cityId(final int node) {
+        return cityIds.get(node);
+    }
+
+    /**
+     * @return latitude in degrees, {@link Double#NaN} when unknown
+     */
+    public double latitude(final int node) {
+        return latitudes.get(node);
+    }
+
+    /**
+     * @return longitude in degrees, {@link Double#NaN} when unknown
+     */
+    public double longitude(final int node) {
+        return longitudes.get(node);
+    }
+
+    /**
+     * @return straight-line distance through the Earth from {@code from} to the closest of {@code to} in kilometres,
+     * {@link Double#NaN} when any coordinate is unknown
+     */
+    public double straightLineKm(final int from, final int[] to) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (final int node : to) {
+            final double squared = squaredChord(x, y, z, from, node);
+            if (Double.isNaN(squared)) {
+                return Double.NaN;
+            }
+            closest = Math.min(closest, squared);
+        }
+        return EARTH_RADIUS_KM * Math.sqrt(closest);
+    }
+
+    private static double squaredChord(final DoubleBuffer x, final DoubleBuffer y, final DoubleBuffer z,
+                                       final int from, final int to) {
+        final double dx = x.get(from) - x.get(to);
+        final double dy = y.get(from) - y.get(to);
+        final double dz = z.get(from) - z.get(to);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @return price per straight-line kilometre no route is cheaper than, {@code 0} when it can't be calibrated
+     */
+    public double minPricePerKm() {
+        return minPricePerKm;
+    }
+
+    /**
+     * @return price of the cheapest route
+     */
+    public double minPrice() {
+        return minPrice;
+    }
+
+    /**
+     * @param airportId {@link Airport#getId()}
+     * @return node id of the airport or {@code -1} when airport is not part of the graph
+     */
+    public int nodeOf(final long airportId) {
+        int low = 0;
+        int high = airportIds.limit() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long id = airportIds.get(mid);
+            if (id < airportId) {
+                low = mid + 1;
+            } else if (id > airportId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param cityId {@link com.example.airmin.model.City#getId()}
+     * @return node ids of airports of the city in ascending order, empty when the city has no airport in the graph
+     */
+    public int[] airportsIn(final long cityId) {
+        int low = 0;
+        int high = cityKeys.limit() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long key = cityKeys.get(mid);
+            if (key < cityId) {
+                low = mid + 1;
+            } else if (key > cityId) {
+                high = mid - 1;
+            } else {
+                final int[] airports = new int[cityOffsets.get(mid + 1) - cityOffsets.get(mid)];
+                cityNodes.duplicate().position(cityOffsets.get(mid)).get(airports);
+                return airports;
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Lay out this graph with {@code delta} applied, straight from the arrays of this graph. Airports are shared,
+     * departures of every airport keep their order and added routes follow them. Added routes from or to an airport
+     * that is not part of the graph are ignored
+     *
+     * @param delta changed routes
+     * @return new graph, this one is left unchanged
+     */
+    public FlightGraph apply(final GraphDelta delta) {
+        final int nodes = nodeCount();
+        final int edgeCount = edgeCount();
+        final Set<Long> removed = delta.getRemoved();
+        final Map<Long, Double> repriced = delta.getRepriced();
+        final List<GraphDelta.Edge> added = delta.getAdded();
+
+        final int[] newOffsets = new int[nodes + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (removed.isEmpty() || !removed.contains(routeIds.get(edge))) {
+                newOffsets[sources.get(edge) + 1]++;
+            }
+        }
+        final int[] addedSources = new int[added.size()];
+        final int[] addedTargets = new int[added.size()];
+        for (int i = 0; i < addedSources.length; i++) {
+            addedSources[i] = nodeOf(added.get(i).getSourceAirportId());
+            addedTargets[i] = nodeOf(added.get(i).getDestinationAirportId());
+            if (addedSources[i] >= 0 && addedTargets[i] >= 0) {
+                newOffsets[addedSources[i] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodes; node++) {
+            newOffsets[node + 1] += newOffsets[node];
+        }
+
+        final int edges = newOffsets[nodes];
+        final int[] newSources = new int[edges];
+        final int[] newTargets = new int[edges];
+        final double[] newPrices = new double[edges];
+        final long[] newRouteIds = new long[edges];
+        final int[] next = Arrays.copyOf(newOffsets, nodes);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            final long routeId = routeIds.get(edge);
+            if (!removed.isEmpty() && removed.contains(routeId)) {
+                continue;
+            }
+            final int newEdge = next[sources.get(edge)]++;
+            newSources[newEdge] = sources.get(edge);
+            newTargets[newEdge] = targets.get(edge);
+            newPrices[newEdge] = repriced.isEmpty() ? prices.get(edge)
+                    : repriced.getOrDefault(routeId, prices.get(edge));
+            newRouteIds[newEdge] = routeId;
+        }
+        for (int i = 0; i < addedSources.length; i++) {
+            if (addedSources[i] < 0 || addedTargets[i] < 0) {
+                continue;
+            }
+            final int newEdge = next[addedSources[i]]++;
+            newSources[newEdge] = addedSources[i];
+            newTargets[newEdge] = addedTargets[i];
+            newPrices[newEdge] = added.get(i).getPrice();
+            newRouteIds[newEdge] = added.get(i).getRouteId();
+        }
+
+        return layout(airports, newOffsets, newSources, newTargets, newPrices, newRouteIds);
+    }
+
+    /**
+     * Write this graph in the binary format read by {@link #map(FileChannel)}: a header (magic number, format
+     * version, airport, edge and city counts, fingerprint and price bounds) followed by every array of the graph in
+     * little endian byte order, each starting at a multiple of 8 bytes
+     *
+     * @param out channel to write to, left open
+     * @throws IOException when writing fails
+     */
+    public void writeTo(final WritableByteChannel out) throws IOException {
+        final int nodes = nodeCount();
+        final int edges = edgeCount();
+        final int cities = cityKeys.limit();
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(fileSize(nodes, edges, cities)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(nodes).putInt(edges).putInt(cities).putInt(0)
+                .putLong(fingerprint).putDouble(minPricePerKm).putDouble(minPrice);
+        for (final Buffer section : sections()) {
+            if (section instanceof LongBuffer) {
+                buffer.asLongBuffer().put(((LongBuffer) section).duplicate().rewind());
+            } else if (section instanceof DoubleBuffer) {
+                buffer.asDoubleBuffer().put(((DoubleBuffer) section).duplicate().rewind());
+            } else {
+                buffer.asIntBuffer().put(((IntBuffer) section).duplicate().rewind());
+            }
+            buffer.position(buffer.position() + align(sectionBytes(section)));
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Map a graph written by {@link #writeTo(WritableByteChannel)} read-only into memory. Nothing is copied: arrays
+     * of the graph are read straight from the mapping, off-heap, so processes mapping the same file share its pages
+     * in the page cache. The mapping stays valid once {@code channel} is closed.
+     *
+     * @param channel channel of the file
+     * @return graph backed by the file
+     * @throws IOException when the file can't be mapped or isn't a graph of the supported format version
+     */
+    public static FlightGraph map(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            throw new IOException("Not a flight graph file");
+        }
+        final ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        if (file.getInt(0) != MAGIC || file.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a flight graph file of format version " + FORMAT_VERSION);
+        }
+        final int nodes = file.getInt(8);
+        final int edges = file.getInt(12);
+        final int cities = file.getInt(16);
+        if (nodes < 0 || edges < 0 || cities < 0 || fileSize(nodes, edges, cities) != size) {
+            throw new IOException("Flight graph file is truncated");
+        }
+
+        final Sections sections = new Sections(file);
+        final Airports airports = new Airports(sections.longs(nodes), sections.longs(nodes), sections.doubles(nodes),
+                sections.doubles(nodes), sections.doubles(nodes), sections.doubles(nodes), sections.doubles(nodes),
+                sections.longs(cities), sections.ints(cities + 1), sections.ints(nodes));
+        final FlightGraph graph = new FlightGraph(airports, sections.ints(nodes + 1), sections.ints(edges),
+                sections.ints(edges), sections.doubles(edges), sections.longs(edges), sections.doubles(edges),
+                sections.ints(nodes + 1), sections.ints(edges), file.getLong(24), file.getDouble(32),
+                file.getDouble(40));
+        if (fingerprint(airports, graph.sources, graph.targets, graph.prices, graph.routeIds) != graph.fingerprint) {
+            throw new IOException("Flight graph file is corrupted");
+        }
+        return graph;
+    }
+
+    /**
+     * @return every array of the graph, in the order of the file format
+     */
+    private Buffer[] sections() {
+        return new Buffer[]{airportIds, cityIds, latitudes, longitudes, x, y, z, cityKeys, cityOffsets, cityNodes,
+                offsets, sources, targets, prices, routeIds, distances, arrivalOffsets, arrivals};
+    }
+
+    private static long fileSize(final int nodes, final int edges, final int cities) {
+        // 7 arrays of 8-byte values and the city index per airport, 2 offset arrays, 3 arrays of 8-byte and 3 of int
+        // values per edge
+        return HEADER_BYTES + 7L * align(8L * nodes) + align(8L * cities) + align(4L * (cities + 1))
+                + align(4L * nodes) + 2L * align(4L * (nodes + 1)) + 3L * align(8L * edges) + 3L * align(4L * edges);
+    }
+
+    private static int sectionBytes(final Buffer section) {
+        return section.limit() * (section instanceof IntBuffer ? Integer.BYTES : Long.BYTES);
+    }
+
+    private static int align(final int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Consecutive 8-byte aligned arrays of a mapped graph file
+     */
+    private static final class Sections {
+
+        private final ByteBuffer file;
+        private int position = HEADER_BYTES;
+
+        private Sections(final ByteBuffer file) {
+            this.file = file;
+        }
+
+        private LongBuffer longs(final int length) {
+            return next(8 * length).asLongBuffer();
+        }
+
+        private DoubleBuffer doubles(final int length) {
+            return next(8 * length).asDoubleBuffer();
+        }
+
+        private IntBuffer ints(final int length) {
+            return next(4 * length).asIntBuffer();
+        }
+
+        private ByteBuffer next(final int bytes) {
+            final ByteBuffer section = file.duplicate().position(position).limit(position + bytes).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            position += align(bytes);
+            return section;
+        }
+    }
+
+    /**
+     * Arrays per airport, shared by graphs derived by {@link #apply(GraphDelta)} as a delta never changes airports
+     */
+    private static final class Airports {
+
+        private final LongBuffer ids;
+        private final LongBuffer cityIds;
+        private final DoubleBuffer latitudes;
+        private final DoubleBuffer longitudes;
+        /**
+         * Airport positions as unit vectors, for cheap great-circle distances
+         */
+        private final DoubleBuffer x;
+        private final DoubleBuffer y;
+        private final DoubleBuffer z;
+        /**
+         * Distinct city ids in ascending order, airports of the {@code i}-th city are nodes
+         * {@code cityNodes[cityOffsets[i]]} to {@code cityNodes[cityOffsets[i + 1] - 1]}
+         */
+        private final LongBuffer cityKeys;
+        private final IntBuffer cityOffsets;
+        private final IntBuffer cityNodes;
+
+        private Airports(final LongBuffer ids, final LongBuffer cityIds, final DoubleBuffer latitudes,
+                         final DoubleBuffer longitudes, final DoubleBuffer x, final DoubleBuffer y,
+                         final DoubleBuffer z, final LongBuffer cityKeys, final IntBuffer cityOffsets,
+                         final IntBuffer cityNodes) {
+            this.ids = ids;
+            this.cityIds = cityIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.cityKeys = cityKeys;
+            this.cityOffsets = cityOffsets;
+            this.cityNodes = cityNodes;
+        }
+
+        /**
+         * @param ids airport ids in ascending order, the node id of an airport is its index
+         */
+        private static Airports of(final long[] ids, final long[] cityIds, final double[] latitudes,
+                                   final double[] longitudes) {
+            final int nodes = ids.length;
+            final double[] x = new double[nodes];
+            final double[] y = new double[nodes];
+            final double[] z = new double[nodes];
+            for (int node = 0; node < nodes; node++) {
+                final double lat = Math.toRadians(latitudes[node]);
+                final double lon = Math.toRadians(longitudes[node]);
+                x[node] = Math.cos(lat) * Math.cos(lon);
+                y[node] = Math.cos(lat) * Math.sin(lon);
+                z[node] = Math.sin(lat);
+            }
+
+            // nodes sorted by city id, ties by node id
+            final long[] distinct = Arrays.stream(cityIds).sorted().distinct().toArray();
+            final int[] cityOffsets = new int[distinct.length + 1];
+            for (final long cityId : cityIds) {
+                cityOffsets[Arrays.binarySearch(distinct, cityId) + 1]++;
+            }
+            for (int city = 0; city < distinct.length; city++) {
+                cityOffsets[city + 1] += cityOffsets[city];
+            }
+            final int[] cityNodes = new int[nodes];
+            final int[] next = Arrays.copyOf(cityOffsets, distinct.length);
+            for (int node = 0; node < nodes; node++) {
+                cityNodes[next[Arrays.binarySearch(distinct, cityIds[node])]++] = node;
+            }
+
+            return new Airports(LongBuffer.wrap(ids), LongBuffer.wrap(cityIds), DoubleBuffer.wrap(latitudes),
+                    DoubleBuffer.wrap(longitudes), DoubleBuffer.wrap(x), DoubleBuffer.wrap(y), DoubleBuffer.wrap(z),
+                    LongBuffer.wrap(distinct), IntBuffer.wrap(cityOffsets), IntBuffer.wrap(cityNodes));
+        }
+    }
+
+    /**
+     * Collects airports and routes and lays them out as {@link FlightGraph}. Routes whose source or destination
+     * airport was not added are ignored.
+     */
+    public static final class Builder {
+
+        private long[] airportIds = new long[64];
+        private long[] cityIds = new long[64];
+        private double[] latitudes = new double[64];
+        private double[] longitudes = new double[64];
+        private int airports;
+
+        private long[] routeIds = new long[256];
+        private long[] routeSources = new long[256];
+        private long[] routeDestinations = new long[256];
+        private double[] prices = new double[256];
+        private int routes;
+
+        private Builder() {
+        }
+
+        public Builder addAirport(final long airportId, final long cityId) {
+            return addAirport(airportId, cityId, Double.NaN, Double.NaN);
+        }
+
+        public Builder addAirport(final long airportId, final long cityId, final double latitude,
+                                  final double longitude) {
+            if (airports == airportIds.length) {
+                airportIds = Arrays.copyOf(airportIds, airports * 2);
+                cityIds = Arrays.copyOf(cityIds, airports * 2);
+                latitudes = Arrays.copyOf(latitudes, airports * 2);
+                longitudes = Arrays.copyOf(longitudes, airports * 2);
+            }
+            airportIds[airports] = airportId;
+            cityIds[airports] = cityId;
+            latitudes[airports] = latitude;
+            longitudes[airports] = longitude;
+            airports++;
+            return this;
+        }
+
+        public Builder addRoute(final long routeId, final long sourceAirportId, final long destinationAirportId,
+                                final double price) {
+            if (routes == routeIds.length) {
+                routeIds = Arrays.copyOf(routeIds, routes * 2);
+                routeSources = Arrays.copyOf(routeSources, routes * 2);
+                routeDestinations = Arrays.copyOf(routeDestinations, routes * 2);
+                prices = Arrays.copyOf(prices, routes * 2);
+            }
+            routeIds[routes] = routeId;
+            routeSources[routes] = sourceAirportId;
+            routeDestinations[routes] = destinationAirportId;
+            prices[routes] = price;
+            routes++;
+            return this;
+        }
+
+        public FlightGraph build() {
+            final Integer[] order = new Integer[airports];
+            for (int i = 0; i < airports; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(airportIds[a], airportIds[b]));
+            final long[] sortedAirportIds = new long[airports];
+            final long[] sortedCityIds = new long[airports];
+            final double[] sortedLatitudes = new double[airports];
+            final double[] sortedLongitudes = new double[airports];
+            for (int node = 0; node < airports; node++) {
+                sortedAirportIds[node] = airportIds[order[node]];
+                sortedCityIds[node] = cityIds[order[node]];
+                sortedLatitudes[node] = latitudes[order[node]];
+                sortedLongitudes[node] = longitudes[order[node]];
+            }
+
+            // resolve endpoints and count departures per node
+            final int[] edgeSources = new int[routes];
+            final int[] edgeTargets = new int[routes];
+            final int[] offsets = new int[airports + 1];
+            int edges = 0;
+            for (int r = 0; r < routes; r++) {
+                final int source = Arrays.binarySearch(sortedAirportIds, routeSources[r]);
+                final int target = Arrays.binarySearch(sortedAirportIds, routeDestinations[r]);
+                edgeSources[r] = source < 0 || target < 0 ? -1 : source;
+                edgeTargets[r] = target;
+                if (edgeSources[r] >= 0) {
+                    offsets[source + 1]++;
+                    edges++;
+                }
+            }
+            for (int node = 0; node < airports; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            // counting sort of routes by source node
+            final int[] sources = new int[edges];
+            final int[] targets = new int[edges];
+            final double[] edgePrices = new double[edges];
+            final long[] edgeRouteIds = new long[edges];
+            final int[] next = Arrays.copyOf(offsets, airports);
+            for (int r = 0; r < routes; r++) {
+                if (edgeSources[r] < 0) {
+                    continue;
+                }
+                final int edge = next[edgeSources[r]]++;
+                sources[edge] = edgeSources[r];
+                targets[edge] = edgeTargets[r];
+                edgePrices[edge] = prices[r];
+                edgeRouteIds[edge] = routeIds[r];
+            }
+
+            return layout(Airports.of(sortedAirportIds, sortedCityIds, sortedLatitudes, sortedLongitudes), offsets,
+                    sources, targets, edgePrices, edgeRouteIds);
+        }
+    }
+}
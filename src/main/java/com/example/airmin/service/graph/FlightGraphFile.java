@@ -0,0 +1,87 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary {@link FlightGraph} file at {@code app.route-discovery.graph-file}, so a starting instance maps the graph
+ * instead of loading it from the database. The file is replaced atomically, instances that mapped the previous one
+ * keep reading it undisturbed.
+ */
+@Component
+@Log4j2
+public class FlightGraphFile {
+
+    @Nullable
+    private final Path file;
+
+    @Autowired
+    public FlightGraphFile(final RouteDiscoveryProperties properties) {
+        this(properties.getGraphFile() == null || properties.getGraphFile().trim().isEmpty() ? null
+                : Paths.get(properties.getGraphFile()));
+    }
+
+    /**
+     * @param file path of the file, the file is never read nor written when {@code null}
+     */
+    public FlightGraphFile(@Nullable final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return graph mapped from the file, {@code null} when there is no (readable) file
+     */
+    @Nullable
+    public FlightGraph map() {
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FlightGraph graph = FlightGraph.map(channel);
+            log.info("Flight graph with {} airports and {} routes mapped from {} in {} ms", graph.nodeCount(),
+                    graph.edgeCount(), file, (System.nanoTime() - start) / 1_000_000);
+            return graph;
+        } catch (IOException e) {
+            log.warn("Unable to map flight graph from {}; {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replace the file with {@code graph}, failures are only logged
+     */
+    public void write(@NonNull FlightGraph graph) {
+        if (file == null) {
+            return;
+        }
+        try {
+            final Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path temp = Files.createTempFile(directory, "graph-", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    graph.writeTo(channel);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.debug("Flight graph written to {}", file);
+        } catch (IOException e) {
+            log.warn("Unable to write flight graph to {}; {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.repository.AirportRepository;
+import com.example.airmin.repository.RouteRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Builds {@link FlightGraph} from the database
+ */
+@Component
+@Log4j2
+public class FlightGraphLoader {
+
+    private final AirportRepository airportRepository;
+    private final RouteRepository routeRepository;
+
+    public FlightGraphLoader(final AirportRepository airportRepository, final RouteRepository routeRepository) {
+        this.airportRepository = airportRepository;
+        this.routeRepository = routeRepository;
+    }
+
+    public FlightGraph load() {
+        final long start = System.nanoTime();
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (final AirportRepository.AirportNode airport : airportRepository.findAllNodes()) {
+            builder.addAirport(airport.getId(), airport.getCityId(), coordinate(airport.getLatitude()),
+                    coordinate(airport.getLongitude()));
+        }
+        for (final RouteRepository.RouteEdge route : routeRepository.findAllEdges()) {
+            builder.addRoute(route.getId(), route.getSourceId(), route.getDestinationId(), route.getPrice());
+        }
+        final FlightGraph graph = builder.build();
+        log.info("Flight graph with {} airports and {} routes built in {} ms", graph.nodeCount(), graph.edgeCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return graph;
+    }
+
+    /**
+     * Cheap check whether {@code graph} (e.g. mapped from a file written by an earlier run) may still show the
+     * database: it has as many airports and routes and the same highest ids. Doesn't compare prices or endpoints
+     *
+     * @return {@code false} when {@code graph} certainly shows other data
+     */
+    public boolean matches(final FlightGraph graph) {
+        if (airportRepository.count() != graph.nodeCount() || routeRepository.count() != graph.edgeCount()) {
+            return false;
+        }
+        long maxRouteId = -1;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            maxRouteId = Math.max(maxRouteId, graph.routeId(e));
+        }
+        // nodes are ordered by airport id
+        final long maxAirportId = graph.nodeCount() == 0 ? -1 : graph.airportId(graph.nodeCount() - 1);
+        return maxAirportId == Objects.requireNonNullElse(airportRepository.findMaxId(), -1L)
+                && maxRouteId == Objects.requireNonNullElse(routeRepository.findMaxId(), -1L);
+    }
+
+    private static double coordinate(final Double degrees) {
+        return degrees == null ? Double.NaN : degrees;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.airmin.service.graph;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable {@link FlightGraph} together with the {@link GraphVersion} of the data it was built from
+ */
+@Getter
+@AllArgsConstructor
+public class FlightGraphSnapshot {
+    private final FlightGraph graph;
+    private final long version;
+    private final Instant builtAt;
+    private final Duration buildTime;
+    /**
+     * Change applied to the graph of the previous snapshot to get this one, {@code null} when loaded from the database
+     */
+    @Nullable
+    private final GraphDelta delta;
+    /**
+     * Version of the snapshot {@link #delta} was applied to
+     */
+    private final long baseVersion;
+    /**
+     * {@link FlightGraph#fingerprint()} of the graph {@link #delta} was applied to
+     */
+    private final long baseFingerprint;
+
+    public FlightGraphSnapshot(final FlightGraph graph, final long version, final Instant builtAt,
+                               final Duration buildTime) {
+        this(graph, version, builtAt, buildTime, null, -1, 0);
+    }
+}
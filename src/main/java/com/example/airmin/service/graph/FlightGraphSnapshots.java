@@ -0,0 +1,306 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.service.csv.DataImportedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current {@link FlightGraphSnapshot}.
+ * <p>
+ * Only the very first query (or the first one after {@link #invalidate()}) loads the graph itself. Afterwards
+ * snapshots are rebuilt on a background thread after every import, and whenever a reader finds the snapshot older
+ * than the current {@link GraphVersion}, and swapped in atomically once complete. Readers never wait for a rebuild,
+ * they keep getting the previous snapshot until then.
+ * <p>
+ * Imports describing their change as a {@link GraphDelta} don't reload the graph: the delta is applied to the graph of
+ * the current snapshot, as long as that snapshot shows the data right before the import.
+ * <p>
+ * With a {@link FlightGraphFile} configured, the very first snapshot is mapped from the file when there is one and it
+ * passes {@link FlightGraphLoader#matches}, e.g. a file of an earlier run over another (in-memory) database is ignored.
+ * It may still be out of date, so it gets version {@value #UNVERIFIED_VERSION} and is replaced by a snapshot loaded
+ * from the database right away; the mapped graph is kept when both are the same. Every new graph is written to the
+ * file.
+ * <p>
+ * Build time (of a load or of applying a delta) is published as timer {@code flight.graph.build}, age and version of
+ * the current snapshot as gauges {@code flight.graph.snapshot.age} (seconds) and {@code flight.graph.snapshot.version}
+ */
+@Component
+@Log4j2
+public class FlightGraphSnapshots {
+
+    /**
+     * Version of a snapshot mapped from a file, older than any data
+     */
+    public static final long UNVERIFIED_VERSION = -1;
+
+    private final FlightGraphLoader flightGraphLoader;
+    private final FlightGraphFile graphFile;
+    private final GraphVersion graphVersion;
+    private final ExecutorService executor;
+    private final AtomicReference<FlightGraphSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final List<Consumer<FlightGraphSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final Timer buildTimer;
+    /**
+     * Released once a snapshot showing the database is swapped in
+     */
+    private final CountDownLatch verified = new CountDownLatch(1);
+    /**
+     * Whether the file was already considered for the first snapshot, guarded by {@code this}
+     */
+    private boolean fileMapped;
+    /**
+     * Fingerprint of the graph in the file, written by the snapshot thread only
+     */
+    private volatile long fileFingerprint;
+
+    public FlightGraphSnapshots(final FlightGraphLoader flightGraphLoader, final GraphVersion graphVersion,
+                                final MeterRegistry meterRegistry) {
+        this(flightGraphLoader, new FlightGraphFile((Path) null), graphVersion, meterRegistry);
+    }
+
+    @Autowired
+    public FlightGraphSnapshots(final FlightGraphLoader flightGraphLoader, final FlightGraphFile graphFile,
+                                final GraphVersion graphVersion, final MeterRegistry meterRegistry) {
+        this.flightGraphLoader = flightGraphLoader;
+        this.graphFile = graphFile;
+        this.graphVersion = graphVersion;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "flight-graph-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.buildTimer = Timer.builder("flight.graph.build")
+                .description("Time to load the flight graph from the database")
+                .register(meterRegistry);
+        Gauge.builder("flight.graph.snapshot.age", current, snapshot -> snapshot.get() == null ? Double.NaN
+                : Duration.between(snapshot.get().getBuiltAt(), Instant.now()).toMillis() / 1000d)
+                .description("Seconds since the current flight graph snapshot was built")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("flight.graph.snapshot.version", current, snapshot -> snapshot.get() == null ? Double.NaN
+                : snapshot.get().getVersion())
+                .description("Graph version of the current flight graph snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return current snapshot, loaded (or mapped from the file) on the calling thread only when there is none yet
+     */
+    public FlightGraphSnapshot current() {
+        FlightGraphSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = current.get();
+                if (snapshot == null) {
+                    snapshot = first();
+                    install(snapshot);
+                }
+            }
+        }
+        if (snapshot.getVersion() < graphVersion.current()) {
+            rebuild();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Wait until the current snapshot shows the database, i.e. is not the unverified one mapped from the file
+     *
+     * @return current snapshot, loaded from or checked against the database
+     * @throws CancellationException when interrupted while waiting
+     */
+    public FlightGraphSnapshot verified() {
+        FlightGraphSnapshot snapshot = current();
+        while (snapshot.getVersion() == UNVERIFIED_VERSION) {
+            try {
+                // current() schedules the rebuild again should the previous one have failed
+                verified.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for the flight graph");
+            }
+            snapshot = current();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return graph of the current snapshot
+     */
+    public FlightGraph graph() {
+        return current().getGraph();
+    }
+
+    /**
+     * Schedule a background rebuild, unless one is already waiting to start
+     */
+    public void rebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            rebuildScheduled.set(false);
+            final FlightGraphSnapshot snapshot = current.get();
+            if (snapshot != null && snapshot.getVersion() == graphVersion.current()) {
+                // brought up to date by a delta in the meantime
+                return;
+            }
+            try {
+                final FlightGraphSnapshot built = build(snapshot == null ? null : snapshot.getGraph());
+                // the data changed again while loading, the next rebuild is already on its way
+                if (built.getVersion() == graphVersion.current()) {
+                    install(built);
+                    write(built.getGraph());
+                }
+            } catch (RuntimeException e) {
+                log.error("Unable to rebuild flight graph snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Drop the current snapshot so the next reader loads the graph itself, for data changed outside of the importers
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    /**
+     * @param listener called with every snapshot swapped in, on the thread that built it
+     */
+    public void onSwap(@NonNull Consumer<FlightGraphSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataImported(final DataImportedEvent event) {
+        if (event.getDelta() == null) {
+            rebuild();
+        } else {
+            apply(event.getDelta(), event.getStartVersion());
+        }
+    }
+
+    /**
+     * Schedule applying {@code delta} of an import in the background. The whole graph is rebuilt instead when the
+     * current snapshot doesn't show the data right before the import or the data changed once more since
+     *
+     * @param delta        change made by the import
+     * @param startVersion version the import bumped to when it started
+     */
+    public void apply(@NonNull GraphDelta delta, final long startVersion) {
+        executor.execute(() -> {
+            final FlightGraphSnapshot base = current.get();
+            final long version = graphVersion.current();
+            if (base != null && base.getVersion() == version) {
+                return;
+            }
+            if (base == null || version != startVersion + 1 || base.getVersion() < startVersion - 1) {
+                rebuild();
+                return;
+            }
+            try {
+                final long start = System.nanoTime();
+                final FlightGraph graph = base.getGraph().apply(delta);
+                final long elapsed = System.nanoTime() - start;
+                buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                log.info("{} route changes applied to the flight graph in {} ms", delta.size(), elapsed / 1_000_000);
+                install(new FlightGraphSnapshot(graph, version, Instant.now(), Duration.ofNanos(elapsed), delta,
+                        base.getVersion(), base.getGraph().fingerprint()));
+                write(graph);
+            } catch (RuntimeException e) {
+                log.error("Unable to apply route changes to the flight graph", e);
+                rebuild();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return snapshot mapped from the file when it matches the database, otherwise loaded from the database
+     */
+    private FlightGraphSnapshot first() {
+        if (!fileMapped) {
+            fileMapped = true;
+            final long start = System.nanoTime();
+            final FlightGraph mapped = graphFile.map();
+            if (mapped != null) {
+                fileFingerprint = mapped.fingerprint();
+                if (flightGraphLoader.matches(mapped)) {
+                    return new FlightGraphSnapshot(mapped, UNVERIFIED_VERSION, Instant.now(),
+                            Duration.ofNanos(System.nanoTime() - start));
+                }
+                log.info("Flight graph file doesn't match the database, loading the graph from the database");
+            }
+        }
+        final FlightGraphSnapshot built = build(null);
+        executor.execute(() -> write(built.getGraph()));
+        return built;
+    }
+
+    /**
+     * @param previous graph of the current snapshot, kept when the loaded graph is the same
+     */
+    private FlightGraphSnapshot build(@Nullable final FlightGraph previous) {
+        final long version = graphVersion.current();
+        final long start = System.nanoTime();
+        final FlightGraph loaded = flightGraphLoader.load();
+        final long elapsed = System.nanoTime() - start;
+        buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        // e.g. keeps a mapped graph mapped
+        final boolean same = previous != null && previous.fingerprint() == loaded.fingerprint();
+        return new FlightGraphSnapshot(same ? previous : loaded, version, Instant.now(), Duration.ofNanos(elapsed));
+    }
+
+    /**
+     * Write {@code graph} to the file unless the file already holds it, on the snapshot thread
+     */
+    private void write(final FlightGraph graph) {
+        if (graph.fingerprint() != fileFingerprint) {
+            graphFile.write(graph);
+            fileFingerprint = graph.fingerprint();
+        }
+    }
+
+    /**
+     * Swap in {@code snapshot} unless a newer one is already there
+     */
+    private void install(final FlightGraphSnapshot snapshot) {
+        final FlightGraphSnapshot previous = current.getAndAccumulate(snapshot,
+                (existing, built) -> existing != null && existing.getVersion() > built.getVersion() ? existing : built);
+        if (previous == null || previous.getVersion() <= snapshot.getVersion()) {
+            log.debug("Flight graph snapshot of version {} swapped in", snapshot.getVersion());
+            if (snapshot.getVersion() != UNVERIFIED_VERSION) {
+                verified.countDown();
+            }
+            listeners.forEach(listener -> listener.accept(snapshot));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.model.Route;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Change of the routes of a {@link FlightGraph}: added, removed and repriced {@link Route}s. Airports never change
+ * through a delta, so node ids of a graph and of the graph with the delta applied are the same
+ */
+@Getter
+@AllArgsConstructor
+public class GraphDelta {
+
+    private final List<Edge> added;
+    /**
+     * Ids of removed routes
+     */
+    private final Set<Long> removed;
+    /**
+     * New price by route id
+     */
+    private final Map<Long, Double> repriced;
+
+    /**
+     * @param added new routes
+     * @return delta only adding routes
+     */
+    public static GraphDelta added(final List<Edge> added) {
+        return new GraphDelta(added, Collections.emptySet(), Collections.emptyMap());
+    }
+
+    /**
+     * @param deltas changes of distinct routes, e.g. made by the chunks of one import
+     * @return all changes as one delta
+     */
+    public static GraphDelta merge(final List<GraphDelta> deltas) {
+        if (deltas.size() == 1) {
+            return deltas.get(0);
+        }
+        final List<Edge> added = new ArrayList<>();
+        final Set<Long> removed = new HashSet<>();
+        final Map<Long, Double> repriced = new HashMap<>();
+        for (final GraphDelta delta : deltas) {
+            added.addAll(delta.added);
+            removed.addAll(delta.removed);
+            repriced.putAll(delta.repriced);
+        }
+        return new GraphDelta(added, removed, repriced);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && repriced.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + removed.size() + repriced.size();
+    }
+
+    /**
+     * @return lowest price of an added or repriced route, a path through a changed route can't be cheaper;
+     * {@link Double#POSITIVE_INFINITY} when no route was added or repriced
+     */
+    public double minChangedPrice() {
+        double min = Double.POSITIVE_INFINITY;
+        for (final Edge edge : added) {
+            min = Math.min(min, edge.getPrice());
+        }
+        for (final double price : repriced.values()) {
+            min = Math.min(min, price);
+        }
+        return min;
+    }
+
+    /**
+     * Route between two airports, by ids
+     */
+    @Value
+    public static class Edge {
+        long routeId;
+        long sourceAirportId;
+        long destinationAirportId;
+        double price;
+    }
+}
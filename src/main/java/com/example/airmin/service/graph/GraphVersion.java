@@ -0,0 +1,39 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.service.csv.CsvImporter;
+import com.example.airmin.service.csv.DataImportedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the flight data. Anything derived from a {@link FlightGraph} of an older version is stale.
+ * <p>
+ * {@link CsvImporter} bumps the version when an import starts, and it is bumped once more after the import was
+ * committed, so results computed from the old data while the import was running are not reused either.
+ */
+@Component
+public class GraphVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * @return new version
+     */
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDataImported(final DataImportedEvent event) {
+        bump();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * A* search guided by a geographic lower bound: distance to the closest target airport times
+ * {@link FlightGraph#minPricePerKm()}. No route is cheaper per kilometre than the calibrated minimum, so the bound is
+ * admissible and consistent, and the first settled target is the cheapest one, exactly as in {@link Dijkstra}.
+ * <p>
+ * Prices that don't follow distance make the geographic bound weak, so it is never lower than the cheapest route
+ * ({@link FlightGraph#minPrice()}) for airports that are not targets: at least one more route is needed from there.
+ */
+@Service
+public class AStar implements ShortestPathEngine {
+
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public AStar(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
+
+    public AStar(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    @Override
+    public Algorithm algorithm() {
+        return Algorithm.A_STAR;
+    }
+
+    @Override
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        return search(graph, sources, targets, node -> lowerBound(graph, node, targets));
+    }
+
+    /**
+     * A* with any consistent {@code bound}. Airports with an infinite bound can't reach any target and are skipped.
+     *
+     * @param bound lower bound of the price from a node (never a target) to the closest target
+     */
+    ShortestPath search(final FlightGraph graph, final int[] sources, final int[] targets, final LowerBound bound) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            workspace.markTargets(targets);
+
+            final NodeQueue queue = workspace.queue(queueType, heapArity);
+            for (final int s : sources) {
+                workspace.reach(s, 0, -1);
+                final double potential = potential(workspace, s, bound);
+                if (potential < Double.POSITIVE_INFINITY) {
+                    queue.offer(s, potential);
+                }
+            }
+
+            int settled = 0;
+            while (!queue.isEmpty()) {
+                final int node = queue.poll();
+                if (workspace.isSettled(node)) {
+                    continue;
+                }
+                workspace.settle(node);
+                settled++;
+                if (workspace.isTarget(node)) {
+                    return shortestPath(graph, node, workspace, settled);
+                }
+
+                final double distance = workspace.distance(node);
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = graph.target(e);
+                    final double nDistance = distance + graph.price(e);
+                    if (nDistance < workspace.distance(neighbour)) {
+                        final double potential = potential(workspace, neighbour, bound);
+                        if (potential < Double.POSITIVE_INFINITY) {
+                            workspace.reach(neighbour, nDistance, e);
+                            queue.offer(neighbour, nDistance + potential);
+                        }
+                    }
+                }
+            }
+
+            return ShortestPath.none(settled);
+        }
+    }
+
+    /**
+     * @return lower bound of the price from {@code node} to the closest target, computed once per search
+     */
+    private static double potential(final SearchWorkspace workspace, final int node, final LowerBound bound) {
+        if (!workspace.hasPotential(node)) {
+            workspace.setPotential(node, workspace.isTarget(node) ? 0 : bound.of(node));
+        }
+        return workspace.potential(node);
+    }
+
+    /**
+     * @return lower bound of the price from {@code node} (not a target) to the closest of {@code targets}
+     */
+    static double lowerBound(final FlightGraph graph, final int node, final int[] targets) {
+        if (graph.minPricePerKm() == 0) {
+            return graph.minPrice();
+        }
+        final double distance = graph.straightLineKm(node, targets);
+        return Double.isNaN(distance) ? graph.minPrice() : Math.max(graph.minPrice(), distance * graph.minPricePerKm());
+    }
+
+    /**
+     * Lower bound of the remaining price from a node to the targets of one search
+     */
+    @FunctionalInterface
+    interface LowerBound {
+        double of(int node);
+    }
+
+    private ShortestPath shortestPath(final FlightGraph graph, final int target, final SearchWorkspace workspace,
+                                      final int settled) {
+        return new ShortestPath(workspace.routeIds(graph, target), workspace.distance(target), settled);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.airmin.service.shortestpath;
+
+/**
+ * Available {@link ShortestPathEngine}s
+ */
+public enum Algorithm {
+    DIJKSTRA,
+    BIDIRECTIONAL_DIJKSTRA,
+    CONTRACTION_HIERARCHIES,
+    A_STAR,
+    ALT
+}
@@ -0,0 +1,171 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional Dijkstra: a forward search from the source airports over departures and a backward search from the
+ * destination airports over arrivals, always advancing the direction with the closer frontier.
+ * <p>
+ * Every edge relaxed towards a node already reached by the opposite search yields a candidate path. The search stops
+ * once the sum of both frontier keys is not lower than the best candidate, at which point no cheaper path can exist.
+ */
+@Service
+public class BidirectionalDijkstra implements ShortestPathEngine {
+
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public BidirectionalDijkstra(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
+
+    public BidirectionalDijkstra(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    @Override
+    public Algorithm algorithm() {
+        return Algorithm.BIDIRECTIONAL_DIJKSTRA;
+    }
+
+    @Override
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        try (SearchWorkspace forward = SearchWorkspace.acquire(graph.nodeCount());
+             SearchWorkspace backward = SearchWorkspace.acquire(graph.nodeCount())) {
+            final NodeQueue forwardQueue = forward.queue(queueType, heapArity);
+            final NodeQueue backwardQueue = backward.queue(queueType, heapArity);
+            for (final int s : sources) {
+                forward.reach(s, 0, -1);
+                forwardQueue.offer(s, 0);
+            }
+            for (final int t : targets) {
+                backward.reach(t, 0, -1);
+                backwardQueue.offer(t, 0);
+            }
+
+            final Meeting best = new Meeting();
+            int settled = 0;
+            while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                    && forwardQueue.minKey() + backwardQueue.minKey() < best.price) {
+                if (forwardQueue.minKey() <= backwardQueue.minKey()) {
+                    settled += forwardStep(graph, forward, forwardQueue, backward, best);
+                } else {
+                    settled += backwardStep(graph, backward, backwardQueue, forward, best);
+                }
+            }
+
+            if (best.edge == -1 && best.node == -1) {
+                return ShortestPath.none(settled);
+            }
+            return shortestPath(graph, forward, backward, best, settled);
+        }
+    }
+
+    private int forwardStep(final FlightGraph graph, final SearchWorkspace forward, final NodeQueue queue,
+                            final SearchWorkspace backward, final Meeting best) {
+        final int node = queue.poll();
+        if (forward.isSettled(node)) {
+            return 0;
+        }
+        forward.settle(node);
+
+        final double distance = forward.distance(node);
+        best.offerNode(node, distance + backward.distance(node));
+        for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+            final int neighbour = graph.target(e);
+            final double nDistance = distance + graph.price(e);
+            if (nDistance < forward.distance(neighbour)) {
+                forward.reach(neighbour, nDistance, e);
+                queue.offer(neighbour, nDistance);
+            }
+            best.offerEdge(e, nDistance + backward.distance(neighbour));
+        }
+        return 1;
+    }
+
+    private int backwardStep(final FlightGraph graph, final SearchWorkspace backward, final NodeQueue queue,
+                             final SearchWorkspace forward, final Meeting best) {
+        final int node = queue.poll();
+        if (backward.isSettled(node)) {
+            return 0;
+        }
+        backward.settle(node);
+
+        final double distance = backward.distance(node);
+        best.offerNode(node, distance + forward.distance(node));
+        for (int a = graph.firstArrival(node), end = graph.endArrival(node); a < end; a++) {
+            final int e = graph.arrival(a);
+            final int neighbour = graph.source(e);
+            final double nDistance = distance + graph.price(e);
+            if (nDistance < backward.distance(neighbour)) {
+                // predecessor in backward search is the edge towards the destination
+                backward.reach(neighbour, nDistance, e);
+                queue.offer(neighbour, nDistance);
+            }
+            best.offerEdge(e, nDistance + forward.distance(neighbour));
+        }
+        return 1;
+    }
+
+    /**
+     * Join forward path to the meeting point, the meeting edge (if any) and backward path from the meeting point
+     */
+    private ShortestPath shortestPath(final FlightGraph graph, final SearchWorkspace forward,
+                                      final SearchWorkspace backward, final Meeting best, final int settled) {
+        final int forwardEnd = best.edge == -1 ? best.node : graph.source(best.edge);
+        final int backwardStart = best.edge == -1 ? best.node : graph.target(best.edge);
+
+        final long[] forwardRouteIds = forward.routeIds(graph, forwardEnd);
+        int backwardLegs = 0;
+        for (int node = backwardStart; backward.predecessor(node) != -1; ) {
+            node = graph.target(backward.predecessor(node));
+            backwardLegs++;
+        }
+
+        final int meetingLegs = best.edge == -1 ? 0 : 1;
+        final long[] routeIds = Arrays.copyOf(forwardRouteIds, forwardRouteIds.length + meetingLegs + backwardLegs);
+        if (best.edge != -1) {
+            routeIds[forwardRouteIds.length] = graph.routeId(best.edge);
+        }
+        int node = backwardStart;
+        for (int leg = forwardRouteIds.length + meetingLegs; leg < routeIds.length; leg++) {
+            final int edge = backward.predecessor(node);
+            routeIds[leg] = graph.routeId(edge);
+            node = graph.target(edge);
+        }
+        return new ShortestPath(routeIds, best.price, settled);
+    }
+
+    /**
+     * Best path found so far, meeting either in a node reached from both sides or over an edge between them
+     */
+    private static final class Meeting {
+        private double price = Double.POSITIVE_INFINITY;
+        private int node = -1;
+        private int edge = -1;
+
+        private void offerNode(final int meetingNode, final double candidate) {
+            if (candidate < price) {
+                price = candidate;
+                node = meetingNode;
+                edge = -1;
+            }
+        }
+
+        private void offerEdge(final int meetingEdge, final double candidate) {
+            if (candidate < price) {
+                price = candidate;
+                node = -1;
+                edge = meetingEdge;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * All airports reachable from a set of source airports within a price budget. A Dijkstra search without targets that
+ * stops as soon as the smallest key of the frontier exceeds the budget, so only airports within the budget (and the
+ * edges leaving them) are ever touched.
+ */
+@Service
+public class BudgetSearch {
+
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public BudgetSearch(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
+
+    public BudgetSearch(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    /**
+     * @param graph   flight graph
+     * @param sources source airports, reached at price {@code 0}
+     * @param budget  highest price, inclusive
+     * @return airports reachable within {@code budget}, sources included, in order of increasing price
+     */
+    public ReachableAirports reachable(@NonNull FlightGraph graph, @NonNull int[] sources, final double budget) {
+        int[] nodes = new int[64];
+        double[] prices = new double[64];
+        int size = 0;
+
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            final NodeQueue queue = workspace.queue(queueType, heapArity);
+            for (final int s : sources) {
+                workspace.reach(s, 0, -1);
+                queue.offer(s, 0);
+            }
+
+            while (!queue.isEmpty() && queue.minKey() <= budget) {
+                final int node = queue.poll();
+                if (workspace.isSettled(node)) {
+                    continue;
+                }
+                workspace.settle(node);
+                final double distance = workspace.distance(node);
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    prices = Arrays.copyOf(prices, size * 2);
+                }
+                nodes[size] = node;
+                prices[size++] = distance;
+
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = graph.target(e);
+                    final double nDistance = distance + graph.price(e);
+                    if (nDistance <= budget && nDistance < workspace.distance(neighbour)) {
+                        workspace.reach(neighbour, nDistance, e);
+                        queue.offer(neighbour, nDistance);
+                    }
+                }
+            }
+        }
+        return new ReachableAirports(Arrays.copyOf(nodes, size), Arrays.copyOf(prices, size));
+    }
+}
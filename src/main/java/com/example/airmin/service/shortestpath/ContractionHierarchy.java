@@ -0,0 +1,233 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.model.Route;
+import com.example.airmin.service.graph.FlightGraph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy of a {@link FlightGraph}.
+ * <p>
+ * Airports are ranked by importance and every edge is either an original route (the cheapest one between two
+ * airports) or a shortcut replacing two consecutive edges around a less important airport. Searches only go "up":
+ * forward over {@code up} edges (towards more important airports) and backward over {@code down} edges (arriving
+ * from more important airports). Shortcuts are unpacked back to the {@link Route}s they replace.
+ */
+public final class ContractionHierarchy {
+
+    private static final int MAGIC = 0x41434831;
+    private static final int FORMAT_VERSION = 1;
+
+    private final long fingerprint;
+    private final int[] rank;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] prices;
+    /**
+     * Original {@link FlightGraph} edge for routes, first replaced edge for shortcuts
+     */
+    private final int[] firstChild;
+    /**
+     * Second replaced edge for shortcuts, {@code -1} for routes
+     */
+    private final int[] secondChild;
+    /**
+     * Edges superseded by a cheaper shortcut between the same airports are kept only to unpack other shortcuts
+     */
+    private final boolean[] superseded;
+    private final int[] upOffsets;
+    private final int[] up;
+    private final int[] downOffsets;
+    private final int[] down;
+
+    ContractionHierarchy(final long fingerprint, final int[] rank, final int[] sources, final int[] targets,
+                         final double[] prices, final int[] firstChild, final int[] secondChild,
+                         final boolean[] superseded) {
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.sources = sources;
+        this.targets = targets;
+        this.prices = prices;
+        this.firstChild = firstChild;
+        this.secondChild = secondChild;
+        this.superseded = superseded;
+
+        final int nodes = rank.length;
+        this.upOffsets = new int[nodes + 1];
+        this.downOffsets = new int[nodes + 1];
+        for (int edge = 0; edge < sources.length; edge++) {
+            if (superseded[edge]) {
+                continue;
+            }
+            if (rank[sources[edge]] < rank[targets[edge]]) {
+                upOffsets[sources[edge] + 1]++;
+            } else {
+                downOffsets[targets[edge] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodes; node++) {
+            upOffsets[node + 1] += upOffsets[node];
+            downOffsets[node + 1] += downOffsets[node];
+        }
+        this.up = new int[upOffsets[nodes]];
+        this.down = new int[downOffsets[nodes]];
+        final int[] nextUp = Arrays.copyOf(upOffsets, nodes);
+        final int[] nextDown = Arrays.copyOf(downOffsets, nodes);
+        for (int edge = 0; edge < sources.length; edge++) {
+            if (superseded[edge]) {
+                continue;
+            }
+            if (rank[sources[edge]] < rank[targets[edge]]) {
+                up[nextUp[sources[edge]]++] = edge;
+            } else {
+                down[nextDown[targets[edge]]++] = edge;
+            }
+        }
+    }
+
+    /**
+     * Contract every airport of {@code graph}. This is expensive and is meant to run once per graph version.
+     *
+     * @param graph flight graph
+     * @return contraction hierarchy of the graph
+     */
+    public static ContractionHierarchy build(final FlightGraph graph) {
+        return new ContractionHierarchyBuilder(graph).build();
+    }
+
+    /**
+     * @return {@link FlightGraph#fingerprint()} of the graph this hierarchy was built for
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int nodeCount() {
+        return rank.length;
+    }
+
+    public int edgeCount() {
+        return sources.length;
+    }
+
+    public int rank(final int node) {
+        return rank[node];
+    }
+
+    public int firstUp(final int node) {
+        return upOffsets[node];
+    }
+
+    public int endUp(final int node) {
+        return upOffsets[node + 1];
+    }
+
+    /**
+     * @return edge leaving a node towards a more important node
+     */
+    public int up(final int index) {
+        return up[index];
+    }
+
+    public int firstDown(final int node) {
+        return downOffsets[node];
+    }
+
+    public int endDown(final int node) {
+        return downOffsets[node + 1];
+    }
+
+    /**
+     * @return edge arriving to a node from a more important node
+     */
+    public int down(final int index) {
+        return down[index];
+    }
+
+    public int source(final int edge) {
+        return sources[edge];
+    }
+
+    public int target(final int edge) {
+        return targets[edge];
+    }
+
+    public double price(final int edge) {
+        return prices[edge];
+    }
+
+    public boolean isShortcut(final int edge) {
+        return secondChild[edge] != -1;
+    }
+
+    /**
+     * @return first replaced edge of a shortcut or the {@link FlightGraph} edge of a route
+     */
+    public int firstChild(final int edge) {
+        return firstChild[edge];
+    }
+
+    public int secondChild(final int edge) {
+        return secondChild[edge];
+    }
+
+    public void writeTo(final DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(rank.length);
+        for (final int r : rank) {
+            out.writeInt(r);
+        }
+        out.writeInt(sources.length);
+        for (int edge = 0; edge < sources.length; edge++) {
+            out.writeInt(sources[edge]);
+            out.writeInt(targets[edge]);
+            out.writeDouble(prices[edge]);
+            out.writeInt(firstChild[edge]);
+            out.writeInt(secondChild[edge]);
+            out.writeBoolean(superseded[edge]);
+        }
+    }
+
+    /**
+     * @param in    persisted hierarchy
+     * @param graph graph the hierarchy must belong to
+     * @return hierarchy
+     * @throws IOException when data is not a hierarchy of {@code graph}
+     */
+    public static ContractionHierarchy readFrom(final DataInput in, final FlightGraph graph) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a contraction hierarchy or unsupported format version");
+        }
+        final long fingerprint = in.readLong();
+        final int nodes = in.readInt();
+        if (fingerprint != graph.fingerprint() || nodes != graph.nodeCount()) {
+            throw new IOException("Contraction hierarchy was built for a different flight graph");
+        }
+        final int[] rank = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            rank[node] = in.readInt();
+        }
+        final int edges = in.readInt();
+        final int[] sources = new int[edges];
+        final int[] targets = new int[edges];
+        final double[] prices = new double[edges];
+        final int[] firstChild = new int[edges];
+        final int[] secondChild = new int[edges];
+        final boolean[] superseded = new boolean[edges];
+        for (int edge = 0; edge < edges; edge++) {
+            sources[edge] = in.readInt();
+            targets[edge] = in.readInt();
+            prices[edge] = in.readDouble();
+            firstChild[edge] = in.readInt();
+            secondChild[edge] = in.readInt();
+            superseded[edge] = in.readBoolean();
+        }
+        return new ContractionHierarchy(fingerprint, rank, sources, targets, prices, firstChild, secondChild,
+                superseded);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+
+import java.util.Arrays;
+
+/**
+ * Contracts airports one by one in order of importance and adds shortcuts that keep cheapest prices between the
+ * remaining airports.
+ * <p>
+ * Importance is the edge difference (shortcuts added minus edges removed) plus the number of already contracted
+ * neighbours, which spreads contraction evenly over the graph. Priorities are updated lazily: a node is re-evaluated
+ * when it reaches the top of the queue and contracted only if it is still the least important one. A shortcut
+ * {@code u -> w} around {@code v} is skipped when a witness search from {@code u} (avoiding {@code v}, bounded by
+ * {@link #WITNESS_SETTLE_LIMIT} settled nodes) finds a path to {@code w} that is not more expensive. Priorities are
+ * estimated with cheaper witness searches ({@link #ESTIMATE_SETTLE_LIMIT}), which may only overestimate shortcuts.
+ */
+final class ContractionHierarchyBuilder {
+
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+    private static final int ESTIMATE_SETTLE_LIMIT = 30;
+
+    private final FlightGraph graph;
+    private final int nodes;
+    private final IntList[] out;
+    private final IntList[] in;
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+
+    private int[] sources = new int[1024];
+    private int[] targets = new int[1024];
+    private double[] prices = new double[1024];
+    private int[] firstChild = new int[1024];
+    private int[] secondChild = new int[1024];
+    private boolean[] superseded = new boolean[1024];
+    private int edges;
+
+    ContractionHierarchyBuilder(final FlightGraph graph) {
+        this.graph = graph;
+        this.nodes = graph.nodeCount();
+        this.out = new IntList[nodes];
+        this.in = new IntList[nodes];
+        for (int node = 0; node < nodes; node++) {
+            out[node] = new IntList();
+            in[node] = new IntList();
+        }
+        this.contracted = new boolean[nodes];
+        this.contractedNeighbours = new int[nodes];
+    }
+
+    ContractionHierarchy build() {
+        for (int node = 0; node < nodes; node++) {
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                if (graph.target(e) != node) {
+                    addOrImprove(node, graph.target(e), graph.price(e), e, -1);
+                }
+            }
+        }
+
+        final int[] rank = new int[nodes];
+        final IndexedDaryHeap queue = new IndexedDaryHeap(4);
+        queue.reset(nodes);
+        for (int node = 0; node < nodes; node++) {
+            queue.offer(node, priority(node));
+        }
+        int next = 0;
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            final double priority = priority(node);
+            if (!queue.isEmpty() && priority > queue.minKey()) {
+                queue.offer(node, priority);
+                continue;
+            }
+            contract(node);
+            rank[node] = next++;
+        }
+
+        return new ContractionHierarchy(graph.fingerprint(), rank, Arrays.copyOf(sources, edges),
+                Arrays.copyOf(targets, edges), Arrays.copyOf(prices, edges), Arrays.copyOf(firstChild, edges),
+                Arrays.copyOf(secondChild, edges), Arrays.copyOf(superseded, edges));
+    }
+
+    private double priority(final int node) {
+        int removed = 0;
+        for (int i = 0; i < in[node].size; i++) {
+            if (isLive(in[node].data[i], sources)) {
+                removed++;
+            }
+        }
+        for (int i = 0; i < out[node].size; i++) {
+            if (isLive(out[node].data[i], targets)) {
+                removed++;
+            }
+        }
+        return shortcuts(node, false) - removed + contractedNeighbours[node];
+    }
+
+    private void contract(final int node) {
+        shortcuts(node, true);
+        contracted[node] = true;
+        for (int i = 0; i < in[node].size; i++) {
+            if (isLive(in[node].data[i], sources)) {
+                contractedNeighbours[sources[in[node].data[i]]]++;
+            }
+        }
+        for (int i = 0; i < out[node].size; i++) {
+            if (isLive(out[node].data[i], targets)) {
+                contractedNeighbours[targets[out[node].data[i]]]++;
+            }
+        }
+    }
+
+    /**
+     * Count (and optionally add) shortcuts needed to contract {@code node}
+     */
+    private int shortcuts(final int node, final boolean add) {
+        int shortcuts = 0;
+        for (int i = 0; i < in[node].size; i++) {
+            final int inEdge = in[node].data[i];
+            if (!isLive(inEdge, sources)) {
+                continue;
+            }
+            final int from = sources[inEdge];
+
+            double maxPrice = -1;
+            for (int j = 0; j < out[node].size; j++) {
+                final int outEdge = out[node].data[j];
+                if (isLive(outEdge, targets) && targets[outEdge] != from) {
+                    maxPrice = Math.max(maxPrice, prices[inEdge] + prices[outEdge]);
+                }
+            }
+            if (maxPrice < 0) {
+                continue;
+            }
+
+            try (SearchWorkspace witness = witnessSearch(from, node, maxPrice,
+                    add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT)) {
+                for (int j = 0; j < out[node].size; j++) {
+                    final int outEdge = out[node].data[j];
+                    if (!isLive(outEdge, targets) || targets[outEdge] == from) {
+                        continue;
+                    }
+                    final double price = prices[inEdge] + prices[outEdge];
+                    if (witness.distance(targets[outEdge]) > price) {
+                        shortcuts++;
+                        if (add) {
+                            addOrImprove(from, targets[outEdge], price, inEdge, outEdge);
+                        }
+                    }
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Dijkstra from {@code from} over not contracted nodes, avoiding {@code avoid}
+     */
+    private SearchWorkspace witnessSearch(final int from, final int avoid, final double maxPrice,
+                                         final int settleLimit) {
+        final SearchWorkspace workspace = SearchWorkspace.acquire(nodes);
+        final NodeQueue queue = workspace.queue(QueueType.DARY_HEAP, 4);
+        workspace.reach(from, 0, -1);
+        queue.offer(from, 0);
+        int settled = 0;
+        while (!queue.isEmpty() && queue.minKey() <= maxPrice && settled < settleLimit) {
+            final int current = queue.poll();
+            workspace.settle(current);
+            settled++;
+            final double distance = workspace.distance(current);
+            final IntList edgesOut = out[current];
+            for (int i = 0; i < edgesOut.size; i++) {
+                final int edge = edgesOut.data[i];
+                final int neighbour = targets[edge];
+                if (neighbour == avoid || !isLive(edge, targets)) {
+                    continue;
+                }
+                final double nDistance = distance + prices[edge];
+                if (nDistance < workspace.distance(neighbour)) {
+                    workspace.reach(neighbour, nDistance, current);
+                    queue.offer(neighbour, nDistance);
+                }
+            }
+        }
+        return workspace;
+    }
+
+    /**
+     * @param endpoints {@link #sources} for incoming, {@link #targets} for outgoing edges
+     * @return edge is not superseded and its other endpoint is not contracted yet
+     */
+    private boolean isLive(final int edge, final int[] endpoints) {
+        return !superseded[edge] && !contracted[endpoints[edge]];
+    }
+
+    private void addOrImprove(final int from, final int to, final double price, final int first, final int second) {
+        final IntList edgesOut = out[from];
+        for (int i = 0; i < edgesOut.size; i++) {
+            final int edge = edgesOut.data[i];
+            if (!superseded[edge] && targets[edge] == to) {
+                if (prices[edge] <= price) {
+                    return;
+                }
+                superseded[edge] = true;
+                break;
+            }
+        }
+
+        if (edges == sources.length) {
+            final int capacity = edges * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            secondChild = Arrays.copyOf(secondChild, capacity);
+            superseded = Arrays.copyOf(superseded, capacity);
+        }
+        sources[edges] = from;
+        targets[edges] = to;
+        prices[edges] = price;
+        firstChild[edges] = first;
+        secondChild[edges] = second;
+        out[from].add(edges);
+        in[to].add(edges);
+        edges++;
+    }
+
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        private void add(final int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+}
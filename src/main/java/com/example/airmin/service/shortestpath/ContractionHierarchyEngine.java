@@ -0,0 +1,197 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Cheapest route over a {@link ContractionHierarchy}: a forward search from the source airports over upward edges
+ * and a backward search from the destination airports over downward edges. The cheapest path meets at its most
+ * important airport; found shortcuts are unpacked to the routes they replace.
+ * <p>
+ * While the hierarchy of the current graph is still being built, queries are answered by {@link BidirectionalDijkstra}.
+ */
+@Service
+public class ContractionHierarchyEngine implements ShortestPathEngine {
+
+    private final ContractionHierarchyStore store;
+    private final BidirectionalDijkstra fallback;
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public ContractionHierarchyEngine(final ContractionHierarchyStore store, final BidirectionalDijkstra fallback,
+                                      final RouteDiscoveryProperties properties) {
+        this(store, fallback, properties.getQueue(), properties.getHeapArity());
+    }
+
+    public ContractionHierarchyEngine(final ContractionHierarchyStore store, final BidirectionalDijkstra fallback,
+                                      final QueueType queueType, final int heapArity) {
+        this.store = store;
+        this.fallback = fallback;
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    @Override
+    public Algorithm algorithm() {
+        return Algorithm.CONTRACTION_HIERARCHIES;
+    }
+
+    @Override
+    public void prepare(@NonNull FlightGraph graph) {
+        store.prepare(graph);
+    }
+
+    @Override
+    public void awaitPrepared(@NonNull FlightGraph graph) {
+        store.get(graph);
+    }
+
+    @Override
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        final Optional<ContractionHierarchy> hierarchy = store.find(graph);
+        if (hierarchy.isPresent()) {
+            return cheapest(hierarchy.get(), graph, sources, targets);
+        }
+        return fallback.cheapest(graph, sources, targets);
+    }
+
+    /**
+     * @param hierarchy contraction hierarchy of {@code graph}
+     * @param graph     flight graph
+     * @param sources   source airports
+     * @param targets   destination airports
+     * @return cheapest path from any source to any target
+     */
+    public ShortestPath cheapest(@NonNull ContractionHierarchy hierarchy, @NonNull FlightGraph graph,
+                                 @NonNull int[] sources, @NonNull int[] targets) {
+        try (SearchWorkspace forward = SearchWorkspace.acquire(hierarchy.nodeCount());
+             SearchWorkspace backward = SearchWorkspace.acquire(hierarchy.nodeCount())) {
+            final NodeQueue forwardQueue = forward.queue(queueType, heapArity);
+            final NodeQueue backwardQueue = backward.queue(queueType, heapArity);
+            for (final int s : sources) {
+                forward.reach(s, 0, -1);
+                forwardQueue.offer(s, 0);
+            }
+            for (final int t : targets) {
+                backward.reach(t, 0, -1);
+                backwardQueue.offer(t, 0);
+            }
+
+            double best = Double.POSITIVE_INFINITY;
+            int meeting = -1;
+            int settled = 0;
+            // unlike plain bidirectional search, each direction has to run until its own frontier exceeds the best
+            // price: the first settled meeting point is not necessarily on the cheapest path
+            while (true) {
+                final boolean forwardActive = !forwardQueue.isEmpty() && forwardQueue.minKey() < best;
+                final boolean backwardActive = !backwardQueue.isEmpty() && backwardQueue.minKey() < best;
+                if (!forwardActive && !backwardActive) {
+                    break;
+                }
+                final boolean forwardTurn = forwardActive
+                        && (!backwardActive || forwardQueue.minKey() <= backwardQueue.minKey());
+                final SearchWorkspace current = forwardTurn ? forward : backward;
+                final SearchWorkspace opposite = forwardTurn ? backward : forward;
+                final int node = (forwardTurn ? forwardQueue : backwardQueue).poll();
+                if (current.isSettled(node)) {
+                    continue;
+                }
+                current.settle(node);
+                settled++;
+
+                final double distance = current.distance(node);
+                if (distance + opposite.distance(node) < best) {
+                    best = distance + opposite.distance(node);
+                    meeting = node;
+                }
+                if (forwardTurn) {
+                    relaxUp(hierarchy, forward, forwardQueue, node, distance);
+                } else {
+                    relaxDown(hierarchy, backward, backwardQueue, node, distance);
+                }
+            }
+
+            if (meeting == -1) {
+                return ShortestPath.none(settled);
+            }
+            return new ShortestPath(unpack(hierarchy, graph, forward, backward, meeting), best, settled);
+        }
+    }
+
+    private void relaxUp(final ContractionHierarchy hierarchy, final SearchWorkspace forward, final NodeQueue queue,
+                         final int node, final double distance) {
+        for (int i = hierarchy.firstUp(node), end = hierarchy.endUp(node); i < end; i++) {
+            final int edge = hierarchy.up(i);
+            final int neighbour = hierarchy.target(edge);
+            final double nDistance = distance + hierarchy.price(edge);
+            if (nDistance < forward.distance(neighbour)) {
+                forward.reach(neighbour, nDistance, edge);
+                queue.offer(neighbour, nDistance);
+            }
+        }
+    }
+
+    private void relaxDown(final ContractionHierarchy hierarchy, final SearchWorkspace backward,
+                           final NodeQueue queue, final int node, final double distance) {
+        for (int i = hierarchy.firstDown(node), end = hierarchy.endDown(node); i < end; i++) {
+            final int edge = hierarchy.down(i);
+            final int neighbour = hierarchy.source(edge);
+            final double nDistance = distance + hierarchy.price(edge);
+            if (nDistance < backward.distance(neighbour)) {
+                backward.reach(neighbour, nDistance, edge);
+                queue.offer(neighbour, nDistance);
+            }
+        }
+    }
+
+    /**
+     * Collect hierarchy edges from the sources to the meeting point and on to the targets (predecessors are edge
+     * ids), then replace every shortcut by the two edges it stands for
+     */
+    private long[] unpack(final ContractionHierarchy hierarchy, final FlightGraph graph,
+                          final SearchWorkspace forward, final SearchWorkspace backward, final int meeting) {
+        // the stack is popped from the top, so the path is pushed from its end: backward part first, reversed
+        int backwardLegs = 0;
+        for (int node = meeting; backward.predecessor(node) != -1; ) {
+            node = hierarchy.target(backward.predecessor(node));
+            backwardLegs++;
+        }
+        int[] stack = new int[Math.max(16, backwardLegs)];
+        for (int node = meeting, leg = backwardLegs - 1; leg >= 0; leg--) {
+            stack[leg] = backward.predecessor(node);
+            node = hierarchy.target(stack[leg]);
+        }
+        int size = backwardLegs;
+        for (int node = meeting; forward.predecessor(node) != -1; ) {
+            stack = ensureCapacity(stack, size + 1);
+            stack[size++] = forward.predecessor(node);
+            node = hierarchy.source(forward.predecessor(node));
+        }
+
+        long[] routeIds = new long[size];
+        int legs = 0;
+        while (size > 0) {
+            final int edge = stack[--size];
+            if (hierarchy.isShortcut(edge)) {
+                stack = ensureCapacity(stack, size + 2);
+                stack[size++] = hierarchy.secondChild(edge);
+                stack[size++] = hierarchy.firstChild(edge);
+            } else {
+                routeIds = legs == routeIds.length ? Arrays.copyOf(routeIds, legs * 2 + 1) : routeIds;
+                routeIds[legs++] = graph.routeId(hierarchy.firstChild(edge));
+            }
+        }
+        return Arrays.copyOf(routeIds, legs);
+    }
+
+    private static int[] ensureCapacity(final int[] array, final int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
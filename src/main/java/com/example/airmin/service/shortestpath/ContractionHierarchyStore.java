@@ -0,0 +1,89 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Holds the {@link ContractionHierarchy} of the current {@link FlightGraph}.
+ * <p>
+ * The hierarchy is read from {@code app.route-discovery.ch-directory} when a file for the same graph fingerprint
+ * exists, otherwise it is built and written there. Files of other graphs are deleted then, so every import doesn't
+ * leave another hierarchy behind.
+ */
+@Component
+@Log4j2
+public class ContractionHierarchyStore extends PreprocessedGraphStore<ContractionHierarchy> {
+
+    private final Path directory;
+
+    public ContractionHierarchyStore(final RouteDiscoveryProperties properties) {
+        super("contraction-hierarchy");
+        final String chDirectory = properties.getChDirectory();
+        this.directory = chDirectory == null || chDirectory.trim().isEmpty() ? null : Paths.get(chDirectory);
+    }
+
+    @Override
+    protected ContractionHierarchy preprocess(final FlightGraph graph) {
+        final Path file = directory == null ? null
+                : directory.resolve(String.format("ch-%016x.bin", graph.fingerprint()));
+        if (file != null && Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                final ContractionHierarchy hierarchy = ContractionHierarchy.readFrom(in, graph);
+                log.info("Contraction hierarchy loaded from {}", file);
+                return hierarchy;
+            } catch (IOException e) {
+                log.warn("Unable to read contraction hierarchy from {}, rebuilding; {}", file, e.getMessage());
+            }
+        }
+
+        final long start = System.nanoTime();
+        final ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        log.info("Contraction hierarchy with {} edges built in {} ms", hierarchy.edgeCount(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        if (file != null) {
+            try {
+                Files.createDirectories(directory);
+                final Path temp = Files.createTempFile(directory, "ch-", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    hierarchy.writeTo(out);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                deleteOthers(file);
+            } catch (IOException e) {
+                log.warn("Unable to persist contraction hierarchy to {}; {}", file, e.getMessage());
+            }
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Delete the hierarchy files of every graph but the one of {@code current}
+     */
+    private void deleteOthers(final Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "ch-*.bin")) {
+            for (final Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                    log.debug("Outdated contraction hierarchy {} deleted", file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete outdated contraction hierarchies from {}; {}", directory, e.getMessage());
+        }
+    }
+}
@@ -1,100 +1,79 @@
 package com.example.airmin.service.shortestpath;
 
-import com.example.airmin.model.Airport;
-import com.example.airmin.model.Route;
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.PriorityQueue;
-
+/**
+ * Stateless, thread-safe Dijkstra search. All per-query state is kept in a {@link SearchWorkspace}.
+ */
 @Service
-public class Dijkstra {
+public class Dijkstra implements ShortestPathEngine {
 
-    public Map<Airport, Airport> calculateGraph(final Iterable<Airport> airports, List<Airport> sources, List<Airport> targets) {
-        Map<Airport, Airport> path = new LinkedHashMap<>();
+    private final QueueType queueType;
+    private final int heapArity;
 
-        int nmOfReachedTargets = 0;
-        airports.forEach(a -> a.setDistance(Double.POSITIVE_INFINITY));
-        sources.forEach(s -> s.setDistance(0));
+    @Autowired
+    public Dijkstra(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
 
-        PriorityQueue<Airport> queue = new PriorityQueue<>(Comparator.comparingDouble(Airport::getDistance));
-        queue.addAll(sources);
-        while (!queue.isEmpty() || nmOfReachedTargets != targets.size()) {
-            final Airport current = queue.poll();
+    public Dijkstra(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
 
-            if (targets.contains(current)) {
-                nmOfReachedTargets++;
-            }
+    @Override
+    public Algorithm algorithm() {
+        return Algorithm.DIJKSTRA;
+    }
 
-            if (current == null) {
-                break;
+    /**
+     * Prices are non-negative, so the first settled target is the cheapest one and the search stops there.
+     */
+    @Override
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            workspace.markTargets(targets);
+
+            final NodeQueue queue = workspace.queue(queueType, heapArity);
+            for (final int s : sources) {
+                workspace.reach(s, 0, -1);
+                queue.offer(s, 0);
             }
 
-            for (final Route e : current.getDepartures()) {
-                Airport neighbour = e.getDestination();
-                double nDistance = current.getDistance() + e.getPrice();
-                if (nDistance < neighbour.getDistance()) {
-                    neighbour.setDistance(nDistance);
-                    path.put(neighbour, current);
-
-                    queue.remove(neighbour);
-                    queue.add(neighbour);
+            int settled = 0;
+            while (!queue.isEmpty()) {
+                final int node = queue.poll();
+                if (workspace.isSettled(node)) {
+                    // stale entry, node was already settled with lower distance
+                    continue;
+                }
+                workspace.settle(node);
+                settled++;
+                if (workspace.isTarget(node)) {
+                    return shortestPath(graph, node, workspace, settled);
                 }
-            }
-        }
-
-        return path;
-    }
-
-    public List<Route> shortestPath(@NonNull List<Airport> destinations, Map<Airport, Airport> predecessors) {
-        Optional<Airport> cheapestTarget = predecessors.keySet().stream().filter(destinations::contains)
-                .min(Comparator.comparingDouble(Airport::getDistance));
-
-
-        if (cheapestTarget.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return shortestPath(cheapestTarget.get(), predecessors);
-    }
-
-    public List<Route> shortestPath(@NonNull Airport target, Map<Airport, Airport> predecessors) {
-        List<Route> routes = new ArrayList<>();
-        final Airport dest = predecessors.get(target);
-        if (dest == null) {
-            return routes;
-        }
 
-        Airport destination = target;
-        while (predecessors.get(destination) != null) {
-            Airport source = predecessors.get(destination);
-            for (final Route route : source.getDepartures()) {
-                if (route.getDestination().equals(destination) &&
-                        compare(destination.getDistance() - source.getDistance(), route.getPrice(), 0.0000001)) {
-                    routes.add(route);
+                final double distance = workspace.distance(node);
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = graph.target(e);
+                    final double nDistance = distance + graph.price(e);
+                    if (nDistance < workspace.distance(neighbour)) {
+                        workspace.reach(neighbour, nDistance, e);
+                        queue.offer(neighbour, nDistance);
+                    }
                 }
             }
 
-            destination = source;
+            return ShortestPath.none(settled);
         }
-
-        Collections.reverse(routes);
-
-        return new ArrayList<>(new LinkedHashSet<>(routes));
     }
 
-    /**
-     * Because we are not using BigDecimal, compare with tolerance
-     */
-    private boolean compare(final double a, final double b, double tolerance) {
-        return Math.abs(a - b) <= tolerance || Double.valueOf(a).equals(b);
+    private ShortestPath shortestPath(final FlightGraph graph, final int target, final SearchWorkspace workspace,
+                                      final int settled) {
+        return new ShortestPath(workspace.routeIds(graph, target), workspace.distance(target), settled);
     }
 }
@@ -0,0 +1,128 @@
+package com.example.airmin.service.shortestpath;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap of {@code int} nodes with {@code double} keys.
+ * <p>
+ * A node to heap position map gives {@code O(log_d n)} decrease-key, so every node is queued at most once. Higher
+ * arity makes the heap shallower (cheaper decrease-key, which dominates on dense hubs) at the cost of more
+ * comparisons per poll.
+ */
+public class IndexedDaryHeap implements NodeQueue {
+
+    private final int arity;
+    private int[] heap = new int[64];
+    private double[] keys = new double[64];
+    /**
+     * Heap position of a node, {@code -1} when node is not queued
+     */
+    private int[] positions = new int[0];
+    private int size;
+
+    public IndexedDaryHeap(final int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException(String.format("Heap arity must be at least 2, was %d", arity));
+        }
+        this.arity = arity;
+    }
+
+    @Override
+    public void offer(final int node, final double key) {
+        final int position = positions[node];
+        if (position >= 0) {
+            if (key < keys[position]) {
+                siftUp(position, node, key);
+            }
+            return;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        siftUp(size++, node, key);
+    }
+
+    @Override
+    public int poll() {
+        final int top = heap[0];
+        positions[top] = -1;
+        if (--size > 0) {
+            siftDown(0, heap[size], keys[size]);
+        }
+        return top;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public double minKey() {
+        return keys[0];
+    }
+
+    @Override
+    public void reset(final int nodeCount) {
+        if (positions.length < nodeCount) {
+            positions = new int[nodeCount];
+            Arrays.fill(positions, -1);
+        } else {
+            for (int i = 0; i < size; i++) {
+                positions[heap[i]] = -1;
+            }
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Move {@code node} up from {@code position} (a hole) until its parent is not greater
+     */
+    private void siftUp(int position, final int node, final double key) {
+        while (position > 0) {
+            final int parent = (position - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(position, heap[parent], keys[parent]);
+            position = parent;
+        }
+        place(position, node, key);
+    }
+
+    /**
+     * Move {@code node} down from {@code position} (a hole) until none of its children is smaller
+     */
+    private void siftDown(int position, final int node, final double key) {
+        while (true) {
+            final int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int smallest = firstChild;
+            for (int child = firstChild + 1, end = Math.min(firstChild + arity, size); child < end; child++) {
+                if (keys[child] < keys[smallest]) {
+                    smallest = child;
+                }
+            }
+            if (keys[smallest] >= key) {
+                break;
+            }
+            place(position, heap[smallest], keys[smallest]);
+            position = smallest;
+        }
+        place(position, node, key);
+    }
+
+    private void place(final int position, final int node, final double key) {
+        heap[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Yen's k cheapest loopless paths from any source to any target airport.
+ * <p>
+ * Paths are sequences of edges, so itineraries differing only in one of several parallel routes (e.g. another
+ * airline) are distinct. Paths start at a virtual super source connected to all source airports, so a path may pass
+ * through another airport of the source city. Every next path deviates from an already found one: for each prefix
+ * (root) of the previous path, a spur search from the root's end avoids the root's airports and the edges that found
+ * paths with the same root continue with. Following Lawler, prefixes shorter than the previous path's own deviation
+ * are skipped since they were already explored.
+ * <p>
+ * Spur searches are A* over pooled {@link SearchWorkspace}s, guided by the {@link LandmarkTable} when it is ready
+ * (bounds stay admissible when airports and edges are removed), and a spur search stops once it can no longer beat the
+ * candidates already good enough to fill the result.
+ */
+@Service
+public class KShortestPaths {
+
+    private final LandmarkStore landmarkStore;
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public KShortestPaths(final LandmarkStore landmarkStore, final RouteDiscoveryProperties properties) {
+        this(landmarkStore, properties.getQueue(), properties.getHeapArity());
+    }
+
+    public KShortestPaths(final LandmarkStore landmarkStore, final QueueType queueType, final int heapArity) {
+        this.landmarkStore = landmarkStore;
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    /**
+     * @param graph   flight graph
+     * @param sources source airports
+     * @param targets destination airports
+     * @param k       number of paths
+     * @return up to {@code k} cheapest loopless paths ordered by price
+     */
+    public List<ShortestPath> cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets,
+                                       final int k) {
+        if (k <= 0 || sources.length == 0 || targets.length == 0) {
+            return Collections.emptyList();
+        }
+        // landmarks are only prepared when ALT is used, don't trigger building them here
+        final AStar.LowerBound bound = landmarkStore == null ? node -> 0 : landmarkStore.find(graph)
+                .map(table -> LandmarkAStar.lowerBound(table, sources, targets))
+                .orElse(node -> 0);
+
+        final Search search = new Search(graph, targets, bound);
+        final Path first = search.spur(sources, null, 0, new int[0], Double.POSITIVE_INFINITY);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+
+        final List<Path> found = new ArrayList<>();
+        // ordered by price, only as many as can still make it to the result
+        final List<Path> candidates = new ArrayList<>();
+        final Set<List<Integer>> known = new HashSet<>();
+        found.add(first);
+        known.add(first.key());
+        while (found.size() < k) {
+            final Path previous = found.get(found.size() - 1);
+            final int needed = k - found.size();
+            for (int i = previous.deviation; i <= previous.edges.length; i++) {
+                // a spur path is useless unless it beats the worst candidate that would make it to the result
+                final double limit = candidates.size() < needed ? Double.POSITIVE_INFINITY
+                        : candidates.get(needed - 1).price;
+                final Path candidate = i == 0
+                        ? search.spur(unusedStarts(found, sources), previous, 0, new int[0], limit)
+                        : search.spur(new int[]{previous.node(graph, i - 1)}, previous, i,
+                        bannedEdges(found, previous, i - 1), limit);
+                if (candidate != null && known.add(candidate.key())) {
+                    insert(candidates, candidate, needed);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.remove(0));
+        }
+
+        final List<ShortestPath> paths = new ArrayList<>(found.size());
+        for (final Path path : found) {
+            final long[] routeIds = new long[path.edges.length];
+            for (int i = 0; i < routeIds.length; i++) {
+                routeIds[i] = graph.routeId(path.edges[i]);
+            }
+            // settled airports of all spur searches of the query
+            paths.add(new ShortestPath(routeIds, path.price, search.settled));
+        }
+        return paths;
+    }
+
+    private static void insert(final List<Path> candidates, final Path candidate, final int limit) {
+        int index = candidates.size();
+        while (index > 0 && candidates.get(index - 1).price > candidate.price) {
+            index--;
+        }
+        candidates.add(index, candidate);
+        if (candidates.size() > limit) {
+            candidates.remove(candidates.size() - 1);
+        }
+    }
+
+    /**
+     * @return sources no found path starts from
+     */
+    private static int[] unusedStarts(final List<Path> found, final int[] sources) {
+        return Arrays.stream(sources).filter(source -> found.stream().noneMatch(path -> path.start == source))
+                .toArray();
+    }
+
+    /**
+     * @return edges following the first {@code length} edges in found paths sharing the start and that root with
+     * {@code path}
+     */
+    private static int[] bannedEdges(final List<Path> found, final Path path, final int length) {
+        int[] banned = new int[found.size()];
+        int count = 0;
+        for (final Path other : found) {
+            if (other.start == path.start && other.edges.length > length
+                    && Arrays.equals(other.edges, 0, length, path.edges, 0, length)) {
+                banned[count++] = other.edges[length];
+            }
+        }
+        return Arrays.copyOf(banned, count);
+    }
+
+    private final class Search {
+        private final FlightGraph graph;
+        private final int[] targets;
+        private final AStar.LowerBound bound;
+        private int settled;
+
+        private Search(final FlightGraph graph, final int[] targets, final AStar.LowerBound bound) {
+            this.graph = graph;
+            this.targets = targets;
+            this.bound = bound;
+        }
+
+        /**
+         * A* from {@code starts}, avoiding {@code bannedEdges} leaving the start and the airports of the root: the
+         * first {@code rootLength - 1} edges of {@code root}
+         *
+         * @param rootLength {@code 0} when the spur starts at the (virtual) super source, otherwise number of root
+         *                   airports
+         * @param limit      price the joined path must be lower than
+         * @return root joined with the cheapest spur path, {@code null} when no target is reachable within limit
+         */
+        private Path spur(final int[] starts, final Path root, final int rootLength, final int[] bannedEdges,
+                          final double limit) {
+            double rootPrice = 0;
+            for (int i = 0; i < rootLength - 1; i++) {
+                rootPrice += graph.price(root.edges[i]);
+            }
+            try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+                workspace.markTargets(targets);
+                // airports of the root are pre-settled, so the spur path can't go through them
+                for (int i = 0; i < rootLength - 1; i++) {
+                    workspace.settle(graph.source(root.edges[i]));
+                }
+
+                final NodeQueue queue = workspace.queue(queueType, heapArity);
+                for (final int start : starts) {
+                    workspace.reach(start, 0, -1);
+                    queue.offer(start, 0);
+                }
+
+                while (!queue.isEmpty() && rootPrice + queue.minKey() < limit) {
+                    final int node = queue.poll();
+                    if (workspace.isSettled(node)) {
+                        continue;
+                    }
+                    workspace.settle(node);
+                    settled++;
+                    if (workspace.isTarget(node)) {
+                        return join(root, rootLength, rootPrice, workspace, node);
+                    }
+
+                    final double distance = workspace.distance(node);
+                    final boolean start = workspace.predecessor(node) == -1;
+                    for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                        final int neighbour = graph.target(e);
+                        if (workspace.isSettled(neighbour) || start && contains(bannedEdges, e)) {
+                            continue;
+                        }
+                        final double nDistance = distance + graph.price(e);
+                        if (nDistance < workspace.distance(neighbour)) {
+                            if (!workspace.hasPotential(neighbour)) {
+                                workspace.setPotential(neighbour,
+                                        workspace.isTarget(neighbour) ? 0 : bound.of(neighbour));
+                            }
+                            if (workspace.potential(neighbour) < Double.POSITIVE_INFINITY) {
+                                // predecessor is the edge, parallel routes make distinct paths
+                                workspace.reach(neighbour, nDistance, e);
+                                queue.offer(neighbour, nDistance + workspace.potential(neighbour));
+                            }
+                        }
+                    }
+                }
+                return null;
+            }
+        }
+
+        private Path join(final Path root, final int rootLength, final double rootPrice,
+                          final SearchWorkspace workspace, final int target) {
+            final int rootEdges = Math.max(0, rootLength - 1);
+            int spurEdges = 0;
+            int start = target;
+            while (workspace.predecessor(start) != -1) {
+                start = graph.source(workspace.predecessor(start));
+                spurEdges++;
+            }
+
+            final int[] edges = new int[rootEdges + spurEdges];
+            if (rootEdges > 0) {
+                System.arraycopy(root.edges, 0, edges, 0, rootEdges);
+            }
+            int node = target;
+            for (int i = edges.length - 1; i >= rootEdges; i--) {
+                edges[i] = workspace.predecessor(node);
+                node = graph.source(edges[i]);
+            }
+            return new Path(rootLength == 0 ? start : root.start, edges, rootPrice + workspace.distance(target),
+                    rootLength);
+        }
+    }
+
+    private static boolean contains(final int[] values, final int value) {
+        for (final int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Path from the virtual super source over {@code start} and {@code edges}. Deviation indexes count the super
+     * source: {@code 0} is the super source itself, {@code i > 0} is the {@code (i - 1)}-th airport of the path.
+     */
+    private static final class Path {
+        private final int start;
+        private final int[] edges;
+        private final double price;
+        /**
+         * Index of the node where this path deviates from the path it was derived from
+         */
+        private final int deviation;
+
+        private Path(final int start, final int[] edges, final double price, final int deviation) {
+            this.start = start;
+            this.edges = edges;
+            this.price = price;
+            this.deviation = deviation;
+        }
+
+        /**
+         * @return {@code index}-th airport of the path
+         */
+        private int node(final FlightGraph graph, final int index) {
+            return index == 0 ? start : graph.target(edges[index - 1]);
+        }
+
+        private List<Integer> key() {
+            final List<Integer> key = new ArrayList<>(edges.length + 1);
+            key.add(start);
+            for (final int edge : edges) {
+                key.add(edge);
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+import lombok.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * ALT: {@link AStar} guided by {@link LandmarkTable} bounds instead of geography, so it works even where prices don't
+ * follow distance.
+ * <p>
+ * Each query uses only the {@link #ACTIVE_LANDMARKS} landmarks giving the best bounds at the first source airport,
+ * which keeps bound evaluation cheap. While the table of the current graph is being built, queries are answered by
+ * {@link BidirectionalDijkstra}.
+ */
+@Service
+public class LandmarkAStar implements ShortestPathEngine {
+
+    static final int ACTIVE_LANDMARKS = 4;
+
+    private final LandmarkStore store;
+    private final AStar aStar;
+    private final BidirectionalDijkstra fallback;
+
+    public LandmarkAStar(final LandmarkStore store, final AStar aStar, final BidirectionalDijkstra fallback) {
+        this.store = store;
+        this.aStar = aStar;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Algorithm algorithm() {
+        return Algorithm.ALT;
+    }
+
+    @Override
+    public void prepare(@NonNull FlightGraph graph) {
+        store.prepare(graph);
+    }
+
+    @Override
+    public void awaitPrepared(@NonNull FlightGraph graph) {
+        store.get(graph);
+    }
+
+    @Override
+    public void update(final long baseFingerprint, @NonNull FlightGraph graph, @NonNull GraphDelta delta) {
+        store.update(baseFingerprint, graph, delta);
+    }
+
+    @Override
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        final Optional<LandmarkTable> table = store.find(graph);
+        if (table.isPresent()) {
+            return cheapest(table.get(), graph, sources, targets);
+        }
+        return fallback.cheapest(graph, sources, targets);
+    }
+
+    /**
+     * @param table   landmarks of {@code graph}
+     * @param graph   flight graph
+     * @param sources source airports
+     * @param targets destination airports
+     * @return cheapest path from any source to any target
+     */
+    public ShortestPath cheapest(@NonNull LandmarkTable table, @NonNull FlightGraph graph, @NonNull int[] sources,
+                                 @NonNull int[] targets) {
+        return aStar.search(graph, sources, targets, lowerBound(table, sources, targets));
+    }
+
+    /**
+     * @return landmark bound of the price to the closest of {@code targets}, using the landmarks best at the first
+     * of {@code sources}
+     */
+    static AStar.LowerBound lowerBound(final LandmarkTable table, final int[] sources, final int[] targets) {
+        if (sources.length == 0 || targets.length == 0) {
+            return node -> 0;
+        }
+        final int[] active = activeLandmarks(table, sources[0], targets);
+        return node -> lowerBound(table, active, node, targets);
+    }
+
+    /**
+     * @return landmarks with the highest bounds at {@code source}
+     */
+    private static int[] activeLandmarks(final LandmarkTable table, final int source, final int[] targets) {
+        final int count = table.landmarkCount();
+        final double[] bounds = new double[count];
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            bounds[i] = Double.POSITIVE_INFINITY;
+            for (final int target : targets) {
+                bounds[i] = Math.min(bounds[i], table.lowerBound(source, target, i));
+            }
+        }
+        final int active = Math.min(ACTIVE_LANDMARKS, count);
+        // partial selection sort, there are only a few landmarks
+        for (int i = 0; i < active; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (bounds[order[j]] > bounds[order[best]]) {
+                    best = j;
+                }
+            }
+            final int swap = order[i];
+            order[i] = order[best];
+            order[best] = swap;
+        }
+        final int[] landmarks = new int[active];
+        System.arraycopy(order, 0, landmarks, 0, active);
+        return landmarks;
+    }
+
+    /**
+     * @return lower bound of the price from {@code node} to the closest target
+     */
+    private static double lowerBound(final LandmarkTable table, final int[] landmarks, final int node,
+                                     final int[] targets) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (final int target : targets) {
+            double bound = 0;
+            for (final int landmark : landmarks) {
+                bound = Math.max(bound, table.lowerBound(node, target, landmark));
+            }
+            closest = Math.min(closest, bound);
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link LandmarkTable} of the current {@link FlightGraph}
+ */
+@Component
+@Log4j2
+public class LandmarkStore extends PreprocessedGraphStore<LandmarkTable> {
+
+    private final int landmarks;
+
+    public LandmarkStore(final RouteDiscoveryProperties properties) {
+        super("landmarks");
+        this.landmarks = properties.getLandmarks();
+    }
+
+    @Override
+    protected LandmarkTable preprocess(final FlightGraph graph) {
+        final long start = System.nanoTime();
+        final LandmarkTable table = LandmarkTable.build(graph, landmarks);
+        log.info("{} landmarks selected in {} ms", table.landmarkCount(), (System.nanoTime() - start) / 1_000_000);
+        return table;
+    }
+
+    @Override
+    protected LandmarkTable update(final LandmarkTable previous, final FlightGraph graph, final GraphDelta delta) {
+        final long start = System.nanoTime();
+        final LandmarkTable table = previous.update(graph, delta);
+        log.info("Landmarks updated with {} route changes in {} ms", delta.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return table;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Cheapest prices from and to a few landmark airports, for ALT (A*, landmarks, triangle inequality) lower bounds.
+ * <p>
+ * For a landmark {@code L}, the price from {@code v} to {@code t} is at least {@code d(L, t) - d(L, v)} and
+ * {@code d(v, L) - d(t, L)}. Landmarks are chosen farthest-first, starting from the airport with most routes, so
+ * they lie on the outskirts of the network where the bounds are tight. Prices are stored node-major
+ * ({@code [node * landmarks + i]}) so all landmarks of a node share a cache line.
+ */
+public final class LandmarkTable {
+
+    private final long fingerprint;
+    private final int[] landmarks;
+    private final double[] fromLandmark;
+    private final double[] toLandmark;
+
+    private LandmarkTable(final long fingerprint, final int[] landmarks, final double[] fromLandmark,
+                          final double[] toLandmark) {
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * @param graph flight graph
+     * @param count number of landmarks, fewer are chosen when the graph has fewer reachable airports
+     * @return landmark table of {@code graph}
+     */
+    public static LandmarkTable build(final FlightGraph graph, final int count) {
+        final int nodes = graph.nodeCount();
+        final int[] chosen = new int[Math.min(count, nodes)];
+        final double[][] from = new double[chosen.length][];
+        final double[][] to = new double[chosen.length][];
+        // sum of prices to and from the closest chosen landmark
+        final double[] separation = new double[nodes];
+        Arrays.fill(separation, Double.POSITIVE_INFINITY);
+
+        int landmarks = 0;
+        int next = busiest(graph);
+        while (next != -1 && landmarks < chosen.length) {
+            chosen[landmarks] = next;
+            from[landmarks] = cheapestPrices(graph, next, true);
+            to[landmarks] = cheapestPrices(graph, next, false);
+            next = -1;
+            for (int node = 0; node < nodes; node++) {
+                separation[node] = Math.min(separation[node], from[landmarks][node] + to[landmarks][node]);
+                if (separation[node] < Double.POSITIVE_INFINITY && separation[node] > 0
+                        && (next == -1 || separation[node] > separation[next])) {
+                    next = node;
+                }
+            }
+            landmarks++;
+        }
+
+        final double[] fromLandmark = new double[nodes * landmarks];
+        final double[] toLandmark = new double[nodes * landmarks];
+        for (int node = 0; node < nodes; node++) {
+            for (int i = 0; i < landmarks; i++) {
+                fromLandmark[node * landmarks + i] = from[i][node];
+                toLandmark[node * landmarks + i] = to[i][node];
+            }
+        }
+        return new LandmarkTable(graph.fingerprint(), Arrays.copyOf(chosen, landmarks), fromLandmark, toLandmark);
+    }
+
+    /**
+     * Table of {@code graph}, derived from the graph of this table by {@code delta}, with the same landmarks.
+     * <p>
+     * Bounds don't need exact prices, only prices consistent with every route: {@code d(L, v) <= d(L, u) + p} for a
+     * route from {@code u} to {@code v} with price {@code p} (and the same towards the landmark). Removed and more
+     * expensive routes keep the stored prices consistent, their bounds just get looser. Added and cheaper routes are
+     * made consistent by a Dijkstra search seeded with the airports they improve, which only visits airports whose
+     * price drops.
+     *
+     * @param graph graph of this table with {@code delta} applied
+     * @param delta changed routes
+     * @return updated table, this one is left unchanged
+     */
+    public LandmarkTable update(final FlightGraph graph, final GraphDelta delta) {
+        final int k = landmarks.length;
+        if (fromLandmark.length != graph.nodeCount() * k) {
+            throw new IllegalArgumentException("Airports of the graph differ from airports of the landmark table");
+        }
+        final int[] changed = changedEdges(graph, delta);
+        final double[] from = fromLandmark.clone();
+        final double[] to = toLandmark.clone();
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            for (int i = 0; i < k; i++) {
+                propagate(graph, changed, from, k, i, true, workspace.queue(QueueType.DARY_HEAP, 4));
+                propagate(graph, changed, to, k, i, false, workspace.queue(QueueType.DARY_HEAP, 4));
+            }
+        }
+        return new LandmarkTable(graph.fingerprint(), landmarks, from, to);
+    }
+
+    /**
+     * @return edges of added and repriced routes in {@code graph}
+     */
+    private static int[] changedEdges(final FlightGraph graph, final GraphDelta delta) {
+        final IntStream.Builder edges = IntStream.builder();
+        for (final GraphDelta.Edge added : delta.getAdded()) {
+            final int source = graph.nodeOf(added.getSourceAirportId());
+            if (source < 0) {
+                continue;
+            }
+            for (int e = graph.firstEdge(source), end = graph.endEdge(source); e < end; e++) {
+                if (graph.routeId(e) == added.getRouteId()) {
+                    edges.add(e);
+                }
+            }
+        }
+        if (!delta.getRepriced().isEmpty()) {
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (delta.getRepriced().containsKey(graph.routeId(e))) {
+                    edges.add(e);
+                }
+            }
+        }
+        return edges.build().toArray();
+    }
+
+    /**
+     * Lower prices of the {@code i}-th landmark until they are consistent with every route again
+     */
+    private static void propagate(final FlightGraph graph, final int[] changed, final double[] prices, final int k,
+                                  final int i, final boolean forward, final NodeQueue queue) {
+        for (final int edge : changed) {
+            final int from = forward ? graph.source(edge) : graph.target(edge);
+            final int to = forward ? graph.target(edge) : graph.source(edge);
+            final double price = prices[from * k + i] + graph.price(edge);
+            if (price < prices[to * k + i]) {
+                prices[to * k + i] = price;
+                queue.offer(to, price);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            final double distance = prices[node * k + i];
+            final int first = forward ? graph.firstEdge(node) : graph.firstArrival(node);
+            final int end = forward ? graph.endEdge(node) : graph.endArrival(node);
+            for (int j = first; j < end; j++) {
+                final int edge = forward ? j : graph.arrival(j);
+                final int neighbour = forward ? graph.target(edge) : graph.source(edge);
+                final double nDistance = distance + graph.price(edge);
+                if (nDistance < prices[neighbour * k + i]) {
+                    prices[neighbour * k + i] = nDistance;
+                    queue.offer(neighbour, nDistance);
+                }
+            }
+        }
+    }
+
+    private static int busiest(final FlightGraph graph) {
+        int busiest = -1;
+        int routes = 0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            final int nodeRoutes = graph.endEdge(node) - graph.firstEdge(node)
+                    + graph.endArrival(node) - graph.firstArrival(node);
+            if (nodeRoutes > routes) {
+                busiest = node;
+                routes = nodeRoutes;
+            }
+        }
+        return busiest;
+    }
+
+    /**
+     * Dijkstra over the whole graph: prices from {@code landmark} over departures or to it over arrivals
+     */
+    private static double[] cheapestPrices(final FlightGraph graph, final int landmark, final boolean forward) {
+        final double[] prices = new double[graph.nodeCount()];
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            final NodeQueue queue = workspace.queue(QueueType.DARY_HEAP, 4);
+            workspace.reach(landmark, 0, -1);
+            queue.offer(landmark, 0);
+            while (!queue.isEmpty()) {
+                final int node = queue.poll();
+                if (workspace.isSettled(node)) {
+                    continue;
+                }
+                workspace.settle(node);
+                final double distance = workspace.distance(node);
+                final int first = forward ? graph.firstEdge(node) : graph.firstArrival(node);
+                final int end = forward ? graph.endEdge(node) : graph.endArrival(node);
+                for (int i = first; i < end; i++) {
+                    final int edge = forward ? i : graph.arrival(i);
+                    final int neighbour = forward ? graph.target(edge) : graph.source(edge);
+                    final double nDistance = distance + graph.price(edge);
+                    if (nDistance < workspace.distance(neighbour)) {
+                        workspace.reach(neighbour, nDistance, node);
+                        queue.offer(neighbour, nDistance);
+                    }
+                }
+            }
+            for (int node = 0; node < prices.length; node++) {
+                prices[node] = workspace.distance(node);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * @return {@link FlightGraph#fingerprint()} of the graph this table was built for
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int landmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * @return node of the {@code i}-th landmark
+     */
+    public int landmark(final int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * @return lower bound of the price from {@code node} to {@code target} using the {@code i}-th landmark,
+     * {@link Double#POSITIVE_INFINITY} when {@code target} is provably unreachable
+     */
+    public double lowerBound(final int node, final int target, final int i) {
+        final int k = landmarks.length;
+        final double viaFrom = fromLandmark[target * k + i] - fromLandmark[node * k + i];
+        final double viaTo = toLandmark[node * k + i] - toLandmark[target * k + i];
+        // NaN when both prices are infinite: the landmark tells nothing
+        return Math.max(0, Math.max(Double.isNaN(viaFrom) ? 0 : viaFrom, Double.isNaN(viaTo) ? 0 : viaTo));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.airmin.service.shortestpath;
+
+import java.util.PriorityQueue;
+
+/**
+ * {@link NodeQueue} backed by {@link PriorityQueue}. There is no decrease-key, so stale entries stay in the queue
+ * until they are polled.
+ */
+public class LazyPriorityQueue implements NodeQueue {
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    @Override
+    public void offer(final int node, final double key) {
+        queue.add(new Entry(node, key));
+    }
+
+    @Override
+    public int poll() {
+        return queue.remove().node;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public double minKey() {
+        return queue.element().key;
+    }
+
+    @Override
+    public void reset(final int nodeCount) {
+        queue.clear();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final int node;
+        private final double key;
+
+        private Entry(final int node, final double key) {
+            this.node = node;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(final Entry o) {
+            return Double.compare(key, o.key);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cheapest path taking at most {@code maxLegs} routes: Dijkstra over the layered graph of (airport, legs taken)
+ * states.
+ * <p>
+ * Edges lead from layer {@code h} to layer {@code h + 1} and nothing leaves the last layer, so the leg limit prunes
+ * the search instead of filtering its results. A state is dominated once its airport was settled in a lower layer (with
+ * fewer legs and, settled earlier, no higher price), so settling an airport settles it in all higher layers too and no
+ * airport is expanded more than {@code maxLegs} times. State {@code (airport, h)} has id {@code h * nodeCount + airport},
+ * which lets a pooled {@link SearchWorkspace} hold the search state.
+ */
+@Service
+public class LegLimitedSearch {
+
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public LegLimitedSearch(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
+
+    public LegLimitedSearch(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    /**
+     * @param graph   flight graph
+     * @param sources source airports
+     * @param targets destination airports
+     * @param maxLegs maximum number of routes of the path
+     * @return cheapest path with at most {@code maxLegs} routes, {@link ShortestPath#none(int)} when there is none
+     */
+    public ShortestPath cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets,
+                                 final int maxLegs) {
+        if (maxLegs < 0) {
+            throw new IllegalArgumentException("Maximum number of legs must not be negative");
+        }
+        final int nodes = graph.nodeCount();
+        final int layers = maxLegs + 1;
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(Math.multiplyExact(nodes, layers))) {
+            // targets are marked in layer 0, states are checked by their airport
+            workspace.markTargets(targets);
+
+            final NodeQueue queue = workspace.queue(queueType, heapArity);
+            for (final int s : sources) {
+                workspace.reach(s, 0, -1);
+                queue.offer(s, 0);
+            }
+
+            int settled = 0;
+            while (!queue.isEmpty()) {
+                final int state = queue.poll();
+                if (workspace.isSettled(state)) {
+                    // stale or dominated entry
+                    continue;
+                }
+                final int node = state % nodes;
+                final int legs = state / nodes;
+                for (int layer = legs; layer < layers && !workspace.isSettled(layer * nodes + node); layer++) {
+                    workspace.settle(layer * nodes + node);
+                }
+                settled++;
+                if (workspace.isTarget(node)) {
+                    return shortestPath(graph, state, workspace, settled);
+                }
+                if (legs == maxLegs) {
+                    continue;
+                }
+
+                final double distance = workspace.distance(state);
+                final int nextLayer = (legs + 1) * nodes;
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = nextLayer + graph.target(e);
+                    if (workspace.isSettled(neighbour)) {
+                        continue;
+                    }
+                    final double nDistance = distance + graph.price(e);
+                    if (nDistance < workspace.distance(neighbour)) {
+                        // predecessor is the edge, the previous state is its source in the previous layer
+                        workspace.reach(neighbour, nDistance, e);
+                        queue.offer(neighbour, nDistance);
+                    }
+                }
+            }
+
+            return ShortestPath.none(settled);
+        }
+    }
+
+    private ShortestPath shortestPath(final FlightGraph graph, final int target, final SearchWorkspace workspace,
+                                      final int settled) {
+        final int nodes = graph.nodeCount();
+        final long[] routeIds = new long[target / nodes];
+        int state = target;
+        for (int leg = routeIds.length - 1; leg >= 0; leg--) {
+            final int edge = workspace.predecessor(state);
+            routeIds[leg] = graph.routeId(edge);
+            state = leg * nodes + graph.source(edge);
+        }
+        return new ShortestPath(routeIds, workspace.distance(target), settled);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Cheapest price table from many sources to many destinations: one {@link OneToManySearch} per source, fanned out
+ * over a dedicated {@link ForkJoinPool}. Searches of a worker thread reuse its pooled {@link SearchWorkspace}s, so
+ * the table is computed without per-row allocation of search state.
+ */
+@Service
+public class ManyToManySearch {
+
+    private final OneToManySearch oneToManySearch;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public ManyToManySearch(final OneToManySearch oneToManySearch, final RouteDiscoveryProperties properties) {
+        this(oneToManySearch, properties.getTableParallelism());
+    }
+
+    /**
+     * @param parallelism number of threads, all available processors when not positive
+     */
+    public ManyToManySearch(final OneToManySearch oneToManySearch, final int parallelism) {
+        this.oneToManySearch = oneToManySearch;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compute the table row by row, handing every row to {@code consumer} as soon as it is ready. Rows are computed in
+     * parallel and arrive in no particular order; the call returns once all rows were consumed
+     *
+     * @param graph    flight graph
+     * @param sources  airports of every source
+     * @param targets  airports of every destination
+     * @param consumer receives rows, from pool threads but never concurrently
+     */
+    public void table(@NonNull FlightGraph graph, @NonNull int[][] sources, @NonNull int[][] targets,
+                      @NonNull RowConsumer consumer) {
+        final Object lock = new Object();
+        try {
+            pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(row -> {
+                final ShortestPath[] paths = oneToManySearch.cheapest(graph, sources[row], targets, false);
+                final double[] prices = new double[paths.length];
+                for (int i = 0; i < prices.length; i++) {
+                    prices[i] = paths[i].getPrice();
+                }
+                synchronized (lock) {
+                    consumer.accept(row, prices);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Fare table computation was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Receiver of computed table rows
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+
+        /**
+         * @param row    index of the source
+         * @param prices price to every destination in the order of the targets, {@link Double#POSITIVE_INFINITY}
+         *               when not reachable
+         */
+        void accept(int row, double[] prices);
+    }
+}
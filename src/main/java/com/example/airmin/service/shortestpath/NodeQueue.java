@@ -0,0 +1,37 @@
+package com.example.airmin.service.shortestpath;
+
+/**
+ * Min-priority queue of graph nodes keyed by tentative distance
+ */
+public interface NodeQueue {
+
+    /**
+     * Insert {@code node} or lower its key when it is already queued
+     *
+     * @param node node id
+     * @param key  distance
+     */
+    void offer(int node, double key);
+
+    /**
+     * Remove node with the lowest key. Implementations without decrease-key may return a node more than once, callers
+     * should skip already settled nodes.
+     *
+     * @return node id
+     */
+    int poll();
+
+    boolean isEmpty();
+
+    /**
+     * @return the lowest key in the queue; may underestimate it when stale entries are kept
+     */
+    double minKey();
+
+    /**
+     * Empty the queue and make room for node ids lower than {@code nodeCount}
+     *
+     * @param nodeCount number of nodes of the searched graph
+     */
+    void reset(int nodeCount);
+}
@@ -0,0 +1,123 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * Cheapest paths from one set of source airports to many destinations, answered by a single Dijkstra search that
+ * grows one shortest path tree and stops as soon as every destination has a settled airport.
+ * <p>
+ * A destination is a group of airports (e.g. all airports of a city), the first settled airport of a group is its
+ * cheapest one. Predecessor edges are stored in the {@link SearchWorkspace}, so paths are only unpacked when asked
+ * for, in time proportional to their length.
+ */
+@Service
+public class OneToManySearch {
+
+    private final QueueType queueType;
+    private final int heapArity;
+
+    @Autowired
+    public OneToManySearch(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity());
+    }
+
+    public OneToManySearch(final QueueType queueType, final int heapArity) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+    }
+
+    /**
+     * @param graph      flight graph
+     * @param sources    source airports
+     * @param targets    airports of every destination
+     * @param withRoutes whether to unpack the routes of found paths, otherwise only prices are set
+     * @return cheapest path for every destination in the order of {@code targets}, {@link ShortestPath#none(int)}
+     * for unreachable ones; {@link ShortestPath#getSettled()} counts airports settled by the whole search
+     */
+    public ShortestPath[] cheapest(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[][] targets,
+                                   final boolean withRoutes) {
+        // (node, destination) pairs sorted by node, to find destinations of a settled target airport
+        int pairs = 0;
+        for (final int[] group : targets) {
+            pairs += group.length;
+        }
+        final long[] targetPairs = new long[pairs];
+        pairs = 0;
+        for (int destination = 0; destination < targets.length; destination++) {
+            for (final int node : targets[destination]) {
+                targetPairs[pairs++] = (long) node << 32 | destination;
+            }
+        }
+        Arrays.sort(targetPairs);
+
+        final int[] reachedAt = new int[targets.length];
+        Arrays.fill(reachedAt, -1);
+        int remaining = (int) Arrays.stream(targets).filter(group -> group.length > 0).count();
+
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+            for (final int[] group : targets) {
+                workspace.markTargets(group);
+            }
+
+            final NodeQueue queue = workspace.queue(queueType, heapArity);
+            for (final int s : sources) {
+                workspace.reach(s, 0, -1);
+                queue.offer(s, 0);
+            }
+
+            int settled = 0;
+            while (remaining > 0 && !queue.isEmpty()) {
+                final int node = queue.poll();
+                if (workspace.isSettled(node)) {
+                    continue;
+                }
+                workspace.settle(node);
+                settled++;
+                if (workspace.isTarget(node)) {
+                    for (int i = firstPair(targetPairs, node); i < targetPairs.length
+                            && (int) (targetPairs[i] >>> 32) == node; i++) {
+                        final int destination = (int) targetPairs[i];
+                        if (reachedAt[destination] == -1) {
+                            reachedAt[destination] = node;
+                            remaining--;
+                        }
+                    }
+                }
+
+                final double distance = workspace.distance(node);
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = graph.target(e);
+                    final double nDistance = distance + graph.price(e);
+                    if (nDistance < workspace.distance(neighbour)) {
+                        workspace.reach(neighbour, nDistance, e);
+                        queue.offer(neighbour, nDistance);
+                    }
+                }
+            }
+
+            final ShortestPath[] paths = new ShortestPath[targets.length];
+            for (int destination = 0; destination < targets.length; destination++) {
+                final int target = reachedAt[destination];
+                if (target == -1) {
+                    paths[destination] = ShortestPath.none(settled);
+                } else {
+                    paths[destination] = new ShortestPath(withRoutes ? workspace.routeIds(graph, target)
+                            : new long[0], workspace.distance(target), settled);
+                }
+            }
+            return paths;
+        }
+    }
+
+    private static int firstPair(final long[] targetPairs, final int node) {
+        final int index = Arrays.binarySearch(targetPairs, (long) node << 32);
+        return index < 0 ? -index - 1 : index;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.example.airmin.service.shortestpath;
+
+import lombok.Getter;
+
+/**
+ * Pareto-optimal path: {@link ShortestPath} with the great-circle distance flown
+ */
+@Getter
+public class ParetoPath extends ShortestPath {
+
+    /**
+     * Sum of great-circle distances of the routes in kilometres
+     */
+    private final double distanceKm;
+
+    public ParetoPath(final long[] routeIds, final double price, final double distanceKm, final int settled) {
+        super(routeIds, price, settled);
+        this.distanceKm = distanceKm;
+    }
+
+    public int getLegs() {
+        return getRouteIds().length;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Multi-criteria label-setting search (Martins' algorithm) for all Pareto-optimal paths by price, number of legs and
+ * great-circle distance flown.
+ * <p>
+ * A label is a path to an airport with its three criteria. Three backward single-criterion searches from the targets
+ * first give the exact remaining price, legs and distance of every airport. Labels are settled in lexicographic order
+ * of (price plus remaining price, legs, distance), so a label is final once no settled label of its airport dominates
+ * it. Labels are pruned when a target label dominates them even after adding the remaining criteria (target pruning)
+ * and when the remaining legs exceed the leg limit, which also discards airports that can't reach any target. Labels
+ * live in primitive arrays pooled per thread, settled labels of an airport form a linked list through those arrays.
+ * <p>
+ * Distance of routes whose airport coordinates are unknown counts as {@code 0}.
+ */
+@Service
+public class ParetoSearch {
+
+    private static final ThreadLocal<Labels> LABELS = ThreadLocal.withInitial(Labels::new);
+
+    private final QueueType queueType;
+    private final int heapArity;
+    private final int maxLegs;
+
+    @Autowired
+    public ParetoSearch(final RouteDiscoveryProperties properties) {
+        this(properties.getQueue(), properties.getHeapArity(), properties.getMaxLegs());
+    }
+
+    /**
+     * @param queueType queue of the backward searches
+     * @param heapArity arity of {@link QueueType#DARY_HEAP}
+     * @param maxLegs   paths with more legs are not considered
+     */
+    public ParetoSearch(final QueueType queueType, final int heapArity, final int maxLegs) {
+        this.queueType = queueType;
+        this.heapArity = heapArity;
+        this.maxLegs = maxLegs;
+    }
+
+    /**
+     * @param graph   flight graph
+     * @param sources source airports
+     * @param targets destination airports
+     * @return non-dominated paths (no other path is at most as expensive, as long and with as few legs), ordered by
+     * price; of paths with equal criteria only one is returned
+     */
+    public List<ParetoPath> search(@NonNull FlightGraph graph, @NonNull int[] sources, @NonNull int[] targets) {
+        try (SearchWorkspace remainingPrice = SearchWorkspace.acquire(graph.nodeCount());
+             SearchWorkspace remainingLegs = SearchWorkspace.acquire(graph.nodeCount());
+             SearchWorkspace remainingKm = SearchWorkspace.acquire(graph.nodeCount())) {
+            backward(graph, targets, remainingPrice, graph::price);
+            backward(graph, targets, remainingLegs, edge -> 1);
+            backward(graph, targets, remainingKm, edge -> distanceKm(graph, edge));
+            final Labels labels = LABELS.get().reset(graph.nodeCount(), remainingPrice, remainingLegs, remainingKm);
+            for (final int source : sources) {
+                if (remainingLegs.distance(source) <= maxLegs) {
+                    labels.add(source, 0, 0, 0, -1, -1);
+                }
+            }
+
+            final List<Integer> results = new ArrayList<>();
+            int settled = 0;
+            while (labels.heapSize > 0) {
+                final int label = labels.poll();
+                final int node = labels.node[label];
+                final double price = labels.price[label];
+                final int legs = labels.legs[label];
+                final double flown = labels.distance[label];
+                if (labels.dominatedAt(node, price, legs, flown)
+                        || labels.dominatedByTargets(results, node, price, legs, flown)) {
+                    continue;
+                }
+                labels.settle(label);
+                settled++;
+                if (remainingLegs.isTarget(node)) {
+                    results.add(label);
+                    continue;
+                }
+
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    final int neighbour = graph.target(e);
+                    if (legs + 1 + remainingLegs.distance(neighbour) > maxLegs) {
+                        continue;
+                    }
+                    final double nPrice = price + graph.price(e);
+                    final double nFlown = flown + distanceKm(graph, e);
+                    if (!labels.dominatedAt(neighbour, nPrice, legs + 1, nFlown)
+                            && !labels.dominatedByTargets(results, neighbour, nPrice, legs + 1, nFlown)) {
+                        labels.add(neighbour, nPrice, legs + 1, nFlown, label, e);
+                    }
+                }
+            }
+
+            final List<ParetoPath> paths = new ArrayList<>(results.size());
+            for (final int label : results) {
+                paths.add(labels.path(graph, label, settled));
+            }
+            return paths;
+        }
+    }
+
+    private static double distanceKm(final FlightGraph graph, final int edge) {
+        final double distance = graph.distanceKm(edge);
+        return Double.isNaN(distance) ? 0 : distance;
+    }
+
+    /**
+     * Dijkstra over arrivals from all {@code targets}, leaving the remaining {@code weight} of every airport as its
+     * distance in {@code workspace}
+     */
+    private void backward(final FlightGraph graph, final int[] targets, final SearchWorkspace workspace,
+                          final IntToDoubleFunction weight) {
+        workspace.markTargets(targets);
+        final NodeQueue queue = workspace.queue(queueType, heapArity);
+        for (final int target : targets) {
+            workspace.reach(target, 0, -1);
+            queue.offer(target, 0);
+        }
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            if (workspace.isSettled(node)) {
+                continue;
+            }
+            workspace.settle(node);
+            final double distance = workspace.distance(node);
+            for (int i = graph.firstArrival(node), end = graph.endArrival(node); i < end; i++) {
+                final int edge = graph.arrival(i);
+                final int neighbour = graph.source(edge);
+                final double nDistance = distance + weight.applyAsDouble(edge);
+                if (nDistance < workspace.distance(neighbour)) {
+                    workspace.reach(neighbour, nDistance, edge);
+                    queue.offer(neighbour, nDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Label arrays of one search, reused by the next search of the same thread
+     */
+    private static final class Labels {
+        private int[] node = new int[1024];
+        private double[] price = new double[1024];
+        private int[] legs = new int[1024];
+        private double[] distance = new double[1024];
+        private int[] parent = new int[1024];
+        private int[] edge = new int[1024];
+        private double[] key = new double[1024];
+        /**
+         * Next settled label of the same airport
+         */
+        private int[] next = new int[1024];
+        private int size;
+
+        private int[] heap = new int[1024];
+        private int heapSize;
+
+        private int[] firstSettled = new int[0];
+        private int[] firstSettledSet = new int[0];
+        private int generation;
+
+        private SearchWorkspace remainingPrice;
+        private SearchWorkspace remainingLegs;
+        private SearchWorkspace remainingKm;
+
+        private Labels reset(final int nodeCount, final SearchWorkspace price, final SearchWorkspace legs,
+                             final SearchWorkspace km) {
+            if (firstSettled.length < nodeCount) {
+                firstSettled = new int[nodeCount];
+                firstSettledSet = new int[nodeCount];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(firstSettledSet, 0);
+                generation = 1;
+            }
+            size = 0;
+            heapSize = 0;
+            remainingPrice = price;
+            remainingLegs = legs;
+            remainingKm = km;
+            return this;
+        }
+
+        private int first(final int n) {
+            return firstSettledSet[n] == generation ? firstSettled[n] : -1;
+        }
+
+        private void add(final int n, final double p, final int l, final double d, final int parentLabel,
+                         final int parentEdge) {
+            if (size == node.length) {
+                final int capacity = size * 2;
+                node = Arrays.copyOf(node, capacity);
+                price = Arrays.copyOf(price, capacity);
+                legs = Arrays.copyOf(legs, capacity);
+                distance = Arrays.copyOf(distance, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                edge = Arrays.copyOf(edge, capacity);
+                key = Arrays.copyOf(key, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            node[size] = n;
+            price[size] = p;
+            legs[size] = l;
+            distance[size] = d;
+            parent[size] = parentLabel;
+            edge[size] = parentEdge;
+            key[size] = p + remainingPrice.distance(n);
+            offer(size++);
+        }
+
+        private void settle(final int label) {
+            final int n = node[label];
+            next[label] = first(n);
+            firstSettled[n] = label;
+            firstSettledSet[n] = generation;
+        }
+
+        /**
+         * Settled labels of an airport have no higher price than any label of it still to be settled
+         */
+        private boolean dominatedAt(final int n, final double p, final int l, final double d) {
+            for (int settled = first(n); settled != -1; settled = next[settled]) {
+                if (price[settled] <= p && legs[settled] <= l && distance[settled] <= d) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return whether a target label is at least as good as the label with its exact remaining criteria added
+         */
+        private boolean dominatedByTargets(final List<Integer> results, final int n, final double p, final int l,
+                                           final double d) {
+            final double bestPrice = p + remainingPrice.distance(n);
+            final double bestLegs = l + remainingLegs.distance(n);
+            final double bestKm = d + remainingKm.distance(n);
+            for (final int result : results) {
+                if (price[result] <= bestPrice && legs[result] <= bestLegs && distance[result] <= bestKm) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private ParetoPath path(final FlightGraph graph, final int label, final int settled) {
+            final long[] routeIds = new long[legs[label]];
+            int current = label;
+            for (int leg = routeIds.length - 1; leg >= 0; leg--) {
+                routeIds[leg] = graph.routeId(edge[current]);
+                current = parent[current];
+            }
+            return new ParetoPath(routeIds, price[label], distance[label], settled);
+        }
+
+        /**
+         * Lexicographic order of labels by key, legs and distance
+         */
+        private boolean less(final int a, final int b) {
+            if (key[a] != key[b]) {
+                return key[a] < key[b];
+            }
+            if (legs[a] != legs[b]) {
+                return legs[a] < legs[b];
+            }
+            return distance[a] < distance[b];
+        }
+
+        private void offer(final int label) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                final int parentIndex = (i - 1) >>> 1;
+                if (!less(label, heap[parentIndex])) {
+                    break;
+                }
+                heap[i] = heap[parentIndex];
+                i = parentIndex;
+            }
+            heap[i] = label;
+        }
+
+        private int poll() {
+            final int top = heap[0];
+            final int last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (heapSize > 0) {
+                heap[i] = last;
+            }
+            return top;
+        }
+    }
+}
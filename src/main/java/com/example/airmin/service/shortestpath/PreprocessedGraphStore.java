@@ -0,0 +1,155 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Holds data preprocessed from the current {@link FlightGraph} (e.g. a {@link ContractionHierarchy}).
+ * <p>
+ * Preprocessing runs on a background thread when a graph is prepared, matched by {@link FlightGraph#fingerprint()}.
+ * Only the data of the most recently prepared graph is kept; looking up any other graph, e.g. by a reader still holding
+ * a replaced snapshot, neither replaces it nor starts preprocessing. When a graph was derived from the previous one by
+ * a {@link GraphDelta}, stores able to do so update the previous data instead.
+ *
+ * @param <T> preprocessed data
+ */
+@Log4j2
+public abstract class PreprocessedGraphStore<T> {
+
+    private final ExecutorService executor;
+    private final AtomicReference<Entry<T>> current = new AtomicReference<>();
+
+    protected PreprocessedGraphStore(final String threadName) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Compute data of {@code graph}, called on the background thread
+     */
+    protected abstract T preprocess(FlightGraph graph);
+
+    /**
+     * Update {@code previous} data to match {@code graph}, called on the background thread. Preprocesses
+     * {@code graph} from scratch unless overridden
+     *
+     * @param previous data of the graph {@code delta} was applied to
+     * @param graph    graph with {@code delta} applied
+     * @param delta    changed routes
+     */
+    protected T update(final T previous, final FlightGraph graph, final GraphDelta delta) {
+        return preprocess(graph);
+    }
+
+    /**
+     * Start preparing data of {@code graph} unless it is already available or being prepared
+     */
+    public void prepare(@NonNull FlightGraph graph) {
+        install(graph);
+    }
+
+    /**
+     * Start preparing data of {@code graph} from the data of the graph it was derived from, if that data is ready.
+     * Otherwise same as {@link #prepare(FlightGraph)}
+     *
+     * @param baseFingerprint fingerprint of the graph {@code delta} was applied to
+     * @param graph           graph with {@code delta} applied
+     * @param delta           changed routes
+     */
+    public void update(final long baseFingerprint, @NonNull FlightGraph graph, @NonNull GraphDelta delta) {
+        final Entry<T> base = current.get();
+        if (base == null || base.fingerprint != baseFingerprint || !base.data.isDone()
+                || base.data.isCompletedExceptionally()) {
+            prepare(graph);
+            return;
+        }
+        final Entry<T> created = new Entry<>(graph.fingerprint());
+        if (current.compareAndSet(base, created)) {
+            run(created, () -> update(base.data.join(), graph, delta));
+        } else {
+            prepare(graph);
+        }
+    }
+
+    /**
+     * Never starts preparing data, see {@link #prepare(FlightGraph)}
+     *
+     * @return data of {@code graph} if it is ready, empty while it is being prepared, if preparation failed or if
+     * {@code graph} is not the most recently prepared graph
+     */
+    public Optional<T> find(@NonNull FlightGraph graph) {
+        final Entry<T> entry = current.get();
+        if (entry == null || entry.fingerprint != graph.fingerprint()) {
+            return Optional.empty();
+        }
+        if (!entry.data.isDone() || entry.data.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.data.join());
+    }
+
+    /**
+     * Same as {@link #prepare(FlightGraph)}, then waits for the data
+     *
+     * @return data of {@code graph}
+     */
+    public T get(@NonNull FlightGraph graph) {
+        return install(graph).data.join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return entry of {@code graph}, replacing the current one and starting preprocessing unless it is of
+     * {@code graph}
+     */
+    private Entry<T> install(final FlightGraph graph) {
+        while (true) {
+            final Entry<T> entry = current.get();
+            if (entry != null && entry.fingerprint == graph.fingerprint()) {
+                return entry;
+            }
+            final Entry<T> created = new Entry<>(graph.fingerprint());
+            if (current.compareAndSet(entry, created)) {
+                run(created, () -> preprocess(graph));
+                return created;
+            }
+        }
+    }
+
+    private void run(final Entry<T> entry, final Supplier<T> computation) {
+        executor.execute(() -> {
+            try {
+                entry.data.complete(computation.get());
+            } catch (RuntimeException e) {
+                log.error("Unable to preprocess flight graph", e);
+                entry.data.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static final class Entry<T> {
+        private final long fingerprint;
+        private final CompletableFuture<T> data = new CompletableFuture<>();
+
+        private Entry(final long fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
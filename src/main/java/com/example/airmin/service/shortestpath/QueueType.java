@@ -0,0 +1,19 @@
+package com.example.airmin.service.shortestpath;
+
+/**
+ * Available {@link NodeQueue} implementations
+ */
+public enum QueueType {
+    /**
+     * {@link java.util.PriorityQueue} with lazy deletion, a node is inserted again on every relaxation
+     */
+    PRIORITY_QUEUE,
+    /**
+     * {@link IndexedDaryHeap} with decrease-key
+     */
+    DARY_HEAP;
+
+    public NodeQueue create(final int arity) {
+        return this == DARY_HEAP ? new IndexedDaryHeap(arity) : new LazyPriorityQueue();
+    }
+}
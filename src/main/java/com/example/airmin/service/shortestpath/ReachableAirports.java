@@ -0,0 +1,26 @@
+package com.example.airmin.service.shortestpath;
+
+import lombok.Getter;
+
+/**
+ * Result of a budget bounded search: every airport reachable within the budget with its cheapest price, in order of
+ * increasing price
+ */
+@Getter
+public class ReachableAirports {
+
+    private final int[] nodes;
+    /**
+     * Cheapest price of every airport in the order of {@link #nodes}
+     */
+    private final double[] prices;
+
+    public ReachableAirports(final int[] nodes, final double[] prices) {
+        this.nodes = nodes;
+        this.prices = prices;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Per-query search state: tentative distances, predecessors, settled/target flags and cached potentials of
+ * goal-directed searches, held in primitive arrays sized to the node count of the searched graph.
+ * <p>
+ * Workspaces are pooled per thread, so concurrent queries never share state and a query does not allocate once its
+ * thread has warmed up. Entries are versioned with a generation counter, so resetting a workspace is {@code O(1)}
+ * instead of refilling every array. Always release a workspace by closing it:
+ * <pre>
+ * try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.nodeCount())) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class SearchWorkspace implements AutoCloseable {
+
+    private static final ThreadLocal<ArrayDeque<SearchWorkspace>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private double[] distance = new double[0];
+    private int[] predecessor = new int[0];
+    private int[] reached = new int[0];
+    private int[] settled = new int[0];
+    private int[] targets = new int[0];
+    private double[] potential = new double[0];
+    private int[] potentialSet = new int[0];
+    private int generation;
+    private NodeQueue queue;
+    private QueueType queueType;
+    private int queueArity;
+    private int nodeCount;
+
+    private SearchWorkspace() {
+    }
+
+    /**
+     * Take a workspace from the current thread's pool (or create one) and reset it for a new search
+     *
+     * @param nodeCount number of nodes of the searched graph
+     * @return clean workspace
+     */
+    public static SearchWorkspace acquire(final int nodeCount) {
+        final SearchWorkspace workspace = POOL.get().poll();
+        return (workspace == null ? new SearchWorkspace() : workspace).reset(nodeCount);
+    }
+
+    private SearchWorkspace reset(final int nodeCount) {
+        this.nodeCount = nodeCount;
+        if (distance.length < nodeCount) {
+            distance = new double[nodeCount];
+            predecessor = new int[nodeCount];
+            reached = new int[nodeCount];
+            settled = new int[nodeCount];
+            targets = new int[nodeCount];
+            potential = new double[nodeCount];
+            potentialSet = new int[nodeCount];
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(targets, 0);
+            Arrays.fill(potentialSet, 0);
+            generation = 1;
+        }
+        return this;
+    }
+
+    /**
+     * @return tentative distance of {@code node}, {@link Double#POSITIVE_INFINITY} when not reached yet
+     */
+    public double distance(final int node) {
+        return reached[node] == generation ? distance[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return edge {@code node} was reached over (or the node it was reached from, for searches that never rebuild
+     * paths), {@code -1} for sources and unreached nodes
+     */
+    public int predecessor(final int node) {
+        return reached[node] == generation ? predecessor[node] : -1;
+    }
+
+    public void reach(final int node, final double nodeDistance, final int nodePredecessor) {
+        reached[node] = generation;
+        distance[node] = nodeDistance;
+        predecessor[node] = nodePredecessor;
+    }
+
+    /**
+     * Walk back from {@code target} over predecessor edges, {@code O(path length)}
+     *
+     * @param graph  searched graph, predecessors are its edges
+     * @param target reached node
+     * @return route ids of the path from a source to {@code target}
+     */
+    public long[] routeIds(final FlightGraph graph, final int target) {
+        int legs = 0;
+        for (int node = target; predecessor(node) != -1; node = graph.source(predecessor(node))) {
+            legs++;
+        }
+        final long[] routeIds = new long[legs];
+        int node = target;
+        for (int leg = legs - 1; leg >= 0; leg--) {
+            final int edge = predecessor(node);
+            routeIds[leg] = graph.routeId(edge);
+            node = graph.source(edge);
+        }
+        return routeIds;
+    }
+
+    public boolean isSettled(final int node) {
+        return settled[node] == generation;
+    }
+
+    public void settle(final int node) {
+        settled[node] = generation;
+    }
+
+    public boolean isTarget(final int node) {
+        return targets[node] == generation;
+    }
+
+    public void markTargets(final int[] nodes) {
+        for (final int node : nodes) {
+            targets[node] = generation;
+        }
+    }
+
+    public boolean hasPotential(final int node) {
+        return potentialSet[node] == generation;
+    }
+
+    /**
+     * @return potential (lower bound of the remaining price) stored by {@link #setPotential(int, double)}
+     */
+    public double potential(final int node) {
+        return potential[node];
+    }
+
+    public void setPotential(final int node, final double nodePotential) {
+        potentialSet[node] = generation;
+        potential[node] = nodePotential;
+    }
+
+    /**
+     * @param type  queue implementation
+     * @param arity heap arity, used by {@link QueueType#DARY_HEAP}
+     * @return empty queue, reused between searches of this workspace
+     */
+    public NodeQueue queue(final QueueType type, final int arity) {
+        if (queue == null || queueType != type || queueArity != arity) {
+            queue = type.create(arity);
+            queueType = type;
+            queueArity = arity;
+        }
+        queue.reset(nodeCount);
+        return queue;
+    }
+
+    /**
+     * Return workspace to the current thread's pool
+     */
+    @Override
+    public void close() {
+        POOL.get().push(this);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.model.Route;
+import lombok.Getter;
+
+/**
+ * Result of a cheapest route search: ids of {@link Route}s to take, in travel order, and their total price.
+ */
+@Getter
+public class ShortestPath {
+
+    private static final long[] NO_ROUTES = new long[0];
+
+    private final long[] routeIds;
+    private final double price;
+    /**
+     * Number of nodes the search settled, measure of the work done
+     */
+    private final int settled;
+
+    public ShortestPath(final long[] routeIds, final double price, final int settled) {
+        this.routeIds = routeIds;
+        this.price = price;
+        this.settled = settled;
+    }
+
+    /**
+     * @param settled number of nodes the search settled
+     * @return path used when destination is not reachable
+     */
+    public static ShortestPath none(final int settled) {
+        return new ShortestPath(NO_ROUTES, Double.POSITIVE_INFINITY, settled);
+    }
+
+    public boolean isEmpty() {
+        return routeIds.length == 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+
+/**
+ * Cheapest path search between two sets of nodes (airports of two cities). Implementations are stateless and
+ * thread-safe.
+ */
+public interface ShortestPathEngine {
+
+    /**
+     * @return algorithm implemented by this engine
+     */
+    Algorithm algorithm();
+
+    /**
+     * Find the cheapest path from any of {@code sources} to any of {@code targets}
+     *
+     * @param graph   flight graph
+     * @param sources starting nodes
+     * @param targets destination nodes
+     * @return cheapest path or {@link ShortestPath#none(int)} when none of the targets is reachable
+     */
+    ShortestPath cheapest(FlightGraph graph, int[] sources, int[] targets);
+
+    /**
+     * Start (re)building preprocessed data for {@code graph} ahead of queries, e.g. after data import
+     *
+     * @param graph flight graph
+     */
+    default void prepare(FlightGraph graph) {
+    }
+
+    /**
+     * Start bringing preprocessed data up to date with {@code graph}, derived by applying {@code delta} to the graph
+     * with {@code baseFingerprint}. Engines that can't update their data incrementally prepare it from scratch
+     *
+     * @param baseFingerprint {@link FlightGraph#fingerprint()} of the graph before the change
+     * @param graph           flight graph after the change
+     * @param delta           changed routes
+     */
+    default void update(long baseFingerprint, FlightGraph graph, GraphDelta delta) {
+        prepare(graph);
+    }
+
+    /**
+     * Wait until preprocessed data of {@code graph} is ready, so queries no longer fall back to a plain search
+     *
+     * @param graph flight graph
+     */
+    default void awaitPrepared(FlightGraph graph) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.airmin.rest;
+
+import com.example.airmin.repository.AirportRepository;
+import com.example.airmin.repository.RouteRepository;
+import com.example.airmin.util.DataTestUtil;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.util.ResourceUtils;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@WithMockUser(authorities = "ROLE_ADMIN")
+@SpringBootTest
+@ActiveProfiles("test")
+class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AirportRepository airportRepository;
+    @Autowired
+    private RouteRepository routeRepository;
+    @Autowired
+    private DataTestUtil dataTestUtil;
+
+    @BeforeEach
+    void setUp() {
+        dataTestUtil.save(DataTestUtil.CityData.BERLIN);
+        dataTestUtil.save(DataTestUtil.CityData.BELGRADE);
+        dataTestUtil.save(DataTestUtil.CityData.STERLING);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataTestUtil.deleteAll();
+    }
+
+    @Test
+    void importInBackground() throws Exception {
+        final String airports = submit("/airports", "airports.csv");
+        final String airportsJob = await(airports, "COMPLETED"::equals);
+        Assertions.assertEquals(7184, (int) JsonPath.read(airportsJob, "$.recordsParsed"));
+        Assertions.assertEquals(5, (int) JsonPath.read(airportsJob, "$.recordsPersisted"));
+        Assertions.assertEquals(7179, (int) JsonPath.read(airportsJob, "$.recordsRejected"));
+        Assertions.assertEquals((int) JsonPath.read(airportsJob, "$.totalBytes"),
+                (int) JsonPath.read(airportsJob, "$.bytesProcessed"));
+        Assertions.assertEquals(5, airportRepository.count());
+
+        final String routesJob = await(submit("/routes", "routes.csv"), "COMPLETED"::equals);
+        Assertions.assertEquals(routeRepository.count(), (int) JsonPath.read(routesJob, "$.recordsPersisted"));
+    }
+
+    /**
+     * A running import stops at a chunk boundary and rolls back, a queued one never starts
+     */
+    @Test
+    void cancel() throws Exception {
+        await(submit("/airports", "airports.csv"), "COMPLETED"::equals);
+        final String running = submit("/routes", "routes.csv");
+        final String queued = submit("/routes", "routes.csv");
+
+        mockMvc.perform(MockMvcRequestBuilders.delete(queued))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.state").value("CANCELLED"));
+        await(running, "RUNNING"::equals);
+        mockMvc.perform(MockMvcRequestBuilders.delete(running)).andExpect(status().isAccepted());
+
+        final String cancelled = await(running, "CANCELLED"::equals);
+        Assertions.assertTrue((int) JsonPath.read(cancelled, "$.recordsParsed") < 67655);
+        Assertions.assertEquals(0, routeRepository.count());
+        Assertions.assertEquals(0, (int) JsonPath.read(await(queued, "CANCELLED"::equals), "$.recordsParsed"));
+    }
+
+    @Test
+    void importNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/imports/unknown")).andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/imports/unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(authorities = "ROLE_USER")
+    void onlyAdminImports() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/routes").file(file("routes.csv")))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * @return location of the import
+     */
+    private String submit(final String path, final String dataset) throws Exception {
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.multipart(path).file(file(dataset)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn();
+        return result.getResponse().getHeader(HttpHeaders.LOCATION);
+    }
+
+    /**
+     * @return import once its state matches
+     */
+    private String await(final String location, final Predicate<String> state) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            final String job = mockMvc.perform(MockMvcRequestBuilders.get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            if (state.test(JsonPath.read(job, "$.state"))) {
+                return job;
+            }
+            Assertions.assertTrue(System.nanoTime() < deadline, job);
+            Thread.sleep(10);
+        }
+    }
+
+    private static MockMultipartFile file(final String dataset) throws Exception {
+        return new MockMultipartFile("file", dataset, "text/csv",
+                Files.readAllBytes(ResourceUtils.getFile("classpath:datasets/" + dataset).toPath()));
+    }
+}
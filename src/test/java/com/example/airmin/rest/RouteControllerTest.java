@@ -5,8 +5,10 @@ import com.example.airmin.model.Airport_;
 import com.example.airmin.model.City;
 import com.example.airmin.model.Route;
 import com.example.airmin.repository.AirportRepository;
+import com.example.airmin.repository.RouteRepository;
 import com.example.airmin.util.DataTestUtil;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -15,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
@@ -22,8 +25,10 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -37,6 +42,8 @@ class RouteControllerTest {
     @Autowired
     private AirportRepository airportRepository;
     @Autowired
+    private RouteRepository routeRepository;
+    @Autowired
     private DataTestUtil dataTestUtil;
 
     @AfterEach
@@ -94,6 +101,269 @@ class RouteControllerTest {
         }
     }
 
+    @Test
+    void cheapestItineraries() throws Exception {
+        dataTestUtil.save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.ROME_LEONARDO, 200.21);
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        final Route parisBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.BERLIN_TEGEL, 10.1);
+        final Route parisMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 100.32);
+        dataTestUtil.save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 113.31);
+        final Route belgradeBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.BERLIN_TEGEL, 75.22);
+        final Route berlinRome = dataTestUtil
+                .save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.ROME_LEONARDO, 20.13);
+        final Route romeMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.ROME_LEONARDO, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 50.02);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City moscow = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.MOSCOW);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&k=3", belgrade.getId(), moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].routes.length()").value(3))
+                .andExpect(jsonPath("$[0].totalPrice").value(Stream.of(belgradeBerlin, berlinRome, romeMoscow)
+                        .mapToDouble(Route::getPrice).sum()))
+                .andExpect(jsonPath("$[1].routes.length()").value(4))
+                .andExpect(jsonPath("$[1].totalPrice").value(Stream.of(belgradeParis, parisBerlin, berlinRome,
+                        romeMoscow).mapToDouble(Route::getPrice).sum()))
+                .andExpect(jsonPath("$[2].routes.length()").value(2))
+                .andExpect(jsonPath("$[2].totalPrice").value(Stream.of(belgradeParis, parisMoscow)
+                        .mapToDouble(Route::getPrice).sum()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&k=0", belgrade.getId(), moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("CONSTRAINT_VALIDATION"));
+    }
+
+    @Test
+    void cheapestWithinLegs() throws Exception {
+        dataTestUtil.save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.BERLIN_TEGEL, 75.22);
+        dataTestUtil.save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.ROME_LEONARDO, 20.13);
+        dataTestUtil.save(DataTestUtil.AirportData.ROME_LEONARDO, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 50.02);
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        final Route parisMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 100.32);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City moscow = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.MOSCOW);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&maxLegs=3", belgrade.getId(),
+                        moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes.length()").value(3));
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&maxLegs=2", belgrade.getId(),
+                        moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes.length()").value(2))
+                .andExpect(jsonPath("$.totalPrice").value(belgradeParis.getPrice() + parisMoscow.getPrice()));
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&maxLegs=1", belgrade.getId(),
+                        moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/cheapest?source=%s&destination=%s&maxLegs=0", belgrade.getId(),
+                        moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("CONSTRAINT_VALIDATION"));
+    }
+
+    /**
+     * Test airports have no coordinates, so only price and number of legs decide
+     */
+    @Test
+    void paretoOptimalItineraries() throws Exception {
+        dataTestUtil.save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.ROME_LEONARDO, 200.21);
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        dataTestUtil.save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.BERLIN_TEGEL, 10.1);
+        final Route parisMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 100.32);
+        final Route belgradeBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.BERLIN_TEGEL, 75.22);
+        final Route berlinRome = dataTestUtil
+                .save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.ROME_LEONARDO, 20.13);
+        final Route romeMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.ROME_LEONARDO, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 50.02);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City moscow = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.MOSCOW);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/pareto?source=%s&destination=%s", belgrade.getId(), moscow.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].legs").value(3))
+                .andExpect(jsonPath("$[0].routes.length()").value(3))
+                .andExpect(jsonPath("$[0].totalPrice").value(Stream.of(belgradeBerlin, berlinRome, romeMoscow)
+                        .mapToDouble(Route::getPrice).sum()))
+                .andExpect(jsonPath("$[0].distanceKm").value(0.0))
+                .andExpect(jsonPath("$[1].legs").value(2))
+                .andExpect(jsonPath("$[1].totalPrice").value(belgradeParis.getPrice() + parisMoscow.getPrice()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/pareto?source=%s&destination=%s", moscow.getId(), belgrade.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void fareMatrix() throws Exception {
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        final Route parisBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.BERLIN_TEGEL, 10.1);
+        final Route berlinMoscow = dataTestUtil
+                .save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 113.31);
+        dataTestUtil.save(DataTestUtil.AirportData.ROME_LEONARDO, DataTestUtil.AirportData.BELGRADE_TESLA, 20.13);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City berlin = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BERLIN);
+        final City moscow = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.MOSCOW);
+        final City rome = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.ROME);
+
+        final String request = String.format("{\"source\": %s, \"destinations\": [%s, %s, %s, %s]}",
+                belgrade.getId(), moscow.getId(), rome.getId(), berlin.getId(), moscow.getId());
+        mockMvc.perform(MockMvcRequestBuilders.post("/routes/matrix")
+                .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value(belgrade.getId()))
+                .andExpect(jsonPath("$.destinations.length()").value(4))
+                .andExpect(jsonPath("$.prices[0]").value(Stream.of(belgradeParis, parisBerlin, berlinMoscow)
+                        .mapToDouble(Route::getPrice).sum()))
+                .andExpect(jsonPath("$.prices[1]").isEmpty())
+                .andExpect(jsonPath("$.prices[2]").value(belgradeParis.getPrice() + parisBerlin.getPrice()))
+                .andExpect(jsonPath("$.prices[3]").value(Stream.of(belgradeParis, parisBerlin, berlinMoscow)
+                        .mapToDouble(Route::getPrice).sum()))
+                .andExpect(jsonPath("$.routes").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/routes/matrix")
+                .contentType(MediaType.APPLICATION_JSON).content(String.format(
+                        "{\"source\": %s, \"destinations\": [%s, %s], \"paths\": true}",
+                        belgrade.getId(), berlin.getId(), rome.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes[0].length()").value(2))
+                .andExpect(jsonPath("$.routes[0][1].arrival.airportName")
+                        .value(parisBerlin.getDestination().getName()))
+                .andExpect(jsonPath("$.routes[1].length()").value(0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/routes/matrix")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"source\": %s, \"destinations\": []}", belgrade.getId())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("CONSTRAINT_VALIDATION"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/routes/matrix")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"source\": %s, \"destinations\": [99999999]}", belgrade.getId())))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.code").value("RELATION_NOT_FOUND"));
+    }
+
+    @Test
+    void fareTable() throws Exception {
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        final Route parisBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.BERLIN_TEGEL, 10.1);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City berlin = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BERLIN);
+
+        final String request = String.format("{\"sources\": [%s, %s]}", belgrade.getId(), berlin.getId());
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/routes/table?format=csv")
+                .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().collect(Collectors.toList());
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals(String.format("source,%s,%s", belgrade.getId(), berlin.getId()), lines.get(0));
+        Assertions.assertTrue(lines.contains(String.format("%s,0.0,%s", belgrade.getId(),
+                belgradeParis.getPrice() + parisBerlin.getPrice())));
+        Assertions.assertTrue(lines.contains(String.format("%s,,0.0", berlin.getId())));
+
+        result = mockMvc.perform(MockMvcRequestBuilders.post("/routes/table")
+                .contentType(MediaType.APPLICATION_JSON).content(String.format(
+                        "{\"sources\": [%s], \"destinations\": [%s, %s]}", berlin.getId(), berlin.getId(),
+                        belgrade.getId())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(String.format("{\"source\":%s,\"prices\":[0.0,null]}%n", berlin.getId()), body);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/routes/table?format=xml")
+                .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("CONSTRAINT_VALIDATION"));
+    }
+
+    @Test
+    void reachableCities() throws Exception {
+        final Route belgradeParis = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.PARIS, 70.1);
+        final Route parisBerlin = dataTestUtil
+                .save(DataTestUtil.AirportData.PARIS, DataTestUtil.AirportData.BERLIN_TEGEL, 10.1);
+        dataTestUtil.save(DataTestUtil.AirportData.BERLIN_TEGEL, DataTestUtil.AirportData.MOSCOW_SHEREMETYEVO, 113.31);
+        final Route belgradeRome = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.ROME_LEONARDO, 20.13);
+        dataTestUtil.save(DataTestUtil.AirportData.ROME_LEONARDO, DataTestUtil.AirportData.BELGRADE_TESLA, 20.13);
+
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City berlin = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BERLIN);
+        final City rome = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.ROME);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/reachable?source=%s&budget=100&limit=2", belgrade.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.length").value(3))
+                .andExpect(jsonPath("$.meta.limit").value(2))
+                .andExpect(jsonPath("$.results.length()").value(2))
+                .andExpect(jsonPath("$.results[0].city.id").value(rome.getId()))
+                .andExpect(jsonPath("$.results[0].city.name").value(rome.getName()))
+                .andExpect(jsonPath("$.results[0].price").value(belgradeRome.getPrice()))
+                .andExpect(jsonPath("$.results[1].price").value(belgradeParis.getPrice()));
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/reachable?source=%s&budget=100&limit=2&page=1", belgrade.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].city.id").value(berlin.getId()))
+                .andExpect(jsonPath("$.results[0].price").value(belgradeParis.getPrice() + parisBerlin.getPrice()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(String.format("/routes/reachable?source=%s&budget=-1", belgrade.getId()))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("CONSTRAINT_VALIDATION"));
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/routes/reachable?source=99999999&budget=100")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.code").value("RELATION_NOT_FOUND"));
+    }
+
     @Test
     void failCityNotFound() throws Exception {
         final City belgrade = dataTestUtil.save(DataTestUtil.CityData.BELGRADE);
@@ -125,4 +395,29 @@ class RouteControllerTest {
                 .andExpect(status().isNoContent())
                 .andExpect(content().string(""));
     }
-}
\ No newline at end of file
+
+    /**
+     * A route deleted behind the back of the flight graph drops the stale result instead of failing, the next query
+     * searches the graph of the database
+     */
+    @Test
+    void routeMissingInDatabase() throws Exception {
+        dataTestUtil.save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.BERLIN_TEGEL, 200.21);
+        final Route cheapest = dataTestUtil
+                .save(DataTestUtil.AirportData.BELGRADE_TESLA, DataTestUtil.AirportData.BERLIN_TEGEL, 75.22);
+        final City belgrade = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BELGRADE);
+        final City berlin = dataTestUtil.saveIfNotExist(DataTestUtil.CityData.BERLIN);
+        final String query = String.format("/routes/cheapest?source=%s&destination=%s", belgrade.getId(),
+                berlin.getId());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(query))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPrice").value(75.22));
+        routeRepository.deleteById(cheapest.getId());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(query)).andExpect(status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.get(query))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPrice").value(200.21));
+    }
+}
@@ -23,7 +23,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
 @SpringBootTest
@@ -186,4 +192,28 @@ class RouteDiscoveryServiceTest {
         assertPrices(new double[]{22.11, 21.35}, routes);
     }
 
-}
\ No newline at end of file
+    /**
+     * Queries running in parallel must not affect each other's results
+     */
+    @Test
+    void concurrentQueries() throws InterruptedException, ExecutionException {
+        final List<Route> farAway = routeDiscoveryService.cheapest(newZealand.getId(), mostar.getId());
+        final List<Route> bigHubs = routeDiscoveryService.cheapest(newYork.getId(), berlin.getId());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<List<Route>>> queries = IntStream.range(0, 64)
+                    .mapToObj(i -> i % 2 == 0
+                            ? (Callable<List<Route>>) () -> routeDiscoveryService.cheapest(newZealand.getId(), mostar.getId())
+                            : (Callable<List<Route>>) () -> routeDiscoveryService.cheapest(newYork.getId(), berlin.getId()))
+                    .collect(Collectors.toList());
+            final List<Future<List<Route>>> results = executor.invokeAll(queries);
+            for (int i = 0; i < results.size(); i++) {
+                Assertions.assertEquals(i % 2 == 0 ? farAway : bigHubs, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.FlightGraphFile;
+import com.example.airmin.service.graph.FlightGraphLoader;
+import com.example.airmin.service.graph.FlightGraphSnapshot;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.graph.GraphVersion;
+import com.example.airmin.service.shortestpath.Algorithm;
+import com.example.airmin.service.shortestpath.QueueType;
+import com.example.airmin.util.DataTestUtil;
+import com.example.airmin.util.DataTestUtil.AirportData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RouteGraphPreloaderTest {
+
+    @Autowired
+    private FlightGraphSnapshots snapshots;
+    @Autowired
+    private RouteDiscoveryService routeDiscoveryService;
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+    @Autowired
+    private DataTestUtil dataTestUtil;
+    @Autowired
+    private FlightGraphLoader flightGraphLoader;
+    @Autowired
+    private GraphVersion graphVersion;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        dataTestUtil.deleteAll();
+    }
+
+    @Test
+    void notReadyUntilPreloaded() {
+        dataTestUtil.save(AirportData.BERLIN_TEGEL, AirportData.BELGRADE_TESLA, 100);
+        final RouteGraphPreloader preloader = preloader(true);
+        Assertions.assertEquals(Status.OUT_OF_SERVICE, preloader.health().getStatus());
+
+        preloader.run(new DefaultApplicationArguments());
+        final Health health = preloader.health();
+        Assertions.assertEquals(Status.UP, health.getStatus());
+        Assertions.assertEquals("ready", health.getDetails().get("state"));
+        Assertions.assertEquals(1, health.getDetails().get("routes"));
+        for (final String phase : new String[]{"load", "prepare", "warmup"}) {
+            Assertions.assertEquals(1, meterRegistry.get("flight.graph.preload").tag("phase", phase).timer().count());
+        }
+    }
+
+    /**
+     * A graph mapped from the file passing the check against the database may still be out of date, the preload
+     * waits for the graph of the database
+     */
+    @Test
+    void preloadVerifiedGraph(@TempDir final Path directory) {
+        dataTestUtil.save(AirportData.BERLIN_TEGEL, AirportData.BELGRADE_TESLA, 100);
+        final FlightGraph stored = flightGraphLoader.load();
+        final FlightGraph.Builder outdated = FlightGraph.builder();
+        for (int node = 0; node < stored.nodeCount(); node++) {
+            outdated.addAirport(stored.airportId(node), stored.cityId(node));
+        }
+        outdated.addRoute(stored.routeId(0), stored.airportId(stored.source(0)), stored.airportId(stored.target(0)),
+                1);
+        final FlightGraphFile file = new FlightGraphFile(directory.resolve("graph.bin"));
+        file.write(outdated.build());
+        final FlightGraphSnapshots fromFile = new FlightGraphSnapshots(flightGraphLoader, file, graphVersion,
+                meterRegistry);
+        try {
+            new RouteGraphPreloader(properties(true), fromFile, routeDiscoveryService, meterRegistry)
+                    .run(new DefaultApplicationArguments());
+            final FlightGraphSnapshot snapshot = fromFile.current();
+            Assertions.assertNotEquals(FlightGraphSnapshots.UNVERIFIED_VERSION, snapshot.getVersion());
+            Assertions.assertEquals(stored.fingerprint(), snapshot.getGraph().fingerprint());
+        } finally {
+            fromFile.shutdown();
+        }
+    }
+
+    @Test
+    void disabled() {
+        final RouteGraphPreloader preloader = preloader(false);
+        preloader.run(new DefaultApplicationArguments());
+        Assertions.assertEquals(Status.UP, preloader.health().getStatus());
+        Assertions.assertEquals("disabled", preloader.health().getDetails().get("state"));
+        Assertions.assertTrue(meterRegistry.find("flight.graph.preload").timers().isEmpty());
+    }
+
+    @Test
+    void partOfReadiness() {
+        final CompositeHealth readiness = (CompositeHealth) healthEndpoint.healthForPath("readiness");
+        Assertions.assertEquals(Status.UP, readiness.getStatus());
+        Assertions.assertTrue(readiness.getComponents().containsKey("routeGraphPreloader"));
+    }
+
+    private RouteGraphPreloader preloader(final boolean preload) {
+        return new RouteGraphPreloader(properties(preload), snapshots, routeDiscoveryService, meterRegistry);
+    }
+
+    private static RouteDiscoveryProperties properties(final boolean preload) {
+        return new RouteDiscoveryProperties(Algorithm.DIJKSTRA, QueueType.DARY_HEAP, 4, null, 16, 20, 8, 0, 0,
+                Duration.ZERO, null, preload, 10);
+    }
+}
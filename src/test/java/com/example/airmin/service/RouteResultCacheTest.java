@@ -0,0 +1,142 @@
+package com.example.airmin.service;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.FlightGraphLoader;
+import com.example.airmin.service.graph.FlightGraphSnapshot;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.graph.GraphDelta;
+import com.example.airmin.service.graph.GraphVersion;
+import com.example.airmin.service.shortestpath.Algorithm;
+import com.example.airmin.service.shortestpath.QueueType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RouteResultCacheTest {
+
+    private final GraphVersion graphVersion = new GraphVersion();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger searches = new AtomicInteger();
+    private final FlightGraphSnapshots snapshots = new FlightGraphSnapshots(new FlightGraphLoader(null, null) {
+        @Override
+        public FlightGraph load() {
+            return FlightGraph.builder().addAirport(1, 1).build();
+        }
+    }, graphVersion, meterRegistry);
+    private final BlockingQueue<FlightGraphSnapshot> swapped = new ArrayBlockingQueue<>(16);
+
+    @AfterEach
+    void tearDown() {
+        snapshots.shutdown();
+    }
+
+    @Test
+    void hitUntilGraphChanges() throws InterruptedException {
+        final RouteResultCache cache = cache(100);
+
+        Assertions.assertArrayEquals(new long[][]{{1, 2}}, cache.get(0, 1, 2, "", () -> search(10)));
+        Assertions.assertArrayEquals(new long[][]{{1, 2}}, cache.get(0, 1, 2, "", () -> search(10)));
+        Assertions.assertEquals(1, searches.get());
+
+        cache.get(0, 1, 2, "k=2", () -> search(10));
+        cache.get(0, 2, 1, "", () -> search(10));
+        Assertions.assertEquals(3, searches.get());
+
+        graphVersion.bump();
+        snapshots.rebuild();
+        awaitSwap();
+        cache.get(1, 1, 2, "", () -> search(10));
+        Assertions.assertEquals(4, searches.get());
+
+        Assertions.assertEquals(1, counter("cache.gets", "hit"));
+        Assertions.assertEquals(4, counter("cache.gets", "miss"));
+        Assertions.assertEquals(1, meterRegistry.get("cache.size").tag("cache", RouteResultCache.NAME).gauge().value());
+    }
+
+    /**
+     * Only results an added route may beat and results using a removed or repriced route are dropped by a delta
+     */
+    @Test
+    void keepResultsUnaffectedByDelta() throws InterruptedException {
+        final RouteResultCache cache = cache(100);
+        snapshots.current();
+
+        cache.get(0, 1, 2, "", () -> search(10));
+        cache.get(0, 2, 3, "", () -> search(30));
+        cache.get(0, 3, 4, "", () -> search(Double.POSITIVE_INFINITY));
+        cache.get(0, 4, 5, "", () -> new RouteResultCache.Result(new long[][]{{7}}, 5));
+        Assertions.assertEquals(3, searches.get());
+
+        final long startVersion = graphVersion.bump();
+        graphVersion.bump();
+        snapshots.apply(new GraphDelta(List.of(new GraphDelta.Edge(9, 1, 1, 20)), Set.of(7L), Map.of()),
+                startVersion);
+        Assertions.assertNotNull(awaitSwap().getDelta());
+
+        cache.get(2, 1, 2, "", () -> search(10));
+        Assertions.assertEquals(3, searches.get());
+        cache.get(2, 2, 3, "", () -> search(30));
+        cache.get(2, 3, 4, "", () -> search(Double.POSITIVE_INFINITY));
+        cache.get(2, 4, 5, "", () -> search(5));
+        Assertions.assertEquals(6, searches.get());
+    }
+
+    @Test
+    void evictBeyondSize() {
+        final RouteResultCache cache = cache(10);
+        for (int i = 0; i < 50; i++) {
+            cache.get(0, i, i + 1, "", () -> search(10));
+        }
+        Assertions.assertTrue(meterRegistry.get("cache.size").tag("cache", RouteResultCache.NAME).gauge().value()
+                <= 10);
+        Assertions.assertTrue(meterRegistry.get("cache.evictions").tag("cache", RouteResultCache.NAME)
+                .functionCounter().count() >= 40);
+    }
+
+    @Test
+    void disabled() {
+        final RouteResultCache cache = cache(0);
+        cache.get(0, 1, 2, "", () -> search(10));
+        cache.get(0, 1, 2, "", () -> search(10));
+        Assertions.assertEquals(2, searches.get());
+    }
+
+    private RouteResultCache cache(final int size) {
+        final RouteResultCache cache = new RouteResultCache(new RouteDiscoveryProperties(Algorithm.DIJKSTRA,
+                QueueType.DARY_HEAP, 4, null, 16, 20, 8, 0, size, Duration.ofMinutes(10), null, false, 0),
+                snapshots, meterRegistry);
+        // registered after the cache, so the cache is done with a snapshot once it's here
+        snapshots.onSwap(swapped::add);
+        return cache;
+    }
+
+    private RouteResultCache.Result search(final double bound) {
+        searches.incrementAndGet();
+        return new RouteResultCache.Result(new long[][]{{1, 2}}, bound);
+    }
+
+    private FlightGraphSnapshot awaitSwap() throws InterruptedException {
+        FlightGraphSnapshot snapshot;
+        do {
+            snapshot = swapped.poll(10, TimeUnit.SECONDS);
+            Assertions.assertNotNull(snapshot);
+        } while (snapshot.getVersion() < graphVersion.current());
+        return snapshot;
+    }
+
+    private double counter(final String name, final String result) {
+        return meterRegistry.get(name).tags("cache", RouteResultCache.NAME, "result", result).functionCounter()
+                .count();
+    }
+}
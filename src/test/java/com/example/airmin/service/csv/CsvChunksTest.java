@@ -0,0 +1,99 @@
+package com.example.airmin.service.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.ResourceUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class CsvChunksTest {
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.withEscape('\\').withNullString("\\N");
+
+    @Test
+    void splitOnRecordEnds() throws IOException {
+        final String content = "1,\"Berlin\nTegel\",a\n"
+                + "2,\"Say \"\"hi\"\"\nthere\",b\n"
+                + "3,\"escaped \\\" quote\nstill quoted\",c\n"
+                + "4,\\\nescaped line feed,d\n"
+                + "5,last,e";
+        final List<byte[]> chunks = chunks(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 2);
+
+        Assertions.assertEquals(3, chunks.size());
+        Assertions.assertEquals(List.of("1", "2"), ids(chunks.get(0)));
+        Assertions.assertEquals(List.of("3", "4"), ids(chunks.get(1)));
+        Assertions.assertEquals(List.of("5"), ids(chunks.get(2)));
+        Assertions.assertEquals(parse(content.getBytes(StandardCharsets.UTF_8)), parse(concat(chunks)));
+    }
+
+    /**
+     * Quote state carries over reads ending anywhere in a record
+     */
+    @Test
+    void splitDatasetReadByteByByte() throws IOException {
+        final byte[] content = Files.readAllBytes(ResourceUtils.getFile("classpath:datasets/airports.csv").toPath());
+        final InputStream in = new FilterInputStream(new ByteArrayInputStream(content)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        final List<byte[]> chunks = chunks(in, 7);
+
+        for (final byte[] chunk : chunks.subList(0, chunks.size() - 1)) {
+            Assertions.assertEquals(7, parse(chunk).size());
+        }
+        Assertions.assertEquals(parse(content), parse(concat(chunks)));
+    }
+
+    @Test
+    void emptyContent() throws IOException {
+        Assertions.assertTrue(chunks(new ByteArrayInputStream(new byte[0]), 10).isEmpty());
+    }
+
+    private static List<byte[]> chunks(final InputStream in, final int recordsPerChunk) throws IOException {
+        final CsvChunks csvChunks = new CsvChunks(in, CSV_FORMAT, recordsPerChunk);
+        final List<byte[]> chunks = new ArrayList<>();
+        byte[] chunk;
+        while ((chunk = csvChunks.next()) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static List<String> ids(final byte[] chunk) throws IOException {
+        return parse(chunk).stream().map(values -> values.get(0)).collect(Collectors.toList());
+    }
+
+    private static List<List<String>> parse(final byte[] content) throws IOException {
+        final List<List<String>> records = new ArrayList<>();
+        for (final CSVRecord record : CSV_FORMAT.parse(new InputStreamReader(new ByteArrayInputStream(content),
+                StandardCharsets.UTF_8))) {
+            final List<String> values = new ArrayList<>();
+            record.forEach(values::add);
+            records.add(values);
+        }
+        return records;
+    }
+
+    private static byte[] concat(final List<byte[]> chunks) {
+        final byte[] content = new byte[chunks.stream().mapToInt(chunk -> chunk.length).sum()];
+        int offset = 0;
+        for (final byte[] chunk : chunks) {
+            System.arraycopy(chunk, 0, content, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return content;
+    }
+}
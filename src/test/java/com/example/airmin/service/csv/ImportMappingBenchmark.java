@@ -0,0 +1,126 @@
+package com.example.airmin.service.csv;
+
+import com.example.airmin.model.Airport;
+import com.example.airmin.model.Route;
+import com.example.airmin.repository.AirportRepository;
+import com.example.airmin.repository.RouteRepository;
+import com.example.airmin.service.graph.GraphVersion;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Time of mapping routes dataset records to {@link Route}s against a growing number of airports, with the scan over
+ * all airports per record and with the external id index of {@link RouteCsvImporter}. The scan grows with records x
+ * airports, the index only with records. No database is involved. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImportMappingBenchmark {
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.withEscape('\\').withNullString("\\N");
+    private static final int CHUNK_SIZE = 1000;
+    /**
+     * Records mapped with the scan, it takes minutes for the whole file
+     */
+    private static final int SCANNED_RECORDS = 4000;
+
+    private final AirportRepository airportRepository = Mockito.mock(AirportRepository.class);
+    private final RouteCsvImporter importer = new RouteCsvImporter(airportRepository,
+            Mockito.mock(RouteRepository.class), CSV_FORMAT, event -> {
+    }, new GraphVersion(), null, new CsvImportProperties(CHUNK_SIZE, 1, 1, 1, Duration.ZERO));
+    private List<Airport> airports;
+    private List<CSVRecord> records;
+
+    @BeforeAll
+    void beforeAll() throws IOException {
+        airports = new ArrayList<>();
+        for (final CSVRecord record : parse("classpath:datasets/airports.csv")) {
+            final Airport airport = new Airport();
+            airport.setId((long) airports.size() + 1);
+            airport.setExternalId(importer.get(AirportCsvColumns.ID, record));
+            airports.add(airport);
+        }
+        records = new ArrayList<>();
+        parse("classpath:datasets/routes.csv").forEach(records::add);
+    }
+
+    @Test
+    void mapping() {
+        Mockito.when(airportRepository.findAll()).thenReturn(airports);
+        run(this::scan, airports, SCANNED_RECORDS, "warm-up");
+        run(known -> importer.chunkProcessor(), airports, records.size(), "warm-up");
+        for (final int airportCount : new int[]{airports.size() / 4, airports.size() / 2, airports.size()}) {
+            final List<Airport> known = airports.subList(0, airportCount);
+            Mockito.when(airportRepository.findAll()).thenReturn(known);
+            final int scanned = run(this::scan, known, SCANNED_RECORDS, "scan over all airports");
+            final int indexed = run(k -> importer.chunkProcessor(), known, SCANNED_RECORDS, "external id index");
+            Assertions.assertEquals(scanned, indexed);
+            run(k -> importer.chunkProcessor(), known, records.size(), "external id index");
+        }
+    }
+
+    /**
+     * @return number of mapped routes
+     */
+    private int run(final Function<List<Airport>, Function<List<CSVRecord>, List<Route>>> processorOf,
+                    final List<Airport> known, final int recordCount, final String name) {
+        final long start = System.nanoTime();
+        final Function<List<CSVRecord>, List<Route>> processor = processorOf.apply(known);
+        int mapped = 0;
+        for (int from = 0; from < recordCount; from += CHUNK_SIZE) {
+            mapped += processor.apply(records.subList(from, Math.min(recordCount, from + CHUNK_SIZE))).size();
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%-24s %5d airports %6d records %9.1f ms %9.0f ns/record%n", name, known.size(),
+                recordCount, elapsed / 1e6, (double) elapsed / recordCount);
+        return mapped;
+    }
+
+    /**
+     * Route mapping before the index: every record scans the airports for both of its airports
+     */
+    private Function<List<CSVRecord>, List<Route>> scan(final List<Airport> known) {
+        return chunk -> {
+            final List<Route> routes = new ArrayList<>();
+            for (final CSVRecord record : chunk) {
+                final Route route = new Route();
+                route.setPrice(importer.get(RouteCsvColumns.PRICE, record));
+                route.setDestination(known.stream()
+                        .filter(a -> a.getExternalId().equals(importer.get(RouteCsvColumns.DESTINATION_AIRPORT_ID,
+                                record))).findFirst()
+                        .orElse(null));
+                route.setSource(known.stream()
+                        .filter(a -> a.getExternalId().equals(importer.get(RouteCsvColumns.SOURCE_AIRPORT_ID,
+                                record))).findFirst()
+                        .orElse(null));
+                if (route.getDestination() != null && route.getSource() != null && route.getPrice() != null
+                        && !route.getDestination().getId().equals(route.getSource().getId())) {
+                    routes.add(route);
+                }
+            }
+            return routes;
+        };
+    }
+
+    private static Iterable<CSVRecord> parse(final String location) throws IOException {
+        final Reader reader = Files.newBufferedReader(ResourceUtils.getFile(location).toPath(),
+                StandardCharsets.UTF_8);
+        return CSV_FORMAT.parse(reader);
+    }
+}
@@ -3,21 +3,33 @@ package com.example.airmin.service.csv;
 import com.example.airmin.model.Airport;
 import com.example.airmin.repository.AirportRepository;
 import com.example.airmin.repository.RouteRepository;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.FlightGraphLoader;
+import com.example.airmin.service.graph.FlightGraphSnapshot;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.graph.GraphVersion;
 import com.example.airmin.util.DataTestUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.util.ResourceUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -34,6 +46,14 @@ class RouteCsvImporterTest {
     private RouteRepository routeRepository;
     @Autowired
     private DataTestUtil dataTestUtil;
+    @Autowired
+    private FlightGraphSnapshots snapshots;
+    @Autowired
+    private FlightGraphLoader flightGraphLoader;
+    @Autowired
+    private GraphVersion graphVersion;
+    @Value("${app.import.chunk-size}")
+    private int chunkSize;
 
     @BeforeEach
     void setUp() throws FileNotFoundException {
@@ -64,9 +84,33 @@ class RouteCsvImporterTest {
     @Test
     void importSuccessfully() throws IOException {
         final File routesFile = ResourceUtils.getFile("classpath:datasets/routes.csv");
+        final long expectedRoutes = expectedRoutes(routesFile);
+
+        routeCsvImporter.importData(routesFile);
+        Assertions.assertEquals(expectedRoutes, routeRepository.count());
+    }
+
+    /**
+     * The routes are streamed from the upload and persisted in many chunks ({@code app.import.chunk-size} is small in
+     * tests)
+     */
+    @Test
+    @WithMockUser(authorities = "ROLE_ADMIN")
+    void importFromStream() throws IOException {
+        final File routesFile = ResourceUtils.getFile("classpath:datasets/routes.csv");
+        final long expectedRoutes = expectedRoutes(routesFile);
+        Assertions.assertTrue(expectedRoutes > chunkSize);
+
+        try (InputStream in = new FileInputStream(routesFile)) {
+            routeCsvImporter.importData(in);
+        }
+        Assertions.assertEquals(expectedRoutes, routeRepository.count());
+    }
+
+    private long expectedRoutes(final File routesFile) throws IOException {
         final List<Long> definedAirports = airportRepository.findAll().stream().map(Airport::getExternalId)
                 .collect(Collectors.toList());
-        final long expectedRoutes = StreamSupport
+        return StreamSupport
                 .stream(routeCsvImporter.getCsvRecords(Files.readAllBytes(routesFile.toPath())).spliterator(), false)
                 .filter(record -> {
                     final Long destinationId = routeCsvImporter.<Long>get(RouteCsvColumns.DESTINATION_AIRPORT_ID, record);
@@ -76,8 +120,41 @@ class RouteCsvImporterTest {
                             .contains(sourceId) && price != null;
                 })
                 .count();
+    }
 
-        routeCsvImporter.importData(routesFile);
-        Assertions.assertEquals(expectedRoutes, routeRepository.count());
+    /**
+     * Imported routes are added to the current flight graph instead of loading it again
+     */
+    @Test
+    void applyImportedRoutesToGraph() throws InterruptedException, FileNotFoundException {
+        final FlightGraph before = awaitUpToDate().getGraph();
+        routeCsvImporter.importData(ResourceUtils.getFile("classpath:datasets/routes.csv"));
+
+        final FlightGraphSnapshot snapshot = awaitUpToDate();
+        Assertions.assertNotNull(snapshot.getDelta());
+        Assertions.assertEquals(routeRepository.count(), snapshot.getGraph().edgeCount());
+        Assertions.assertEquals(edges(flightGraphLoader.load()), edges(snapshot.getGraph()));
+        Assertions.assertTrue(flightGraphLoader.matches(snapshot.getGraph()));
+        Assertions.assertFalse(flightGraphLoader.matches(before));
+    }
+
+    private FlightGraphSnapshot awaitUpToDate() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        FlightGraphSnapshot snapshot = snapshots.current();
+        while (snapshot.getVersion() < graphVersion.current() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            snapshot = snapshots.current();
+        }
+        Assertions.assertEquals(graphVersion.current(), snapshot.getVersion());
+        return snapshot;
+    }
+
+    private static Set<String> edges(final FlightGraph graph) {
+        final Set<String> edges = new TreeSet<>();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            edges.add(String.format("%s:%s-%s:%s", graph.routeId(e), graph.airportId(graph.source(e)),
+                    graph.airportId(graph.target(e)), graph.price(e)));
+        }
+        return edges;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.example.airmin.service.graph;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FlightGraphSnapshotsTest {
+
+    private final GraphVersion graphVersion = new GraphVersion();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile CountDownLatch started = new CountDownLatch(0);
+    private volatile CountDownLatch loading = new CountDownLatch(0);
+    private final FlightGraphSnapshots snapshots = new FlightGraphSnapshots(new FlightGraphLoader(null, null) {
+        @Override
+        public FlightGraph load() {
+            started.countDown();
+            try {
+                loading.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return FlightGraph.builder().addAirport(loads.incrementAndGet(), 1).build();
+        }
+    }, graphVersion, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        snapshots.shutdown();
+    }
+
+    /**
+     * Readers keep getting the previous snapshot while the new one is being built
+     */
+    @Test
+    void swapInBackground() throws InterruptedException {
+        final List<FlightGraphSnapshot> swapped = new CopyOnWriteArrayList<>();
+        snapshots.onSwap(swapped::add);
+
+        final FlightGraphSnapshot first = snapshots.current();
+        Assertions.assertEquals(0, first.getVersion());
+        Assertions.assertSame(first, snapshots.current());
+        Assertions.assertEquals(1, loads.get());
+
+        loading = new CountDownLatch(1);
+        graphVersion.bump();
+        Assertions.assertSame(first, snapshots.current());
+        Assertions.assertSame(first, snapshots.current());
+        loading.countDown();
+
+        final FlightGraphSnapshot second = awaitVersion(1);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(2, second.getGraph().airportId(0));
+        Assertions.assertEquals(List.of(first, second), swapped);
+
+        Assertions.assertEquals(2, meterRegistry.get("flight.graph.build").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("flight.graph.snapshot.version").gauge().value());
+        Assertions.assertTrue(meterRegistry.get("flight.graph.snapshot.age").gauge().value() >= 0);
+    }
+
+    /**
+     * A snapshot of data changed while it was loading is thrown away
+     */
+    @Test
+    void discardOutdatedBuild() throws InterruptedException {
+        snapshots.current();
+        started = new CountDownLatch(1);
+        loading = new CountDownLatch(1);
+        graphVersion.bump();
+        snapshots.rebuild();
+        started.await();
+        graphVersion.bump();
+        loading.countDown();
+
+        final FlightGraphSnapshot rebuilt = awaitVersion(2);
+        Assertions.assertEquals(3, rebuilt.getGraph().airportId(0));
+    }
+
+    /**
+     * A delta right after the current snapshot is applied to it, otherwise the graph is loaded again
+     */
+    @Test
+    void applyDelta() throws InterruptedException {
+        snapshots.current();
+        final long startVersion = graphVersion.bump();
+        graphVersion.bump();
+        snapshots.apply(GraphDelta.added(List.of(new GraphDelta.Edge(9, 1, 1, 5))), startVersion);
+
+        final FlightGraphSnapshot applied = awaitVersion(2);
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(0, applied.getBaseVersion());
+        Assertions.assertEquals(1, applied.getGraph().edgeCount());
+        Assertions.assertNotNull(applied.getDelta());
+
+        graphVersion.bump();
+        graphVersion.bump();
+        graphVersion.bump();
+        snapshots.apply(GraphDelta.added(List.of(new GraphDelta.Edge(10, 1, 1, 5))), 4);
+        final FlightGraphSnapshot rebuilt = awaitVersion(5);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertNull(rebuilt.getDelta());
+    }
+
+    /**
+     * A graph mapped from the file is served first and replaced by the graph of the database once loaded
+     */
+    @Test
+    void startFromFile(@TempDir final Path directory) throws InterruptedException {
+        final FlightGraphFile file = new FlightGraphFile(directory.resolve("graph.bin"));
+        file.write(FlightGraph.builder().addAirport(7, 7).build());
+        final FlightGraphSnapshots fromFile = fromFile(file, true);
+        try {
+            final FlightGraphSnapshot mapped = fromFile.current();
+            Assertions.assertEquals(FlightGraphSnapshots.UNVERIFIED_VERSION, mapped.getVersion());
+            Assertions.assertEquals(7, mapped.getGraph().airportId(0));
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Objects.requireNonNull(file.map()).airportId(0) != 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(1, Objects.requireNonNull(file.map()).airportId(0));
+            Assertions.assertEquals(0, fromFile.current().getVersion());
+            Assertions.assertEquals(1, fromFile.current().getGraph().airportId(0));
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            fromFile.shutdown();
+        }
+    }
+
+    /**
+     * A file not matching the database, e.g. left by an earlier run over an in-memory database, is never served
+     */
+    @Test
+    void ignoreMismatchedFile(@TempDir final Path directory) {
+        final FlightGraphFile file = new FlightGraphFile(directory.resolve("graph.bin"));
+        file.write(FlightGraph.builder().addAirport(7, 7).build());
+        final FlightGraphSnapshots fromFile = fromFile(file, false);
+        try {
+            final FlightGraphSnapshot loaded = fromFile.current();
+            Assertions.assertEquals(0, loaded.getVersion());
+            Assertions.assertEquals(1, loaded.getGraph().airportId(0));
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            fromFile.shutdown();
+        }
+    }
+
+    /**
+     * Waiting for a verified snapshot outlasts the graph mapped from the file
+     */
+    @Test
+    void awaitVerified(@TempDir final Path directory) throws Exception {
+        final FlightGraphFile file = new FlightGraphFile(directory.resolve("graph.bin"));
+        file.write(FlightGraph.builder().addAirport(7, 7).build());
+        final FlightGraphSnapshots fromFile = fromFile(file, true);
+        try {
+            loading = new CountDownLatch(1);
+            Assertions.assertEquals(FlightGraphSnapshots.UNVERIFIED_VERSION, fromFile.current().getVersion());
+            final CompletableFuture<FlightGraphSnapshot> verified = CompletableFuture.supplyAsync(fromFile::verified);
+            Assertions.assertThrows(TimeoutException.class, () -> verified.get(200, TimeUnit.MILLISECONDS));
+
+            loading.countDown();
+            final FlightGraphSnapshot snapshot = verified.get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(0, snapshot.getVersion());
+            Assertions.assertEquals(1, snapshot.getGraph().airportId(0));
+        } finally {
+            fromFile.shutdown();
+        }
+    }
+
+    @Test
+    void invalidate() {
+        final FlightGraphSnapshot first = snapshots.current();
+        snapshots.invalidate();
+        Assertions.assertNotSame(first, snapshots.current());
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    /**
+     * @param matches whether the graph of {@code file} passes the check against the database
+     */
+    private FlightGraphSnapshots fromFile(final FlightGraphFile file, final boolean matches) {
+        return new FlightGraphSnapshots(new FlightGraphLoader(null, null) {
+            @Override
+            public FlightGraph load() {
+                try {
+                    loading.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                loads.incrementAndGet();
+                return FlightGraph.builder().addAirport(1, 1).build();
+            }
+
+            @Override
+            public boolean matches(final FlightGraph graph) {
+                return matches;
+            }
+        }, file, graphVersion, new SimpleMeterRegistry());
+    }
+
+    private FlightGraphSnapshot awaitVersion(final long version) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        FlightGraphSnapshot snapshot = snapshots.current();
+        while (snapshot.getVersion() < version && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            snapshot = snapshots.current();
+        }
+        Assertions.assertEquals(version, snapshot.getVersion());
+        return snapshot;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.airmin.service.graph;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+class FlightGraphTest {
+
+    /**
+     * A graph with a delta applied must have the same routes as the graph built with the changes in the first place
+     */
+    @Test
+    void applyDelta() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3).addAirport(4, 4)
+                .addRoute(12, 1, 2, 10).addRoute(23, 2, 3, 20).addRoute(34, 3, 4, 30).addRoute(13, 1, 3, 40)
+                .build();
+
+        final FlightGraph updated = graph.apply(new GraphDelta(
+                List.of(new GraphDelta.Edge(41, 4, 1, 5), new GraphDelta.Edge(14, 1, 4, 50),
+                        new GraphDelta.Edge(15, 1, 5, 1)),
+                Set.of(23L), Map.of(34L, 25d)));
+
+        final FlightGraph expected = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3).addAirport(4, 4)
+                .addRoute(12, 1, 2, 10).addRoute(34, 3, 4, 25).addRoute(13, 1, 3, 40)
+                .addRoute(41, 4, 1, 5).addRoute(14, 1, 4, 50)
+                .build();
+        Assertions.assertEquals(edges(expected), edges(updated));
+        Assertions.assertEquals(expected.nodeCount(), updated.nodeCount());
+        Assertions.assertEquals(5, updated.minPrice());
+        Assertions.assertEquals(updated.firstArrival(updated.nodeOf(1)) + 1,
+                updated.endArrival(updated.nodeOf(1)));
+        Assertions.assertEquals(4, graph.edgeCount());
+    }
+
+    @Test
+    void airportsOfCity() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(5, 30).addAirport(1, 10).addAirport(4, 10).addAirport(2, 20).addAirport(3, 10)
+                .build();
+        Assertions.assertArrayEquals(new int[]{0, 2, 3}, graph.airportsIn(10));
+        Assertions.assertArrayEquals(new int[]{1}, graph.airportsIn(20));
+        Assertions.assertArrayEquals(new int[]{4}, graph.airportsIn(30));
+        Assertions.assertArrayEquals(new int[0], graph.airportsIn(15));
+        Assertions.assertArrayEquals(new int[0], graph.airportsIn(40));
+        Assertions.assertArrayEquals(new int[0], FlightGraph.builder().build().airportsIn(10));
+
+        graph.airportsIn(10)[0] = 4;
+        Assertions.assertArrayEquals(new int[]{0, 2, 3}, graph.airportsIn(10));
+        Assertions.assertArrayEquals(new int[]{0, 2, 3}, graph.apply(GraphDelta.added(List.of())).airportsIn(10));
+    }
+
+    private static Set<String> edges(final FlightGraph graph) {
+        final Set<String> edges = new TreeSet<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                Assertions.assertEquals(node, graph.source(e));
+                edges.add(String.format("%s:%s-%s:%s", graph.routeId(e), graph.airportId(node),
+                        graph.airportId(graph.target(e)), graph.price(e)));
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * A mapped graph is the same as the graph written
+     */
+    @Test
+    void writeAndMap(@TempDir final Path directory) throws IOException {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 10, 52.5, 13.4).addAirport(2, 20, 44.8, 20.5).addAirport(3, 30)
+                .addRoute(12, 1, 2, 10).addRoute(21, 2, 1, 12).addRoute(23, 2, 3, 20).addRoute(31, 3, 1, 15)
+                .build();
+        final Path file = directory.resolve("graph.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            graph.writeTo(channel);
+        }
+
+        final FlightGraph mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = FlightGraph.map(channel);
+        }
+        Assertions.assertEquals(graph.fingerprint(), mapped.fingerprint());
+        Assertions.assertEquals(edges(graph), edges(mapped));
+        Assertions.assertEquals(graph.minPrice(), mapped.minPrice());
+        Assertions.assertEquals(graph.minPricePerKm(), mapped.minPricePerKm());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            Assertions.assertEquals(node, mapped.nodeOf(graph.airportId(node)));
+            Assertions.assertEquals(graph.cityId(node), mapped.cityId(node));
+            Assertions.assertEquals(graph.latitude(node), mapped.latitude(node));
+            Assertions.assertEquals(graph.endArrival(node), mapped.endArrival(node));
+        }
+        Assertions.assertEquals(-1, mapped.nodeOf(4));
+        Assertions.assertArrayEquals(new int[]{1}, mapped.airportsIn(20));
+        Assertions.assertArrayEquals(new int[0], mapped.airportsIn(40));
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            Assertions.assertEquals(graph.distanceKm(edge), mapped.distanceKm(edge));
+            Assertions.assertEquals(graph.arrival(edge), mapped.arrival(edge));
+        }
+
+        final FlightGraph updated = mapped.apply(GraphDelta.added(List.of(new GraphDelta.Edge(13, 1, 3, 5))));
+        Assertions.assertEquals(5, updated.edgeCount());
+        Assertions.assertEquals(5, updated.minPrice());
+    }
+
+    @Test
+    void rejectCorruptedFile(@TempDir final Path directory) throws IOException {
+        final FlightGraph graph = FlightGraph.builder().addAirport(1, 1).addAirport(2, 2).addRoute(12, 1, 2, 10)
+                .build();
+        final Path file = directory.resolve("graph.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            graph.writeTo(channel);
+            // first airport id, right after the header
+            channel.write(ByteBuffer.wrap(new byte[]{7, 7, 7, 7}), 48);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Assertions.assertThrows(IOException.class, () -> FlightGraph.map(channel));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Assertions.assertThrows(IOException.class, () -> FlightGraph.map(channel));
+        }
+    }
+}
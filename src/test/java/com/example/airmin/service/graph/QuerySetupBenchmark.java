@@ -0,0 +1,86 @@
+package com.example.airmin.service.graph;
+
+import com.example.airmin.service.shortestpath.Dijkstra;
+import com.example.airmin.service.shortestpath.QueueType;
+import com.example.airmin.util.DatasetGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * Share of query setup (finding airports of both cities) in the total time of a cheapest route query on the full
+ * routes dataset, with a scan over all airports and with {@link FlightGraph#airportsIn(long)}. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QuerySetupBenchmark {
+
+    private static final int QUERIES = 2000;
+
+    private final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+    private FlightGraph graph;
+    private long[][] queries;
+
+    @BeforeAll
+    void beforeAll() throws IOException {
+        graph = DatasetGraph.load();
+        final Random random = new Random(42);
+        queries = new long[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new long[]{graph.cityId(random.nextInt(graph.nodeCount())),
+                    graph.cityId(random.nextInt(graph.nodeCount()))};
+        }
+    }
+
+    @Test
+    void setup() {
+        run(this::scan, "warm-up");
+        final double[] expected = run(this::scan, "scan over all airports");
+        run(graph::airportsIn, "warm-up");
+        final double[] prices = run(graph::airportsIn, "city index");
+        Assertions.assertArrayEquals(expected, prices);
+    }
+
+    private double[] run(final LongFunction<int[]> airportsIn, final String name) {
+        final double[] prices = new double[QUERIES];
+        long setup = 0;
+        long search = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            final long start = System.nanoTime();
+            final int[] sources = airportsIn.apply(queries[i][0]);
+            final int[] targets = airportsIn.apply(queries[i][1]);
+            final long ready = System.nanoTime();
+            prices[i] = dijkstra.cheapest(graph, sources, targets).getPrice();
+            search += System.nanoTime() - ready;
+            setup += ready - start;
+        }
+        System.out.printf("%-24s setup %8.2f us/query, search %8.1f us/query, setup %5.2f%% of total%n", name,
+                setup / 1000.0 / QUERIES, search / 1000.0 / QUERIES, 100.0 * setup / (setup + search));
+        return prices;
+    }
+
+    /**
+     * Query setup before the city index
+     */
+    private int[] scan(final long cityId) {
+        int[] airports = new int[4];
+        int size = 0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.cityId(node) == cityId) {
+                if (size == airports.length) {
+                    airports = Arrays.copyOf(airports, size * 2);
+                }
+                airports[size++] = node;
+            }
+        }
+        return Arrays.copyOf(airports, size);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AStarTest {
+
+    /**
+     * Airports on the equator one degree apart (ids -10..10) with routes between neighbours priced by distance.
+     * Searching eastwards from airport 0, A* must not settle the airports west of it.
+     */
+    @Test
+    void settleTowardsTarget() {
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (long airport = -10; airport <= 10; airport++) {
+            builder.addAirport(airport, airport, 0, airport);
+            if (airport > -10) {
+                builder.addRoute(airport * 2, airport - 1, airport, 10d);
+                builder.addRoute(airport * 2 + 1, airport, airport - 1, 10d);
+            }
+        }
+        final FlightGraph graph = builder.build();
+        final int[] sources = {graph.nodeOf(0)};
+        final int[] targets = {graph.nodeOf(10)};
+
+        final ShortestPath expected = new Dijkstra(QueueType.DARY_HEAP, 4).cheapest(graph, sources, targets);
+        final ShortestPath actual = new AStar(QueueType.DARY_HEAP, 4).cheapest(graph, sources, targets);
+
+        Assertions.assertTrue(graph.minPricePerKm() > 0);
+        Assertions.assertEquals(expected.getPrice(), actual.getPrice(), 1e-9);
+        Assertions.assertArrayEquals(expected.getRouteIds(), actual.getRouteIds());
+        Assertions.assertEquals(11, actual.getSettled());
+        Assertions.assertTrue(expected.getSettled() > actual.getSettled());
+    }
+
+    @Test
+    void noBoundWithoutCoordinates() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1, 0, 0).addAirport(2, 2).addAirport(3, 3, 0, 2)
+                .addRoute(12, 1, 2, 1d).addRoute(23, 2, 3, 1d).addRoute(13, 1, 3, 5d)
+                .build();
+
+        final ShortestPath path = new AStar(QueueType.DARY_HEAP, 4)
+                .cheapest(graph, new int[]{graph.nodeOf(1)}, new int[]{graph.nodeOf(3)});
+
+        Assertions.assertEquals(0, graph.minPricePerKm());
+        Assertions.assertArrayEquals(new long[]{12, 23}, path.getRouteIds());
+    }
+}
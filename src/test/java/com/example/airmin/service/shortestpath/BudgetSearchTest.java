@@ -0,0 +1,79 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class BudgetSearchTest {
+
+    private final BudgetSearch budgetSearch = new BudgetSearch(QueueType.DARY_HEAP, 4);
+
+    /**
+     * @formatter:off
+     * N1 - 1 - N2 - 2 - N3 - 4 - N4 - 8 - N5
+     *  \
+     *   10 - N6
+     * @formatter:on
+     */
+    @Test
+    void stopAtBudget() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6)
+                .addRoute(12, 1, 2, 1d).addRoute(23, 2, 3, 2d).addRoute(34, 3, 4, 4d)
+                .addRoute(45, 4, 5, 8d).addRoute(16, 1, 6, 10d)
+                .build();
+
+        final ReachableAirports reachable = budgetSearch.reachable(graph, new int[]{graph.nodeOf(1)}, 7);
+
+        Assertions.assertArrayEquals(new int[]{graph.nodeOf(1), graph.nodeOf(2), graph.nodeOf(3), graph.nodeOf(4)},
+                reachable.getNodes());
+        Assertions.assertArrayEquals(new double[]{0, 1, 3, 7}, reachable.getPrices());
+
+        Assertions.assertEquals(1, budgetSearch.reachable(graph, new int[]{graph.nodeOf(1)}, 0).size());
+        Assertions.assertEquals(6, budgetSearch.reachable(graph, new int[]{graph.nodeOf(1)}, 15).size());
+    }
+
+    /**
+     * Exactly the airports a full {@link Dijkstra} search prices within the budget must be found, at its prices
+     */
+    @Test
+    void matchDijkstra() {
+        final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+        final Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            final FlightGraph.Builder builder = FlightGraph.builder();
+            final int airports = 30;
+            for (int airport = 0; airport < airports; airport++) {
+                builder.addAirport(airport, airport);
+            }
+            for (int route = 0; route < 80; route++) {
+                builder.addRoute(route, random.nextInt(airports), random.nextInt(airports), 1 + random.nextInt(50));
+            }
+            final FlightGraph graph = builder.build();
+            final int[] sources = {graph.nodeOf(0), graph.nodeOf(1)};
+            final double budget = random.nextInt(120);
+
+            final ReachableAirports reachable = budgetSearch.reachable(graph, sources, budget);
+            final double[] prices = new double[airports];
+            Arrays.fill(prices, Double.NaN);
+            for (int i = 0; i < reachable.size(); i++) {
+                prices[reachable.getNodes()[i]] = reachable.getPrices()[i];
+                if (i > 0) {
+                    Assertions.assertTrue(reachable.getPrices()[i - 1] <= reachable.getPrices()[i]);
+                }
+            }
+            for (int node = 0; node < airports; node++) {
+                final double expected = dijkstra.cheapest(graph, sources, new int[]{node}).getPrice();
+                if (expected <= budget) {
+                    Assertions.assertEquals(expected, prices[node]);
+                } else {
+                    Assertions.assertTrue(Double.isNaN(prices[node]));
+                }
+            }
+        }
+    }
+}
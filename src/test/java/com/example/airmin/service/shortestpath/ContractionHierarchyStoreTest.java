@@ -0,0 +1,47 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+class ContractionHierarchyStoreTest {
+
+    /**
+     * Only the hierarchy file of the current graph is kept
+     */
+    @Test
+    void deleteOutdatedFiles(@TempDir final Path directory) throws IOException {
+        final Path unrelated = Files.createFile(directory.resolve("graph.bin"));
+        final ContractionHierarchyStore store = new ContractionHierarchyStore(new RouteDiscoveryProperties(
+                Algorithm.CONTRACTION_HIERARCHIES, QueueType.DARY_HEAP, 4, directory.toString(), 16, 20, 8, 0, 0,
+                Duration.ZERO, null, false, 0));
+        try {
+            final FlightGraph g1 = graph(10);
+            final FlightGraph g2 = graph(20);
+            store.get(g1);
+            Assertions.assertTrue(Files.isRegularFile(file(directory, g1)));
+
+            store.get(g2);
+            Assertions.assertTrue(Files.isRegularFile(file(directory, g2)));
+            Assertions.assertFalse(Files.exists(file(directory, g1)));
+            Assertions.assertTrue(Files.exists(unrelated));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    private static Path file(final Path directory, final FlightGraph graph) {
+        return directory.resolve(String.format("ch-%016x.bin", graph.fingerprint()));
+    }
+
+    private static FlightGraph graph(final double price) {
+        return FlightGraph.builder().addAirport(1, 1).addAirport(2, 2).addRoute(1, 1, 2, price).build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void unpackShortcuts() {
+        final FlightGraph graph = chain(1.0);
+        final ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        final ShortestPath path = engine().cheapest(hierarchy, graph, nodes(graph, 1), nodes(graph, 5));
+
+        Assertions.assertEquals(4, path.getPrice(), 1e-9);
+        Assertions.assertArrayEquals(new long[]{1, 2, 3, 4}, path.getRouteIds());
+    }
+
+    @Test
+    void noPath() {
+        final FlightGraph graph = chain(1.0);
+        final ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        Assertions.assertTrue(engine().cheapest(hierarchy, graph, nodes(graph, 5), nodes(graph, 1)).isEmpty());
+    }
+
+    @Test
+    void readWrittenHierarchy() throws IOException {
+        final FlightGraph graph = chain(1.0);
+        final ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hierarchy.writeTo(new DataOutputStream(bytes));
+
+        final ContractionHierarchy read = ContractionHierarchy.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), graph);
+        Assertions.assertEquals(hierarchy.edgeCount(), read.edgeCount());
+        Assertions.assertArrayEquals(new long[]{1, 2, 3, 4},
+                engine().cheapest(read, graph, nodes(graph, 1), nodes(graph, 5)).getRouteIds());
+
+        Assertions.assertThrows(IOException.class, () -> ContractionHierarchy.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), chain(2.0)));
+    }
+
+    /**
+     * 1 -> 2 -> 3 -> 4 -> 5 with a direct, more expensive 1 -> 5 route
+     */
+    private static FlightGraph chain(final double price) {
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (long airport = 1; airport <= 5; airport++) {
+            builder.addAirport(airport, airport);
+        }
+        for (long route = 1; route <= 4; route++) {
+            builder.addRoute(route, route, route + 1, price);
+        }
+        builder.addRoute(5, 1, 5, 5 * price);
+        return builder.build();
+    }
+
+    private static ContractionHierarchyEngine engine() {
+        return new ContractionHierarchyEngine(null, null, QueueType.DARY_HEAP, 4);
+    }
+
+    private static int[] nodes(final FlightGraph graph, final long... airportIds) {
+        final int[] nodes = new int[airportIds.length];
+        for (int i = 0; i < airportIds.length; i++) {
+            nodes[i] = graph.nodeOf(airportIds[i]);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.util.DatasetGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares {@link NodeQueue} implementations on the full routes dataset. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DijkstraBenchmark {
+
+    private static final int QUERIES = 2000;
+
+    private FlightGraph graph;
+    private int[][] queries;
+
+    @BeforeAll
+    void beforeAll() throws IOException {
+        graph = DatasetGraph.load();
+        final Random random = new Random(42);
+        queries = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new int[]{random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount())};
+        }
+    }
+
+    @Test
+    void queues() {
+        final double[] expected = run(new Dijkstra(QueueType.PRIORITY_QUEUE, 2), "warm-up");
+        run(new Dijkstra(QueueType.PRIORITY_QUEUE, 2), "PriorityQueue, lazy deletion");
+        for (final int arity : new int[]{2, 4, 8}) {
+            run(new Dijkstra(QueueType.DARY_HEAP, arity), "warm-up");
+            final double[] prices = run(new Dijkstra(QueueType.DARY_HEAP, arity), arity + "-ary indexed heap");
+            Assertions.assertArrayEquals(expected, prices);
+        }
+    }
+
+    private double[] run(final Dijkstra dijkstra, final String name) {
+        final double[] prices = new double[QUERIES];
+        final long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            prices[i] = dijkstra.cheapest(graph, new int[]{queries[i][0]}, new int[]{queries[i][1]}).getPrice();
+        }
+        System.out.printf("%-32s %8.1f us/query%n", name, (System.nanoTime() - start) / 1000.0 / QUERIES);
+        return prices;
+    }
+}
@@ -1,19 +1,15 @@
 package com.example.airmin.service.shortestpath;
 
-import com.example.airmin.model.Airport;
-import com.example.airmin.model.Route;
+import com.example.airmin.service.graph.FlightGraph;
 import org.junit.jupiter.api.Assertions;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.stream.Stream;
 
 class DijkstraTest {
 
-    private final Dijkstra dijkstra = new Dijkstra();
-
-
     /**
      * @formatter:off
      *      N5 ---- 12 -----  N6
@@ -25,43 +21,23 @@ class DijkstraTest {
      *
      * Produced shortest path N1 -> N6 should be N1, N5, N2, N3, N4, N6
      */
-    @Test
-    void findShortest() {
-        final Airport n1 = new Airport(1L, "N1", null);
-        n1.setId(1L);
-        final Airport n2 = new Airport(2L, "N2", null);
-        n2.setId(2L);
-        final Airport n3 = new Airport(3L, "N3", null);
-        n3.setId(3L);
-        final Airport n4 = new Airport(4L, "N4", null);
-        n4.setId(4L);
-        final Airport n5 = new Airport(5L, "N5", null);
-        n5.setId(5L);
-        final Airport n6 = new Airport(6L, "N6", null);
-        n6.setId(6L);
-        n1.setDepartures(Arrays.asList(new Route(1d, n1, n5), new Route(99d, n1, n2)));
-        n2.setDepartures(Arrays.asList(new Route(2d, n2, n3)));
-        n3.setDepartures(Arrays.asList(new Route(6d, n3, n6), new Route(4d, n3, n4)));
-        n4.setDepartures(Arrays.asList(new Route(1d, n4, n6)));
-        n5.setDepartures(Arrays.asList(new Route(1d, n5, n2), new Route(12d, n5, n6)));
-        n6.setDepartures(Arrays.asList());
-
-        final var predecessors = dijkstra.calculateGraph(Arrays.asList(n1, n2, n3, n4, n5, n6),
-                Collections.singletonList(n1), Collections.singletonList(n6));
-        final List<Route> path = dijkstra.shortestPath(n6, predecessors);
-        Assertions.assertEquals(5, path.size());
-        Assertions.assertEquals(n1, path.get(0).getSource());
-        Assertions.assertEquals(n5, path.get(0).getDestination());
-        Assertions.assertEquals(n5, path.get(1).getSource());
-        Assertions.assertEquals(n2, path.get(1).getDestination());
-        Assertions.assertEquals(n2, path.get(2).getSource());
-        Assertions.assertEquals(n3, path.get(2).getDestination());
-        Assertions.assertEquals(n3, path.get(3).getSource());
-        Assertions.assertEquals(n4, path.get(3).getDestination());
-        Assertions.assertEquals(n4, path.get(4).getSource());
-        Assertions.assertEquals(n6, path.get(4).getDestination());
-        Assertions.assertEquals(9, path.stream().mapToDouble(Route::getPrice).sum());
+    @ParameterizedTest
+    @EnumSource(QueueType.class)
+    void findShortest(final QueueType queueType) {
+        final Dijkstra dijkstra = new Dijkstra(queueType, 4);
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6)
+                .addRoute(15, 1, 5, 1d).addRoute(12, 1, 2, 99d)
+                .addRoute(23, 2, 3, 2d)
+                .addRoute(36, 3, 6, 6d).addRoute(34, 3, 4, 4d)
+                .addRoute(46, 4, 6, 1d)
+                .addRoute(52, 5, 2, 1d).addRoute(56, 5, 6, 12d)
+                .build();
 
+        final ShortestPath path = dijkstra.cheapest(graph, nodes(graph, 1), nodes(graph, 6));
+        Assertions.assertArrayEquals(new long[]{15, 52, 23, 34, 46}, path.getRouteIds());
+        Assertions.assertEquals(9, path.getPrice());
     }
 
     /**
@@ -77,38 +53,71 @@ class DijkstraTest {
      *
      * Produced shortest path N0/N1 -> N6 should be N0, N6
      */
-    @Test
-    void findShortestWhenMultipleSources() {
-        final var n0 = new Airport(0L, "N0", null);
-        n0.setId(0L);
-        final var n1 = new Airport(1L, "N1", null);
-        n1.setId(1L);
-        final var n2 = new Airport(2L, "N2", null);
-        n2.setId(2L);
-        final var n3 = new Airport(3L, "N3", null);
-        n3.setId(3L);
-        final var n4 = new Airport(4L, "N4", null);
-        n4.setId(4L);
-        final var n5 = new Airport(5L, "N5", null);
-        n5.setId(5L);
-        final var n6 = new Airport(6L, "N6", null);
-        n6.setId(6L);
+    @ParameterizedTest
+    @EnumSource(QueueType.class)
+    void findShortestWhenMultipleSources(final QueueType queueType) {
+        final Dijkstra dijkstra = new Dijkstra(queueType, 4);
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(0, 0).addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6)
+                .addRoute(6, 0, 6, 7d)
+                .addRoute(15, 1, 5, 1d).addRoute(12, 1, 2, 99d)
+                .addRoute(23, 2, 3, 2d)
+                .addRoute(36, 3, 6, 6d).addRoute(34, 3, 4, 4d)
+                .addRoute(46, 4, 6, 1d)
+                .addRoute(52, 5, 2, 1d)
+                .build();
 
-        n0.setDepartures(Arrays.asList(new Route(7d, n0, n6)));
-        n1.setDepartures(Arrays.asList(new Route(1d, n1, n5), new Route(99d, n1, n2)));
-        n2.setDepartures(Arrays.asList(new Route(2d, n2, n3)));
-        n3.setDepartures(Arrays.asList(new Route(6d, n3, n6), new Route(4d, n3, n4)));
-        n4.setDepartures(Arrays.asList(new Route(1d, n4, n6)));
-        n5.setDepartures(Arrays.asList(new Route(1d, n5, n2)));
-        n6.setDepartures(Collections.emptyList());
+        final ShortestPath path = dijkstra.cheapest(graph, nodes(graph, 0, 1), nodes(graph, 6));
+        Assertions.assertArrayEquals(new long[]{6}, path.getRouteIds());
+        Assertions.assertEquals(7, path.getPrice());
+    }
+
+    /**
+     * The path is made of the relaxed edges: the cheaper of parallel routes, and exactly one of parallel routes with
+     * the same price
+     */
+    @ParameterizedTest
+    @MethodSource("engines")
+    void parallelRoutes(final ShortestPathEngine engine) {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3).addAirport(4, 4)
+                .addRoute(121, 1, 2, 5d).addRoute(122, 1, 2, 3d).addRoute(123, 1, 2, 4d)
+                .addRoute(231, 2, 3, 2d).addRoute(232, 2, 3, 2d)
+                .addRoute(341, 3, 4, 1d).addRoute(342, 3, 4, 0.5d)
+                .build();
 
-        final var predecessors = dijkstra.calculateGraph(Arrays.asList(n0, n1, n2, n3, n4, n5, n6),
-                Arrays.asList(n0, n1), Collections.singletonList(n6));
-        final var path = dijkstra.shortestPath(n6, predecessors);
-        Assertions.assertEquals(1, path.size());
-        Assertions.assertEquals(n0, path.get(0).getSource());
-        Assertions.assertEquals(n6, path.get(0).getDestination());
-        Assertions.assertEquals(7, path.stream().mapToDouble(Route::getPrice).sum());
+        final ShortestPath path = engine.cheapest(graph, nodes(graph, 1), nodes(graph, 4));
+        Assertions.assertEquals(3, path.getRouteIds().length);
+        Assertions.assertEquals(122, path.getRouteIds()[0]);
+        Assertions.assertTrue(path.getRouteIds()[1] == 231 || path.getRouteIds()[1] == 232);
+        Assertions.assertEquals(342, path.getRouteIds()[2]);
+        Assertions.assertEquals(5.5, path.getPrice());
     }
 
-}
\ No newline at end of file
+    static Stream<ShortestPathEngine> engines() {
+        return Stream.of(new Dijkstra(QueueType.DARY_HEAP, 4), new Dijkstra(QueueType.PRIORITY_QUEUE, 4),
+                new AStar(QueueType.DARY_HEAP, 4), new BidirectionalDijkstra(QueueType.DARY_HEAP, 4));
+    }
+
+    @ParameterizedTest
+    @EnumSource(QueueType.class)
+    void noPath(final QueueType queueType) {
+        final Dijkstra dijkstra = new Dijkstra(queueType, 4);
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2)
+                .addRoute(21, 2, 1, 1d)
+                .build();
+
+        final ShortestPath path = dijkstra.cheapest(graph, nodes(graph, 1), nodes(graph, 2));
+        Assertions.assertTrue(path.isEmpty());
+    }
+
+    private int[] nodes(final FlightGraph graph, final long... airportIds) {
+        final int[] nodes = new int[airportIds.length];
+        for (int i = 0; i < airportIds.length; i++) {
+            nodes[i] = graph.nodeOf(airportIds[i]);
+        }
+        return nodes;
+    }
+}
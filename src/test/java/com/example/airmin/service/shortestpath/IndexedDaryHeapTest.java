@@ -0,0 +1,64 @@
+package com.example.airmin.service.shortestpath;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class IndexedDaryHeapTest {
+
+    /**
+     * Insert nodes with random keys, decrease half of them and expect nodes to be polled in key order, each once
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 4, 8})
+    void pollInKeyOrder(final int arity) {
+        final int nodes = 1000;
+        final Random random = new Random(arity);
+        final double[] keys = new double[nodes];
+        final IndexedDaryHeap heap = new IndexedDaryHeap(arity);
+        heap.reset(nodes);
+        for (int node = 0; node < nodes; node++) {
+            keys[node] = random.nextDouble() * 1000;
+            heap.offer(node, keys[node]);
+        }
+        for (int node = 0; node < nodes; node += 2) {
+            keys[node] = keys[node] * random.nextDouble();
+            heap.offer(node, keys[node]);
+            // increasing key is ignored
+            heap.offer(node, keys[node] + 1);
+        }
+        Assertions.assertEquals(nodes, heap.size());
+
+        final boolean[] polled = new boolean[nodes];
+        double previous = Double.NEGATIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            final int node = heap.poll();
+            Assertions.assertFalse(polled[node]);
+            Assertions.assertTrue(keys[node] >= previous);
+            polled[node] = true;
+            previous = keys[node];
+        }
+        final boolean[] all = new boolean[nodes];
+        Arrays.fill(all, true);
+        Assertions.assertArrayEquals(all, polled);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4})
+    void reuseAfterReset(final int arity) {
+        final IndexedDaryHeap heap = new IndexedDaryHeap(arity);
+        heap.reset(10);
+        heap.offer(3, 3);
+        heap.offer(1, 1);
+        heap.reset(10);
+        Assertions.assertTrue(heap.isEmpty());
+
+        heap.offer(3, 1);
+        heap.offer(1, 3);
+        Assertions.assertEquals(3, heap.poll());
+        Assertions.assertEquals(1, heap.poll());
+    }
+}
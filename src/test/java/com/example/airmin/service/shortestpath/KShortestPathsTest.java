@@ -0,0 +1,106 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class KShortestPathsTest {
+
+    private final KShortestPaths kShortestPaths = new KShortestPaths(null, QueueType.DARY_HEAP, 4);
+
+    /**
+     * @formatter:off
+     *      N5 ---- 12 -----  N6
+     *     /  \              /  \
+     *    1    1            6     1
+     *   /       \         /       \
+     * N1 - 99 - N2 - 2 - N3 - 4 -  N4
+     * @formatter:on
+     */
+    @Test
+    void rankedLooplessPaths() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6)
+                .addRoute(15, 1, 5, 1d).addRoute(12, 1, 2, 99d)
+                .addRoute(23, 2, 3, 2d)
+                .addRoute(36, 3, 6, 6d).addRoute(34, 3, 4, 4d)
+                .addRoute(46, 4, 6, 1d)
+                .addRoute(52, 5, 2, 1d).addRoute(56, 5, 6, 12d)
+                .build();
+
+        final List<ShortestPath> paths = kShortestPaths.cheapest(graph, new int[]{graph.nodeOf(1)},
+                new int[]{graph.nodeOf(6)}, 10);
+
+        Assertions.assertEquals(5, paths.size());
+        Assertions.assertArrayEquals(new long[]{15, 52, 23, 34, 46}, paths.get(0).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{15, 52, 23, 36}, paths.get(1).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{15, 56}, paths.get(2).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{12, 23, 34, 46}, paths.get(3).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{12, 23, 36}, paths.get(4).getRouteIds());
+        Assertions.assertEquals(9, paths.get(0).getPrice());
+    }
+
+    /**
+     * Prices of the k cheapest paths must match brute force enumeration of all loopless paths on random graphs
+     */
+    @Test
+    void matchBruteForce() {
+        final Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            final FlightGraph.Builder builder = FlightGraph.builder();
+            final int airports = 8;
+            for (int airport = 0; airport < airports; airport++) {
+                builder.addAirport(airport, airport / 2);
+            }
+            for (int route = 0; route < 24; route++) {
+                final int source = random.nextInt(airports);
+                final int destination = random.nextInt(airports);
+                if (source != destination) {
+                    builder.addRoute(route, source, destination, 1 + random.nextInt(20));
+                }
+            }
+            final FlightGraph graph = builder.build();
+            final int[] sources = {graph.nodeOf(0), graph.nodeOf(1)};
+            final int[] targets = {graph.nodeOf(6), graph.nodeOf(7)};
+
+            final List<Double> expected = new ArrayList<>();
+            for (final int source : sources) {
+                enumerate(graph, source, targets, 0, new HashSet<>(Set.of(source)), expected);
+            }
+            expected.sort(Double::compare);
+
+            final List<ShortestPath> paths = kShortestPaths.cheapest(graph, sources, targets, 6);
+            Assertions.assertEquals(Math.min(6, expected.size()), paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                Assertions.assertEquals(expected.get(i), paths.get(i).getPrice(), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * All loopless paths ending at the first target they reach
+     */
+    private static void enumerate(final FlightGraph graph, final int node, final int[] targets, final double price,
+                                  final Set<Integer> visited, final List<Double> prices) {
+        for (final int target : targets) {
+            if (node == target) {
+                prices.add(price);
+                return;
+            }
+        }
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            final int next = graph.target(e);
+            if (visited.add(next)) {
+                enumerate(graph, next, targets, price + graph.price(e), visited, prices);
+                visited.remove(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LandmarkStoreTest {
+
+    private static final int AIRPORTS = 40;
+
+    private final CountingLandmarkStore store = new CountingLandmarkStore();
+    private final LandmarkAStar landmarkAStar = new LandmarkAStar(store, new AStar(QueueType.DARY_HEAP, 4),
+            new BidirectionalDijkstra(QueueType.DARY_HEAP, 4));
+    private final KShortestPaths kShortestPaths = new KShortestPaths(store, QueueType.DARY_HEAP, 4);
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    /**
+     * Queries still running on the replaced graph don't evict the updated table, which stays an incremental repair
+     */
+    @Test
+    void staleReaderAfterUpdate() {
+        final Random random = new Random(11);
+        final FlightGraph g1 = graph(random);
+        landmarkAStar.prepare(g1);
+        landmarkAStar.awaitPrepared(g1);
+        final GraphDelta delta = GraphDelta.added(edges(random, 1000, 20));
+        final FlightGraph g2 = g1.apply(delta);
+
+        landmarkAStar.update(g1.fingerprint(), g2, delta);
+        for (int source = 0; source < 5; source++) {
+            landmarkAStar.cheapest(g1, new int[]{source}, new int[]{AIRPORTS - 1 - source});
+            kShortestPaths.cheapest(g1, new int[]{source}, new int[]{AIRPORTS - 1 - source}, 3);
+        }
+        Assertions.assertFalse(store.find(g1).isPresent());
+
+        Assertions.assertEquals(g2.fingerprint(), store.get(g2).fingerprint());
+        Assertions.assertTrue(store.find(g2).isPresent());
+        Assertions.assertEquals(1, store.builds.get());
+        Assertions.assertEquals(1, store.updates.get());
+    }
+
+    private static FlightGraph graph(final Random random) {
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (int airport = 0; airport < AIRPORTS; airport++) {
+            builder.addAirport(airport, airport);
+        }
+        for (final GraphDelta.Edge edge : edges(random, 0, 120)) {
+            builder.addRoute(edge.getRouteId(), edge.getSourceAirportId(), edge.getDestinationAirportId(),
+                    edge.getPrice());
+        }
+        return builder.build();
+    }
+
+    private static List<GraphDelta.Edge> edges(final Random random, final long firstId, final int count) {
+        final List<GraphDelta.Edge> edges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            edges.add(new GraphDelta.Edge(firstId + i, random.nextInt(AIRPORTS), random.nextInt(AIRPORTS),
+                    1 + random.nextInt(100)));
+        }
+        return edges;
+    }
+
+    /**
+     * Counts full builds and incremental updates of the table
+     */
+    private static final class CountingLandmarkStore extends LandmarkStore {
+
+        private final AtomicInteger builds = new AtomicInteger();
+        private final AtomicInteger updates = new AtomicInteger();
+
+        private CountingLandmarkStore() {
+            super(new RouteDiscoveryProperties(Algorithm.ALT, QueueType.DARY_HEAP, 4, null, 16, 20, 8, 0, 0,
+                    Duration.ZERO, null, false, 0));
+        }
+
+        @Override
+        protected LandmarkTable preprocess(final FlightGraph graph) {
+            builds.incrementAndGet();
+            return super.preprocess(graph);
+        }
+
+        @Override
+        protected LandmarkTable update(final LandmarkTable previous, final FlightGraph graph,
+                                       final GraphDelta delta) {
+            updates.incrementAndGet();
+            return super.update(previous, graph, delta);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.service.graph.GraphDelta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class LandmarkTableTest {
+
+    private static final int AIRPORTS = 60;
+
+    private final OneToManySearch oneToManySearch = new OneToManySearch(QueueType.DARY_HEAP, 4);
+
+    /**
+     * Added routes only make prices drop, the updated table has the exact prices from every landmark
+     */
+    @Test
+    void updateWithAddedRoutes() {
+        final Random random = new Random(3);
+        for (int round = 0; round < 10; round++) {
+            final FlightGraph graph = randomGraph(random, 90);
+            final LandmarkTable table = LandmarkTable.build(graph, 4);
+            final GraphDelta delta = GraphDelta.added(randomEdges(random, 1000, 40));
+            final FlightGraph updated = graph.apply(delta);
+
+            final LandmarkTable repaired = table.update(updated, delta);
+            assertAdmissible(updated, repaired);
+            final double[][] exact = prices(updated);
+            for (int i = 0; i < repaired.landmarkCount(); i++) {
+                final int landmark = repaired.landmark(i);
+                for (int node = 0; node < AIRPORTS; node++) {
+                    if (exact[landmark][node] < Double.POSITIVE_INFINITY) {
+                        Assertions.assertEquals(exact[landmark][node], repaired.lowerBound(landmark, node, i), 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounds stay admissible with routes added, removed, cheaper and more expensive
+     */
+    @Test
+    void updateWithAnyChange() {
+        final Random random = new Random(5);
+        for (int round = 0; round < 10; round++) {
+            final FlightGraph graph = randomGraph(random, 120);
+            final LandmarkTable table = LandmarkTable.build(graph, 4);
+
+            final Set<Long> removed = new HashSet<>();
+            final Map<Long, Double> repriced = new HashMap<>();
+            for (int i = 0; i < 15; i++) {
+                removed.add(graph.routeId(random.nextInt(graph.edgeCount())));
+                final int e = random.nextInt(graph.edgeCount());
+                repriced.put(graph.routeId(e), graph.price(e) * (0.2 + random.nextDouble()));
+            }
+            repriced.keySet().removeAll(removed);
+            final GraphDelta delta = new GraphDelta(randomEdges(random, 1000, 30), removed, repriced);
+            final FlightGraph updated = graph.apply(delta);
+
+            final LandmarkTable updatedTable = table.update(updated, delta);
+            Assertions.assertEquals(updated.fingerprint(), updatedTable.fingerprint());
+            assertAdmissible(updated, updatedTable);
+        }
+    }
+
+    private void assertAdmissible(final FlightGraph graph, final LandmarkTable table) {
+        final double[][] exact = prices(graph);
+        for (int node = 0; node < AIRPORTS; node++) {
+            for (int target = 0; target < AIRPORTS; target++) {
+                for (int i = 0; i < table.landmarkCount(); i++) {
+                    Assertions.assertTrue(table.lowerBound(node, target, i) <= exact[node][target] + 1e-9);
+                }
+            }
+        }
+    }
+
+    private double[][] prices(final FlightGraph graph) {
+        final int[][] targets = new int[AIRPORTS][];
+        for (int node = 0; node < AIRPORTS; node++) {
+            targets[node] = new int[]{node};
+        }
+        final double[][] prices = new double[AIRPORTS][AIRPORTS];
+        for (int node = 0; node < AIRPORTS; node++) {
+            final ShortestPath[] paths = oneToManySearch.cheapest(graph, new int[]{node}, targets, false);
+            for (int target = 0; target < AIRPORTS; target++) {
+                prices[node][target] = paths[target].getPrice();
+            }
+        }
+        return prices;
+    }
+
+    private static FlightGraph randomGraph(final Random random, final int routes) {
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (int airport = 0; airport < AIRPORTS; airport++) {
+            builder.addAirport(airport, airport);
+        }
+        for (final GraphDelta.Edge edge : randomEdges(random, 0, routes)) {
+            builder.addRoute(edge.getRouteId(), edge.getSourceAirportId(), edge.getDestinationAirportId(),
+                    edge.getPrice());
+        }
+        return builder.build();
+    }
+
+    private static List<GraphDelta.Edge> randomEdges(final Random random, final long firstId, final int count) {
+        final List<GraphDelta.Edge> edges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            edges.add(new GraphDelta.Edge(firstId + i, random.nextInt(AIRPORTS), random.nextInt(AIRPORTS),
+                    1 + random.nextInt(100)));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class LegLimitedSearchTest {
+
+    private final LegLimitedSearch legLimitedSearch = new LegLimitedSearch(QueueType.DARY_HEAP, 4);
+
+    /**
+     * @formatter:off
+     *      N5 ---- 12 -----  N6
+     *     /  \              /  \
+     *    1    1            6     1
+     *   /       \         /       \
+     * N1 - 99 - N2 - 2 - N3 - 4 -  N4
+     * @formatter:on
+     *
+     * The cheapest path N1, N5, N2, N3, N4, N6 takes 5 legs, fewer legs allowed give more expensive paths
+     */
+    @Test
+    void limitLegs() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6)
+                .addRoute(15, 1, 5, 1d).addRoute(12, 1, 2, 99d)
+                .addRoute(23, 2, 3, 2d)
+                .addRoute(36, 3, 6, 6d).addRoute(34, 3, 4, 4d)
+                .addRoute(46, 4, 6, 1d)
+                .addRoute(52, 5, 2, 1d).addRoute(56, 5, 6, 12d)
+                .build();
+        final int[] sources = {graph.nodeOf(1)};
+        final int[] targets = {graph.nodeOf(6)};
+
+        assertPath(new long[]{15, 52, 23, 34, 46}, 9, legLimitedSearch.cheapest(graph, sources, targets, 8));
+        assertPath(new long[]{15, 52, 23, 34, 46}, 9, legLimitedSearch.cheapest(graph, sources, targets, 5));
+        assertPath(new long[]{15, 52, 23, 36}, 10, legLimitedSearch.cheapest(graph, sources, targets, 4));
+        assertPath(new long[]{15, 56}, 13, legLimitedSearch.cheapest(graph, sources, targets, 3));
+        assertPath(new long[]{15, 56}, 13, legLimitedSearch.cheapest(graph, sources, targets, 2));
+        Assertions.assertTrue(legLimitedSearch.cheapest(graph, sources, targets, 1).isEmpty());
+    }
+
+    /**
+     * Prices must match brute force enumeration of all paths with limited legs on random graphs
+     */
+    @Test
+    void matchBruteForce() {
+        final Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            final FlightGraph.Builder builder = FlightGraph.builder();
+            final int airports = 10;
+            for (int airport = 0; airport < airports; airport++) {
+                builder.addAirport(airport, airport / 2);
+            }
+            for (int route = 0; route < 30; route++) {
+                final int source = random.nextInt(airports);
+                final int destination = random.nextInt(airports);
+                if (source != destination) {
+                    builder.addRoute(route, source, destination, 1 + random.nextInt(20));
+                }
+            }
+            final FlightGraph graph = builder.build();
+            final int[] sources = {graph.nodeOf(0), graph.nodeOf(1)};
+            final int[] targets = {graph.nodeOf(8), graph.nodeOf(9)};
+
+            for (int maxLegs = 1; maxLegs <= 5; maxLegs++) {
+                double expected = Double.POSITIVE_INFINITY;
+                for (final int source : sources) {
+                    expected = Math.min(expected, cheapest(graph, source, targets, maxLegs));
+                }
+                final ShortestPath path = legLimitedSearch.cheapest(graph, sources, targets, maxLegs);
+                Assertions.assertEquals(expected, path.getPrice(), 1e-9);
+                Assertions.assertTrue(path.getRouteIds().length <= maxLegs);
+            }
+        }
+    }
+
+    private double cheapest(final FlightGraph graph, final int node, final int[] targets, final int legs) {
+        for (final int target : targets) {
+            if (node == target) {
+                return 0;
+            }
+        }
+        double best = Double.POSITIVE_INFINITY;
+        if (legs > 0) {
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                best = Math.min(best, graph.price(e) + cheapest(graph, graph.target(e), targets, legs - 1));
+            }
+        }
+        return best;
+    }
+
+    private void assertPath(final long[] routeIds, final double price, final ShortestPath path) {
+        Assertions.assertArrayEquals(routeIds, path.getRouteIds());
+        Assertions.assertEquals(price, path.getPrice());
+    }
+}
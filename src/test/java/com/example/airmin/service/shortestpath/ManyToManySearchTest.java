@@ -0,0 +1,59 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ManyToManySearchTest {
+
+    private final OneToManySearch oneToManySearch = new OneToManySearch(QueueType.DARY_HEAP, 4);
+    private final ManyToManySearch manyToManySearch = new ManyToManySearch(oneToManySearch, 4);
+
+    @AfterEach
+    void tearDown() {
+        manyToManySearch.shutdown();
+    }
+
+    /**
+     * Every row must be delivered once, one at a time, with the prices of a separate one-to-many search
+     */
+    @Test
+    void matchOneToMany() {
+        final Random random = new Random(9);
+        final int airports = 90;
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        for (int airport = 0; airport < airports; airport++) {
+            builder.addAirport(airport, airport / 3);
+        }
+        for (int route = 0; route < 300; route++) {
+            builder.addRoute(route, random.nextInt(airports), random.nextInt(airports), 1 + random.nextInt(50));
+        }
+        final FlightGraph graph = builder.build();
+        final int[][] cities = new int[airports / 3][];
+        for (int city = 0; city < cities.length; city++) {
+            cities[city] = new int[]{graph.nodeOf(city * 3), graph.nodeOf(city * 3 + 1), graph.nodeOf(city * 3 + 2)};
+        }
+
+        final double[][] table = new double[cities.length][];
+        final AtomicBoolean consuming = new AtomicBoolean();
+        manyToManySearch.table(graph, cities, cities, (row, prices) -> {
+            Assertions.assertTrue(consuming.compareAndSet(false, true));
+            Assertions.assertNull(table[row]);
+            table[row] = prices;
+            consuming.set(false);
+        });
+
+        for (int row = 0; row < cities.length; row++) {
+            final ShortestPath[] expected = oneToManySearch.cheapest(graph, cities[row], cities, false);
+            Assertions.assertNotNull(table[row]);
+            for (int column = 0; column < cities.length; column++) {
+                Assertions.assertEquals(expected[column].getPrice(), table[row][column]);
+            }
+            Assertions.assertEquals(0, table[row][row]);
+        }
+    }
+}
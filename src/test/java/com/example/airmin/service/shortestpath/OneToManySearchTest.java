@@ -0,0 +1,108 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class OneToManySearchTest {
+
+    private final OneToManySearch oneToManySearch = new OneToManySearch(QueueType.DARY_HEAP, 4);
+
+    /**
+     * @formatter:off
+     *      N5 ---- 12 -----  N6
+     *     /  \              /  \
+     *    1    1            6     1
+     *   /       \         /       \
+     * N1 - 99 - N2 - 2 - N3 - 4 -  N4      N7
+     * @formatter:on
+     */
+    @Test
+    void allDestinationsInOneSearch() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3)
+                .addAirport(4, 4).addAirport(5, 5).addAirport(6, 6).addAirport(7, 7)
+                .addRoute(15, 1, 5, 1d).addRoute(12, 1, 2, 99d)
+                .addRoute(23, 2, 3, 2d)
+                .addRoute(36, 3, 6, 6d).addRoute(34, 3, 4, 4d)
+                .addRoute(46, 4, 6, 1d)
+                .addRoute(52, 5, 2, 1d).addRoute(56, 5, 6, 12d)
+                .build();
+
+        final ShortestPath[] paths = oneToManySearch.cheapest(graph, new int[]{graph.nodeOf(1)},
+                new int[][]{{graph.nodeOf(6)}, {graph.nodeOf(3)}, {graph.nodeOf(7)}, {graph.nodeOf(2),
+                        graph.nodeOf(4)}}, true);
+
+        Assertions.assertArrayEquals(new long[]{15, 52, 23, 34, 46}, paths[0].getRouteIds());
+        Assertions.assertEquals(9, paths[0].getPrice());
+        Assertions.assertArrayEquals(new long[]{15, 52, 23}, paths[1].getRouteIds());
+        Assertions.assertEquals(4, paths[1].getPrice());
+        Assertions.assertTrue(paths[2].isEmpty());
+        Assertions.assertEquals(Double.POSITIVE_INFINITY, paths[2].getPrice());
+        Assertions.assertArrayEquals(new long[]{15, 52}, paths[3].getRouteIds());
+
+        final ShortestPath[] prices = oneToManySearch.cheapest(graph, new int[]{graph.nodeOf(1)},
+                new int[][]{{graph.nodeOf(6)}}, false);
+        Assertions.assertEquals(9, prices[0].getPrice());
+        Assertions.assertEquals(0, prices[0].getRouteIds().length);
+    }
+
+    /**
+     * The search stops once the last destination is settled
+     */
+    @Test
+    void stopWhenAllSettled() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1).addAirport(2, 2).addAirport(3, 3).addAirport(4, 4)
+                .addRoute(12, 1, 2, 1d).addRoute(23, 2, 3, 1d).addRoute(34, 3, 4, 1d)
+                .build();
+
+        final ShortestPath[] paths = oneToManySearch.cheapest(graph, new int[]{graph.nodeOf(1)},
+                new int[][]{{graph.nodeOf(2)}, {graph.nodeOf(2)}}, false);
+
+        Assertions.assertEquals(1, paths[0].getPrice());
+        Assertions.assertEquals(1, paths[1].getPrice());
+        Assertions.assertEquals(2, paths[0].getSettled());
+    }
+
+    /**
+     * Every destination must get the price a separate {@link Dijkstra} search finds
+     */
+    @Test
+    void matchDijkstra() {
+        final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+        final Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            final FlightGraph.Builder builder = FlightGraph.builder();
+            final int airports = 30;
+            for (int airport = 0; airport < airports; airport++) {
+                builder.addAirport(airport, airport / 3);
+            }
+            final double[] prices = new double[80];
+            for (int route = 0; route < prices.length; route++) {
+                prices[route] = 1 + random.nextInt(50);
+                builder.addRoute(route, random.nextInt(airports), random.nextInt(airports), prices[route]);
+            }
+            final FlightGraph graph = builder.build();
+            final int[] sources = {graph.nodeOf(0), graph.nodeOf(1), graph.nodeOf(2)};
+            final int[][] targets = new int[airports / 3 - 1][];
+            for (int city = 1; city < airports / 3; city++) {
+                targets[city - 1] = new int[]{graph.nodeOf(city * 3), graph.nodeOf(city * 3 + 1),
+                        graph.nodeOf(city * 3 + 2)};
+            }
+
+            final ShortestPath[] paths = oneToManySearch.cheapest(graph, sources, targets, true);
+            for (int i = 0; i < targets.length; i++) {
+                final ShortestPath expected = dijkstra.cheapest(graph, sources, targets[i]);
+                Assertions.assertEquals(expected.getPrice(), paths[i].getPrice());
+                if (!expected.isEmpty()) {
+                    Assertions.assertEquals(expected.getPrice(), Arrays.stream(paths[i].getRouteIds())
+                            .mapToDouble(routeId -> prices[(int) routeId]).sum());
+                }
+            }
+        }
+    }
+}
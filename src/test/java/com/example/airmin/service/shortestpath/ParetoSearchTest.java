@@ -0,0 +1,124 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class ParetoSearchTest {
+
+    /**
+     * @formatter:off
+     *            C (20, 5)
+     *          /          \
+     *        20            20
+     *       /               \
+     * A (0, 0) - 30 - B (0, 5) - 30 - D (0, 10)
+     *     \  \                        / /
+     *      \  ----------- 100 -------- /
+     *       35 -- E (10, 5) -- 35 -----
+     * @formatter:on
+     *
+     * A-C-D is the cheapest, A-D the one with fewest legs, A-B-D is cheaper than A-D and as short. A-E-D is dominated
+     * by A-B-D
+     */
+    @Test
+    void nonDominatedItineraries() {
+        final FlightGraph graph = FlightGraph.builder()
+                .addAirport(1, 1, 0, 0).addAirport(2, 2, 0, 5).addAirport(3, 3, 20, 5)
+                .addAirport(4, 4, 0, 10).addAirport(5, 5, 10, 5)
+                .addRoute(14, 1, 4, 100)
+                .addRoute(12, 1, 2, 30).addRoute(24, 2, 4, 30)
+                .addRoute(13, 1, 3, 20).addRoute(34, 3, 4, 20)
+                .addRoute(15, 1, 5, 35).addRoute(54, 5, 4, 35)
+                .build();
+
+        final List<ParetoPath> paths = new ParetoSearch(QueueType.DARY_HEAP, 4, 8)
+                .search(graph, new int[]{graph.nodeOf(1)}, new int[]{graph.nodeOf(4)});
+
+        Assertions.assertEquals(3, paths.size());
+        Assertions.assertArrayEquals(new long[]{13, 34}, paths.get(0).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{12, 24}, paths.get(1).getRouteIds());
+        Assertions.assertArrayEquals(new long[]{14}, paths.get(2).getRouteIds());
+        Assertions.assertEquals(40, paths.get(0).getPrice());
+        Assertions.assertEquals(1, paths.get(2).getLegs());
+        Assertions.assertEquals(1111.95, paths.get(2).getDistanceKm(), 0.01);
+        Assertions.assertEquals(paths.get(2).getDistanceKm(), paths.get(1).getDistanceKm(), 1e-6);
+        Assertions.assertTrue(paths.get(0).getDistanceKm() > paths.get(1).getDistanceKm());
+    }
+
+    /**
+     * The Pareto front must match brute force enumeration of all loopless paths on random graphs
+     */
+    @Test
+    void matchBruteForce() {
+        final Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            final FlightGraph.Builder builder = FlightGraph.builder();
+            final int airports = 9;
+            for (int airport = 0; airport < airports; airport++) {
+                builder.addAirport(airport, airport / 2, random.nextInt(60) - 30, random.nextInt(60) - 30);
+            }
+            for (int route = 0; route < 30; route++) {
+                final int source = random.nextInt(airports);
+                final int destination = random.nextInt(airports);
+                if (source != destination) {
+                    builder.addRoute(route, source, destination, 1 + random.nextInt(10));
+                }
+            }
+            final FlightGraph graph = builder.build();
+            final int[] sources = {graph.nodeOf(0), graph.nodeOf(1)};
+            final int[] targets = {graph.nodeOf(7), graph.nodeOf(8)};
+            final int maxLegs = 4;
+
+            final List<double[]> all = new ArrayList<>();
+            for (final int source : sources) {
+                enumerate(graph, source, targets, maxLegs, new double[3], new HashSet<>(Set.of(source)), all);
+            }
+            final Set<List<Double>> expected = all.stream()
+                    .filter(c -> all.stream().noneMatch(o -> dominates(o, c)))
+                    .map(c -> Arrays.asList(c[0], c[1], c[2])).collect(Collectors.toSet());
+
+            final List<ParetoPath> paths = new ParetoSearch(QueueType.DARY_HEAP, 4, maxLegs)
+                    .search(graph, sources, targets);
+            final Set<List<Double>> actual = paths.stream()
+                    .map(p -> Arrays.asList(p.getPrice(), (double) p.getLegs(), p.getDistanceKm()))
+                    .collect(Collectors.toSet());
+            Assertions.assertEquals(expected, actual);
+            Assertions.assertEquals(paths.size(), actual.size());
+            Assertions.assertEquals(paths.stream().sorted(Comparator.comparingDouble(ParetoPath::getPrice))
+                    .collect(Collectors.toList()), paths);
+        }
+    }
+
+    private static boolean dominates(final double[] a, final double[] b) {
+        return a[0] <= b[0] && a[1] <= b[1] && a[2] <= b[2] && !Arrays.equals(a, b);
+    }
+
+    private void enumerate(final FlightGraph graph, final int node, final int[] targets, final int legs,
+                           final double[] criteria, final Set<Integer> visited, final List<double[]> paths) {
+        if (Arrays.stream(targets).anyMatch(target -> target == node)) {
+            paths.add(criteria);
+            return;
+        }
+        if (legs == 0) {
+            return;
+        }
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            final int next = graph.target(e);
+            if (visited.add(next)) {
+                enumerate(graph, next, targets, legs - 1, new double[]{criteria[0] + graph.price(e),
+                        criteria[1] + 1, criteria[2] + graph.distanceKm(e)}, visited, paths);
+                visited.remove(next);
+            }
+        }
+    }
+}
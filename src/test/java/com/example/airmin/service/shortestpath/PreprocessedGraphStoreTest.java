@@ -0,0 +1,76 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.graph.FlightGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PreprocessedGraphStoreTest {
+
+    private final CountingStore store = new CountingStore();
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    /**
+     * A reader still holding the replaced graph neither evicts the current data nor has the old graph preprocessed
+     */
+    @Test
+    void findStaleGraph() {
+        final FlightGraph g1 = graph(10);
+        final FlightGraph g2 = graph(20);
+
+        store.prepare(g2);
+        Assertions.assertEquals(Long.valueOf(g2.fingerprint()), store.get(g2));
+        Assertions.assertFalse(store.find(g1).isPresent());
+        Assertions.assertEquals(Long.valueOf(g2.fingerprint()), store.find(g2).orElse(null));
+        store.get(g2);
+
+        Assertions.assertEquals(1, store.preprocessed(g2));
+        Assertions.assertEquals(0, store.preprocessed(g1));
+    }
+
+    @Test
+    void findNeverPrepares() {
+        final FlightGraph graph = graph(10);
+
+        Assertions.assertFalse(store.find(graph).isPresent());
+        Assertions.assertEquals(0, store.preprocessed(graph));
+        store.get(graph);
+        Assertions.assertTrue(store.find(graph).isPresent());
+        Assertions.assertEquals(1, store.preprocessed(graph));
+    }
+
+    private static FlightGraph graph(final double price) {
+        return FlightGraph.builder().addAirport(1, 1).addAirport(2, 2).addRoute(1, 1, 2, price).build();
+    }
+
+    /**
+     * Stores the fingerprint of the graph, counting how often each graph was preprocessed
+     */
+    private static final class CountingStore extends PreprocessedGraphStore<Long> {
+
+        private final Map<Long, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        private CountingStore() {
+            super("counting");
+        }
+
+        @Override
+        protected Long preprocess(final FlightGraph graph) {
+            counts.computeIfAbsent(graph.fingerprint(), fingerprint -> new AtomicInteger()).incrementAndGet();
+            return graph.fingerprint();
+        }
+
+        private int preprocessed(final FlightGraph graph) {
+            final AtomicInteger count = counts.get(graph.fingerprint());
+            return count == null ? 0 : count.get();
+        }
+    }
+}
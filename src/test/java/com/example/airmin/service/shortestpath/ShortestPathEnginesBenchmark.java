@@ -0,0 +1,238 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.util.DatasetGraph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares query time and settled airports of {@link ShortestPathEngine}s on random city pairs of the full dataset.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShortestPathEnginesBenchmark {
+
+    private static final int QUERIES = 2000;
+
+    private FlightGraph graph;
+    private int[][] sources;
+    private int[][] targets;
+    private ContractionHierarchyStore hierarchyStore;
+    private LandmarkStore landmarkStore;
+
+    @BeforeAll
+    void beforeAll() throws IOException {
+        graph = DatasetGraph.load();
+        final Random random = new Random(42);
+        sources = new int[QUERIES][];
+        targets = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            sources[i] = airportsIn(graph.cityId(random.nextInt(graph.nodeCount())));
+            targets[i] = airportsIn(graph.cityId(random.nextInt(graph.nodeCount())));
+        }
+
+        final RouteDiscoveryProperties properties =
+                new RouteDiscoveryProperties(Algorithm.DIJKSTRA, QueueType.DARY_HEAP, 4, null, 16, 20, 8, 0, 0,
+                        Duration.ZERO, null, false, 0);
+        hierarchyStore = new ContractionHierarchyStore(properties);
+        landmarkStore = new LandmarkStore(properties);
+        long start = System.nanoTime();
+        final LandmarkTable landmarks = landmarkStore.get(graph);
+        System.out.printf("Landmarks: %d selected in %d ms%n", landmarks.landmarkCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        final ContractionHierarchy hierarchy = hierarchyStore.get(graph);
+        System.out.printf("Calibrated minimum price per km: %.6f%n", graph.minPricePerKm());
+        System.out.printf("Contraction hierarchy: %d edges (%d routes) built in %d ms%n", hierarchy.edgeCount(),
+                graph.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @AfterAll
+    void afterAll() {
+        hierarchyStore.shutdown();
+        landmarkStore.shutdown();
+    }
+
+    Stream<ShortestPathEngine> engines() {
+        return Stream.of(
+                new Dijkstra(QueueType.DARY_HEAP, 4),
+                new BidirectionalDijkstra(QueueType.DARY_HEAP, 4),
+                new ContractionHierarchyEngine(hierarchyStore, null, QueueType.DARY_HEAP, 4),
+                new AStar(QueueType.DARY_HEAP, 4),
+                new LandmarkAStar(landmarkStore, new AStar(QueueType.DARY_HEAP, 4), null));
+    }
+
+    @Test
+    void compare() {
+        engines().forEach(engine -> {
+            run(engine);
+            final long start = System.nanoTime();
+            final long settled = run(engine);
+            System.out.printf("%-28s %8.1f us/query %8d settled/query%n", engine.algorithm(),
+                    (System.nanoTime() - start) / 1000.0 / QUERIES, settled / QUERIES);
+        });
+    }
+
+    @Test
+    void kCheapest() {
+        kCheapest("K_CHEAPEST", new KShortestPaths(null, QueueType.DARY_HEAP, 4));
+        kCheapest("K_CHEAPEST (landmarks)", new KShortestPaths(landmarkStore, QueueType.DARY_HEAP, 4));
+    }
+
+    /**
+     * Leg-limited search against the unbounded {@link Dijkstra} it prunes
+     */
+    @Test
+    void legLimited() {
+        final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+        run(dijkstra);
+        long start = System.nanoTime();
+        final long dijkstraSettled = run(dijkstra);
+        System.out.printf("%-28s %8.1f us/query %8d settled/query%n", "DIJKSTRA",
+                (System.nanoTime() - start) / 1000.0 / QUERIES, dijkstraSettled / QUERIES);
+
+        final LegLimitedSearch search = new LegLimitedSearch(QueueType.DARY_HEAP, 4);
+        for (int maxLegs = 1; maxLegs <= 6; maxLegs++) {
+            runLegLimited(search, maxLegs);
+            start = System.nanoTime();
+            final long settled = runLegLimited(search, maxLegs);
+            System.out.printf("%-28s %8.1f us/query %8d settled/query%n", "LEG_LIMITED (max " + maxLegs + ")",
+                    (System.nanoTime() - start) / 1000.0 / QUERIES, settled / QUERIES);
+        }
+    }
+
+    private long runLegLimited(final LegLimitedSearch search, final int maxLegs) {
+        long settled = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            settled += search.cheapest(graph, sources[i], targets[i], maxLegs).getSettled();
+        }
+        return settled;
+    }
+
+    /**
+     * One search for 100 destinations against 100 {@link Dijkstra} searches from the same source
+     */
+    @Test
+    void oneToMany() {
+        final int destinations = 100;
+        final int rows = QUERIES / destinations;
+        final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+        final OneToManySearch oneToManySearch = new OneToManySearch(QueueType.DARY_HEAP, 4);
+        for (int round = 0; round < 2; round++) {
+            long settled = 0;
+            long start = System.nanoTime();
+            for (int row = 0; row < rows; row++) {
+                for (int i = 0; i < destinations; i++) {
+                    settled += dijkstra.cheapest(graph, sources[row], targets[row * destinations + i]).getSettled();
+                }
+            }
+            final long separate = System.nanoTime() - start;
+            final long separateSettled = settled;
+
+            settled = 0;
+            start = System.nanoTime();
+            for (int row = 0; row < rows; row++) {
+                final int[][] rowTargets = new int[destinations][];
+                System.arraycopy(targets, row * destinations, rowTargets, 0, destinations);
+                settled += oneToManySearch.cheapest(graph, sources[row], rowTargets, false)[0].getSettled();
+            }
+            if (round == 1) {
+                System.out.printf("%-28s %8.1f us/row %8d settled/row (%d destinations)%n", "DIJKSTRA per destination",
+                        separate / 1000.0 / rows, separateSettled / rows, destinations);
+                System.out.printf("%-28s %8.1f us/row %8d settled/row (%d destinations)%n", "ONE_TO_MANY",
+                        (System.nanoTime() - start) / 1000.0 / rows, settled / rows, destinations);
+            }
+        }
+    }
+
+    /**
+     * 300 x 300 city table on one thread and on all processors
+     */
+    @Test
+    void manyToMany() {
+        final int[][] cities = new int[300][];
+        System.arraycopy(sources, 0, cities, 0, cities.length);
+        final OneToManySearch oneToManySearch = new OneToManySearch(QueueType.DARY_HEAP, 4);
+        for (final int parallelism : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+            final ManyToManySearch search = new ManyToManySearch(oneToManySearch, parallelism);
+            try {
+                search.table(graph, cities, cities, (row, prices) -> {
+                });
+                final long start = System.nanoTime();
+                search.table(graph, cities, cities, (row, prices) -> {
+                });
+                System.out.printf("%-28s %8.1f ms/table (%d x %d cities)%n", "MANY_TO_MANY (" + parallelism
+                        + " threads)", (System.nanoTime() - start) / 1e6, cities.length, cities.length);
+            } finally {
+                search.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void pareto() {
+        final ParetoSearch search = new ParetoSearch(QueueType.DARY_HEAP, 4, 8);
+        final int queries = QUERIES / 10;
+        runPareto(search, queries);
+        final long start = System.nanoTime();
+        final long[] totals = runPareto(search, queries);
+        System.out.printf("%-28s %8.1f us/query %8d settled labels/query %5.1f itineraries/query%n", "PARETO",
+                (System.nanoTime() - start) / 1000.0 / queries, totals[0] / queries, (double) totals[1] / queries);
+    }
+
+    /**
+     * @return settled labels and found itineraries
+     */
+    private long[] runPareto(final ParetoSearch search, final int queries) {
+        final long[] totals = new long[2];
+        for (int i = 0; i < queries; i++) {
+            final List<ParetoPath> paths = search.search(graph, sources[i], targets[i]);
+            totals[0] += paths.isEmpty() ? 0 : paths.get(0).getSettled();
+            totals[1] += paths.size();
+        }
+        return totals;
+    }
+
+    private void kCheapest(final String name, final KShortestPaths kShortestPaths) {
+        final int k = 10;
+        final int queries = QUERIES / 10;
+        runKCheapest(kShortestPaths, k, queries);
+        final long start = System.nanoTime();
+        final long settled = runKCheapest(kShortestPaths, k, queries);
+        System.out.printf("%-28s %8.1f us/query %8d settled/query (k=%d)%n", name,
+                (System.nanoTime() - start) / 1000.0 / queries, settled / queries, k);
+    }
+
+    private long runKCheapest(final KShortestPaths kShortestPaths, final int k, final int queries) {
+        long settled = 0;
+        for (int i = 0; i < queries; i++) {
+            final List<ShortestPath> paths = kShortestPaths.cheapest(graph, sources[i], targets[i], k);
+            settled += paths.isEmpty() ? 0 : paths.get(0).getSettled();
+        }
+        return settled;
+    }
+
+    private long run(final ShortestPathEngine engine) {
+        long settled = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            settled += engine.cheapest(graph, sources[i], targets[i]).getSettled();
+        }
+        return settled;
+    }
+
+    private int[] airportsIn(final long cityId) {
+        return IntStream.range(0, graph.nodeCount()).filter(node -> graph.cityId(node) == cityId).toArray();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.airmin.service.shortestpath;
+
+import com.example.airmin.service.RouteDiscoveryProperties;
+import com.example.airmin.service.graph.FlightGraph;
+import com.example.airmin.util.DatasetGraph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Every {@link ShortestPathEngine} must find paths as cheap as plain {@link Dijkstra} on the full dataset
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShortestPathEnginesTest {
+
+    private static final int QUERIES = 300;
+
+    private FlightGraph graph;
+    private Map<Long, Integer> routeEdges;
+    private ContractionHierarchyStore hierarchyStore;
+    private LandmarkStore landmarkStore;
+    private int[][] sources;
+    private int[][] targets;
+
+    @BeforeAll
+    void beforeAll() throws IOException {
+        graph = DatasetGraph.load();
+        routeEdges = new HashMap<>();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            routeEdges.put(graph.routeId(e), e);
+        }
+        final RouteDiscoveryProperties properties =
+                new RouteDiscoveryProperties(Algorithm.DIJKSTRA, QueueType.DARY_HEAP, 4, null, 16, 20, 8, 0, 0,
+                        Duration.ZERO, null, false, 0);
+        hierarchyStore = new ContractionHierarchyStore(properties);
+        landmarkStore = new LandmarkStore(properties);
+        landmarkStore.get(graph);
+        hierarchyStore.get(graph);
+
+        final Random random = new Random(7);
+        sources = new int[QUERIES][];
+        targets = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            sources[i] = airportsIn(graph.cityId(random.nextInt(graph.nodeCount())));
+            targets[i] = airportsIn(graph.cityId(random.nextInt(graph.nodeCount())));
+        }
+    }
+
+    @AfterAll
+    void afterAll() {
+        hierarchyStore.shutdown();
+        landmarkStore.shutdown();
+    }
+
+    Stream<ShortestPathEngine> engines() {
+        return Stream.of(
+                new BidirectionalDijkstra(QueueType.DARY_HEAP, 4),
+                new BidirectionalDijkstra(QueueType.PRIORITY_QUEUE, 4),
+                new ContractionHierarchyEngine(hierarchyStore, null, QueueType.DARY_HEAP, 4),
+                new AStar(QueueType.DARY_HEAP, 4),
+                new LandmarkAStar(landmarkStore, new AStar(QueueType.DARY_HEAP, 4), null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void sameCheapestPrice(final ShortestPathEngine engine) {
+        final Dijkstra dijkstra = new Dijkstra(QueueType.DARY_HEAP, 4);
+        for (int i = 0; i < QUERIES; i++) {
+            final ShortestPath expected = dijkstra.cheapest(graph, sources[i], targets[i]);
+            final ShortestPath actual = engine.cheapest(graph, sources[i], targets[i]);
+
+            Assertions.assertEquals(expected.getPrice(), actual.getPrice(), 1e-9);
+            Assertions.assertEquals(actual.isEmpty() ? 0 : actual.getPrice(),
+                    Arrays.stream(actual.getRouteIds()).mapToDouble(id -> graph.price(routeEdges.get(id))).sum(),
+                    1e-9);
+            assertConnected(actual, sources[i], targets[i]);
+        }
+    }
+
+    private void assertConnected(final ShortestPath path, final int[] from, final int[] to) {
+        if (path.isEmpty()) {
+            return;
+        }
+        final long[] routeIds = path.getRouteIds();
+        final int first = graph.source(routeEdges.get(routeIds[0]));
+        Assertions.assertTrue(Arrays.stream(from).anyMatch(source -> source == first));
+        int node = first;
+        for (final long routeId : routeIds) {
+            Assertions.assertEquals(node, graph.source(routeEdges.get(routeId)));
+            node = graph.target(routeEdges.get(routeId));
+        }
+        final int last = node;
+        Assertions.assertTrue(Arrays.stream(to).anyMatch(target -> target == last));
+    }
+
+    private int[] airportsIn(final long cityId) {
+        return IntStream.range(0, graph.nodeCount()).filter(node -> graph.cityId(node) == cityId).toArray();
+    }
+}
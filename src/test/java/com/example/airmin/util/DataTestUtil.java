@@ -7,16 +7,15 @@ import com.example.airmin.repository.AirportRepository;
 import com.example.airmin.repository.CityRepository;
 import com.example.airmin.repository.RouteRepository;
 import com.example.airmin.rest.dto.CityDto;
+import com.example.airmin.service.graph.FlightGraphSnapshots;
+import com.example.airmin.service.graph.GraphVersion;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Component;
 
 import javax.transaction.Transactional;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,7 +28,9 @@ public class DataTestUtil {
     @Autowired
     private RouteRepository routeRepository;
     @Autowired
-    private CacheManager cacheManager;
+    private FlightGraphSnapshots flightGraphSnapshots;
+    @Autowired
+    private GraphVersion graphVersion;
 
     public CityDto createDto(CityData city) {
         return new CityDto(city.name, city.country, city.description);
@@ -56,7 +57,8 @@ public class DataTestUtil {
 
     @Transactional
     public Route save(final AirportData source, final AirportData destination, final double price) {
-        Objects.requireNonNull(cacheManager.getCache(Airport.class.getSimpleName().toLowerCase())).clear();
+        flightGraphSnapshots.invalidate();
+        graphVersion.bump();
         final Airport sourceAirport = saveIfNotExist(source);
         final Airport destinationAirport = saveIfNotExist(destination);
         return routeRepository.save(new Route(price, sourceAirport, destinationAirport));
@@ -64,7 +66,8 @@ public class DataTestUtil {
 
     @Transactional
     public Airport saveIfNotExist(AirportData airportData) {
-        Objects.requireNonNull(cacheManager.getCache(Airport.class.getSimpleName().toLowerCase())).clear();
+        flightGraphSnapshots.invalidate();
+        graphVersion.bump();
         return airportRepository
                 .findByExternalId(airportData.externalId)
                 .orElseGet(() -> save(airportData));
@@ -72,7 +75,8 @@ public class DataTestUtil {
 
     @Transactional
     public Airport save(AirportData airportData) {
-        Objects.requireNonNull(cacheManager.getCache(Airport.class.getSimpleName().toLowerCase())).clear();
+        flightGraphSnapshots.invalidate();
+        graphVersion.bump();
         return airportRepository
                 .save(new Airport(airportData.externalId, airportData.name, saveIfNotExist(airportData.cityData)));
     }
@@ -82,6 +86,7 @@ public class DataTestUtil {
         routeRepository.deleteAll();
         airportRepository.deleteAll();
         cityRepository.deleteAll();
+        graphVersion.bump();
     }
 
     @Getter
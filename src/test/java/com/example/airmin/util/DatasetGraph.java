@@ -0,0 +1,74 @@
+package com.example.airmin.util;
+
+import com.example.airmin.service.csv.AirportCsvColumns;
+import com.example.airmin.service.csv.CsvColumn;
+import com.example.airmin.service.csv.RouteCsvColumns;
+import com.example.airmin.service.graph.FlightGraph;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds {@link FlightGraph} straight from the OpenFlights test datasets, without a database. Airport and city ids are
+ * derived from the csv files: airport id is its external id, cities are numbered by (name, country).
+ */
+public final class DatasetGraph {
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.withEscape('\\').withNullString("\\N");
+
+    private DatasetGraph() {
+    }
+
+    public static FlightGraph load() throws IOException {
+        final FlightGraph.Builder builder = FlightGraph.builder();
+        final Map<String, Long> cityIds = new HashMap<>();
+        for (final CSVRecord record : parse("classpath:datasets/airports.csv")) {
+            final Long airportId = parse(AirportCsvColumns.ID, record);
+            final String city = record.get(AirportCsvColumns.CITY.getIndex());
+            final String country = record.get(AirportCsvColumns.COUNTRY.getIndex());
+            if (airportId == null || city == null || country == null) {
+                continue;
+            }
+            final long cityId = cityIds.computeIfAbsent((city + '|' + country).toLowerCase(Locale.ROOT),
+                    key -> (long) cityIds.size() + 1);
+            final Double latitude = parse(AirportCsvColumns.LATITUDE, record);
+            final Double longitude = parse(AirportCsvColumns.LONGITUDE, record);
+            builder.addAirport(airportId, cityId, latitude == null ? Double.NaN : latitude,
+                    longitude == null ? Double.NaN : longitude);
+        }
+
+        long routeId = 0;
+        for (final CSVRecord record : parse("classpath:datasets/routes.csv")) {
+            final Long source = parse(RouteCsvColumns.SOURCE_AIRPORT_ID, record);
+            final Long destination = parse(RouteCsvColumns.DESTINATION_AIRPORT_ID, record);
+            final Double price = parse(RouteCsvColumns.PRICE, record);
+            routeId++;
+            if (source != null && destination != null && price != null && !source.equals(destination)) {
+                builder.addRoute(routeId, source, destination, price);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Iterable<CSVRecord> parse(final String resource) throws IOException {
+        final Reader reader = Files.newBufferedReader(ResourceUtils.getFile(resource).toPath(), StandardCharsets.UTF_8);
+        return CSV_FORMAT.parse(reader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R parse(final CsvColumn column, final CSVRecord record) {
+        try {
+            return (R) column.getParser().apply(record.get(column.getIndex()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}